@@ -13,6 +13,7 @@ import malilib.gui.edit.MessageRedirectListScreen;
 import malilib.input.callback.AdjustableValueHotkeyCallback;
 import malilib.listener.EventListener;
 import malilib.overlay.message.MessageUtils;
+import malilib.render.text.StyledText;
 
 public class MaLiLibActions
 {
@@ -31,6 +32,7 @@ public class MaLiLibActions
         register("openCustomIconsListScreen", CustomIconListScreen::openCustomIconListScreenAction);
         register("openMessageRedirectsListScreen", MessageRedirectListScreen::openMessageRedirectListScreenAction);
         register("openPreviousActionWidgetScreen", ActionWidgetScreen::openPreviousActionWidgetScreen);
+        register("printTextCacheStats", StyledText::printCacheStatsAction);
         register("switchConfigProfile", ConfigUtils::switchConfigProfile);
 
         register("cycleGameMode", UtilityActions::cycleGameMode);
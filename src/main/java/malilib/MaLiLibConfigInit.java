@@ -9,6 +9,7 @@ import malilib.network.message.MessagePacketHandler;
 import malilib.overlay.message.MessageDispatcher;
 import malilib.overlay.message.MessageUtils;
 import malilib.overlay.widget.MessageRendererWidget;
+import malilib.render.text.StyledText;
 
 public class MaLiLibConfigInit
 {
@@ -28,6 +29,9 @@ public class MaLiLibConfigInit
 
         MaLiLibConfigs.Generic.CUSTOM_HOTBAR_MESSAGE_LIMIT.setValueChangeCallback((n, o) -> setCustomHotbarMessageLimit(n));
         MaLiLibConfigs.Generic.CUSTOM_HOTBAR_MESSAGE_LIMIT.setValueLoadCallback(MaLiLibConfigInit::setCustomHotbarMessageLimit);
+
+        MaLiLibConfigs.Generic.TEXT_CACHE_SIZE.setValueChangeCallback((n, o) -> StyledText.setCacheMaxSize(n));
+        MaLiLibConfigs.Generic.TEXT_CACHE_SIZE.setValueLoadCallback(StyledText::setCacheMaxSize);
     }
 
     private static void setCustomHotbarMessageLimit(int limit)
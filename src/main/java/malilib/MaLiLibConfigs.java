@@ -62,6 +62,7 @@ public class MaLiLibConfigs
         public static final BooleanConfig SHOW_INTERNAL_CONFIG_NAME                 = new BooleanConfig("showInternalConfigName", false);
         public static final BooleanConfig SORT_CONFIGS_BY_NAME                      = new BooleanConfig("sortConfigsByName", false);
         public static final BooleanConfig SORT_EXTENSION_MOD_OPTIONS                = new BooleanConfig("sortExtensionModOptions", false);
+        public static final IntegerConfig TEXT_CACHE_SIZE                           = new IntegerConfig("textCacheSize", 16, 1, 1024);
 
         public static final ImmutableList<ConfigOption<?>> OPTIONS = ImmutableList.of(
                 ACTION_PROMPT_CLOSE_ON_EXECUTE,
@@ -96,7 +97,8 @@ public class MaLiLibConfigs
                 SERVER_MESSAGES,
                 SHOW_INTERNAL_CONFIG_NAME,
                 SORT_CONFIGS_BY_NAME,
-                SORT_EXTENSION_MOD_OPTIONS
+                SORT_EXTENSION_MOD_OPTIONS,
+                TEXT_CACHE_SIZE
         );
     }
 
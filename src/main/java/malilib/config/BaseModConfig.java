@@ -18,7 +18,8 @@ public abstract class BaseModConfig implements ModConfig
     protected IntSupplier backupCountSupplier = MaLiLibConfigs.Generic.CONFIG_BACKUP_COUNT::getIntegerValue;
     protected BooleanSupplier antiDuplicateSupplier = MaLiLibConfigs.Generic.CONFIG_BACKUP_ANTI_DUPLICATE::getBooleanValue;
     protected String backupDirectoryName = "backups";
-    protected int savedConfigVersion;
+    // Volatile, as this gets updated by the async config writer once the file has been written
+    protected volatile int savedConfigVersion;
 
     public BaseModConfig(ModInfo modInfo, String configFileName, int currentConfigVersion,
                          List<ConfigOptionCategory> configOptionCategories)
@@ -8,6 +8,7 @@ import java.util.Map;
 import javax.annotation.Nullable;
 
 import malilib.MaLiLib;
+import malilib.util.AsyncFileWriter;
 import malilib.util.data.ModInfo;
 
 public class ConfigManagerImpl implements ConfigManager
@@ -72,6 +73,9 @@ public class ConfigManagerImpl implements ConfigManager
      */
     public void loadAllConfigs()
     {
+        // Don't read the files while there may still be older data waiting to be written
+        AsyncFileWriter.INSTANCE.waitForPendingWrites();
+
         for (ModConfig handler : this.configHandlers.values())
         {
             MaLiLib.debugLog("Loading configs for mod {}", handler.getModInfo().getModId());
@@ -84,6 +88,8 @@ public class ConfigManagerImpl implements ConfigManager
      */
     public void saveAllConfigs()
     {
+        AsyncFileWriter.INSTANCE.waitForPendingWrites();
+
         for (ModConfig handler : this.configHandlers.values())
         {
             handler.saveToFile();
@@ -95,6 +101,8 @@ public class ConfigManagerImpl implements ConfigManager
      */
     public boolean saveIfDirty()
     {
+        AsyncFileWriter.INSTANCE.waitForPendingWrites();
+
         boolean savedSomething = false;
 
         for (ModConfig handler : this.configHandlers.values())
@@ -104,4 +112,21 @@ public class ConfigManagerImpl implements ConfigManager
 
         return savedSomething;
     }
+
+    /**
+     * Captures the values of all the dirty configs on the calling thread,
+     * and then saves them to file on a background thread.
+     * NOT PUBLIC API - DO NOT CALL
+     */
+    public boolean saveIfDirtyAsync()
+    {
+        boolean savedSomething = false;
+
+        for (ModConfig handler : this.configHandlers.values())
+        {
+            savedSomething |= handler.saveIfDirtyAsync();
+        }
+
+        return savedSomething;
+    }
 }
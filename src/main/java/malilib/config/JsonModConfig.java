@@ -1,14 +1,25 @@
 package malilib.config;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.List;
 import javax.annotation.Nullable;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
+import malilib.MaLiLib;
+import malilib.MaLiLibConfigs;
 import malilib.config.category.ConfigOptionCategory;
 import malilib.config.util.JsonConfigUtils;
+import malilib.config.value.FileWriteType;
+import malilib.util.AsyncFileWriter;
 import malilib.util.BackupUtils;
+import malilib.util.FileUtils;
 import malilib.util.data.ModInfo;
+import malilib.util.data.json.JsonUtils;
 
 public class JsonModConfig extends BaseModConfig
 {
@@ -59,13 +70,17 @@ public class JsonModConfig extends BaseModConfig
     @Override
     public void loadFromFile(Path configFile)
     {
-        JsonConfigUtils.loadFromFile(configFile, this.getConfigOptionCategories(), this::updateConfigDataBeforeLoading);
-
-        if (this.configDataUpdater != null)
+        // The data updater operates on the JsonObject tree, so only use the
+        // streaming reader when there is nothing that needs the full tree.
+        if (this.configDataUpdater == null)
         {
-            this.configDataUpdater.updateConfigsAfterLoading(this.getConfigOptionCategories(),
-                                                             this.savedConfigVersion, this.getConfigVersion());
+            JsonConfigUtils.loadFromFileStreaming(configFile, this.getConfigOptionCategories(), v -> this.savedConfigVersion = v);
+            return;
         }
+
+        JsonConfigUtils.loadFromFile(configFile, this.getConfigOptionCategories(), this::updateConfigDataBeforeLoading);
+        this.configDataUpdater.updateConfigsAfterLoading(this.getConfigOptionCategories(),
+                                                         this.savedConfigVersion, this.getConfigVersion());
     }
 
     @Override
@@ -87,7 +102,7 @@ public class JsonModConfig extends BaseModConfig
             BackupUtils.createRollingBackup(configFile, backupDirectory, ".bak_", backupCount, antiDuplicate);
         }
 
-        boolean success = JsonConfigUtils.saveToFile(configFile, this.getConfigOptionCategories(), currentConfigVersion);
+        boolean success = JsonConfigUtils.saveToFileStreaming(configFile, this.getConfigOptionCategories(), currentConfigVersion);
 
         if (success)
         {
@@ -97,6 +112,73 @@ public class JsonModConfig extends BaseModConfig
         return success;
     }
 
+    @Override
+    public boolean saveToFileAsync(Path configDirectory, Path configFile)
+    {
+        // Capture the config values and the settings on this thread. The values are
+        // serialized directly into a character buffer, without building the JSON tree.
+        int currentConfigVersion = this.getConfigVersion();
+        StringWriter stringWriter = new StringWriter(8192);
+        boolean success;
+
+        try
+        {
+            JsonWriter jsonWriter = JsonUtils.GSON.newJsonWriter(stringWriter);
+            success = JsonConfigUtils.writeConfigs(jsonWriter, this.getConfigOptionCategories(), currentConfigVersion);
+            jsonWriter.flush();
+        }
+        catch (IOException e)
+        {
+            MaLiLib.LOGGER.warn("Failed to serialize the configs for '{}'", configFile.toAbsolutePath(), e);
+            return false;
+        }
+
+        final String data = stringWriter.toString();
+        Path backupDirectory = this.getConfigBackupDirectory(configDirectory);
+        int backupCount = this.backupCountSupplier.getAsInt();
+        boolean antiDuplicate = this.antiDuplicateSupplier.getAsBoolean();
+        FileWriteType writeType = MaLiLibConfigs.Generic.CONFIG_WRITE_METHOD.getValue();
+
+        AsyncFileWriter.INSTANCE.submit(configFile, () -> {
+            // The tasks for the same file run one at a time, so the saved version
+            // is read here, after any previous save of this file has finished
+            int previousConfigVersion = this.savedConfigVersion;
+
+            if (previousConfigVersion != currentConfigVersion)
+            {
+                BackupUtils.createBackupFileForVersion(configFile, backupDirectory, previousConfigVersion);
+            }
+
+            if (backupCount > 0)
+            {
+                BackupUtils.createRollingBackup(configFile, backupDirectory, ".bak_", backupCount, antiDuplicate);
+            }
+
+            if (FileUtils.writeDataToFile(configFile, w -> writeData(data, w), writeType))
+            {
+                this.savedConfigVersion = currentConfigVersion;
+            }
+            else
+            {
+                MaLiLib.LOGGER.warn("Failed to save the configs to '{}'", configFile.toAbsolutePath());
+            }
+        });
+
+        return success;
+    }
+
+    protected static void writeData(String data, BufferedWriter writer)
+    {
+        try
+        {
+            writer.write(data);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public interface ConfigDataUpdater
     {
         /**
@@ -55,6 +55,20 @@ public interface ModConfig
      */
     boolean saveToFile(Path configDirectory, Path configFile);
 
+    /**
+     * Saves all the configs to the provided config file. The config values are captured
+     * on the calling thread, but the backups and the actual file writing may happen
+     * later on a background thread.
+     * The default implementation just saves synchronously via {@link #saveToFile(Path, Path)}.
+     * @param configDirectory the directory where the configs are being saved to
+     * @param configFile the file to save the configs to
+     * @return true if the configs were successfully captured for saving, false on failure
+     */
+    default boolean saveToFileAsync(Path configDirectory, Path configFile)
+    {
+        return this.saveToFile(configDirectory, configFile);
+    }
+
     /**
      * Returns the directory where the configs should be saved
      */
@@ -151,4 +165,27 @@ public interface ModConfig
 
         return false;
     }
+
+    /**
+     * Save the configs only if at least some of them have been modified since last saving.
+     * The file writing may happen on a background thread, see {@link #saveToFileAsync(Path, Path)}.
+     */
+    default boolean saveIfDirtyAsync()
+    {
+        if (this.areConfigsDirty())
+        {
+            Path dir = this.getConfigDirectory();
+
+            if (Files.isDirectory(dir))
+            {
+                return this.saveToFileAsync(dir, dir.resolve(this.getConfigFileName()));
+            }
+            else
+            {
+                MaLiLib.LOGGER.warn("ModConfig#saveIfDirtyAsync(): '{}' is not a valid directory", dir.toAbsolutePath());
+            }
+        }
+
+        return false;
+    }
 }
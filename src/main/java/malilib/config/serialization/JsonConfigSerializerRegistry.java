@@ -1,9 +1,13 @@
 package malilib.config.serialization;
 
+import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import javax.annotation.Nullable;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 import malilib.config.option.BooleanAndDoubleConfig;
 import malilib.config.option.BooleanAndFileConfig;
@@ -24,12 +28,15 @@ import malilib.config.option.Vec2dConfig;
 import malilib.config.option.Vec2iConfig;
 import malilib.config.option.list.BlackWhiteListConfig;
 import malilib.config.option.list.ValueListConfig;
+import malilib.util.data.json.JsonUtils;
 
 @SuppressWarnings("unchecked")
 public class JsonConfigSerializerRegistry
 {
     private final HashMap<Class<? extends ConfigInfo>, JsonConfigSerializer<?>> serializers = new HashMap<>();
     private final HashMap<Class<? extends ConfigInfo>, JsonConfigDeSerializer<?>> deSerializers = new HashMap<>();
+    private final HashMap<Class<? extends ConfigInfo>, JsonConfigStreamSerializer<?>> streamSerializers = new HashMap<>();
+    private final HashMap<Class<? extends ConfigInfo>, JsonConfigStreamDeSerializer<?>> streamDeSerializers = new HashMap<>();
 
     public JsonConfigSerializerRegistry()
     {
@@ -37,7 +44,10 @@ public class JsonConfigSerializerRegistry
     }
 
     /**
-     * Registers a config option serializer and deserializer
+     * Registers a config option serializer and deserializer.
+     * This also removes any streaming serializers registered for the exact same type,
+     * so that for example overriding the serializers of one of the built-in config types
+     * also takes effect when the config file is read or written via the streaming methods.
      */
     public <C extends ConfigInfo> void registerSerializers(Class<C> type,
                                                            JsonConfigSerializer<C> serializer,
@@ -45,58 +55,120 @@ public class JsonConfigSerializerRegistry
     {
         this.serializers.put(type, serializer);
         this.deSerializers.put(type, deSerializer);
+        this.streamSerializers.remove(type);
+        this.streamDeSerializers.remove(type);
+    }
+
+    /**
+     * Registers a streaming config option serializer and deserializer.
+     * These are used when the config file is read or written directly via a JsonReader/JsonWriter,
+     * without building the full JsonElement tree. Config types that don't have streaming
+     * serializers registered will fall back to the regular serializers registered
+     * via {@link #registerSerializers(Class, JsonConfigSerializer, JsonConfigDeSerializer)}.
+     */
+    public <C extends ConfigInfo> void registerStreamSerializers(Class<C> type,
+                                                                 JsonConfigStreamSerializer<C> serializer,
+                                                                 JsonConfigStreamDeSerializer<C> deSerializer)
+    {
+        this.streamSerializers.put(type, serializer);
+        this.streamDeSerializers.put(type, deSerializer);
     }
 
     @SuppressWarnings("unchecked")
     @Nullable
     public <C extends ConfigInfo> JsonConfigSerializer<C> getSerializer(ConfigInfo config)
     {
-        JsonConfigSerializer<C> serializer = (JsonConfigSerializer<C>) this.serializers.get(config.getClass());
+        return (JsonConfigSerializer<C>) getForClass(this.serializers, config);
+    }
 
-        if (serializer == null)
-        {
-            Class<?> clazz = config.getClass().getSuperclass();
+    /**
+     * @return the streaming serializer for the given config, or a wrapper around the
+     *         regular serializer, if there is no streaming serializer registered for the type
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public <C extends ConfigInfo> JsonConfigStreamSerializer<C> getStreamSerializer(ConfigInfo config)
+    {
+        Class<?> streamType = getRegisteredClass(this.streamSerializers, config);
+        Class<?> treeType = getRegisteredClass(this.serializers, config);
 
-            while (clazz != null && ConfigInfo.class.isAssignableFrom(clazz))
-            {
-                serializer = (JsonConfigSerializer<C>) this.serializers.get(clazz);
+        // Prefer the more specific registration, so that a tree serializer registered
+        // for a sub-class is not overridden by a streaming serializer of the parent class.
+        // For the same class, the streaming serializer only exists if it was registered last.
+        if (streamType != null && (treeType == null || treeType.isAssignableFrom(streamType)))
+        {
+            return (JsonConfigStreamSerializer<C>) this.streamSerializers.get(streamType);
+        }
 
-                if (serializer != null)
-                {
-                    return serializer;
-                }
+        JsonConfigSerializer<C> serializer = this.getSerializer(config);
 
-                clazz = clazz.getSuperclass();
-            }
+        if (serializer != null)
+        {
+            return (c, writer) -> JsonUtils.GSON.toJson(serializer.serializeConfigValue(c), writer);
         }
 
-        return serializer;
+        return null;
     }
 
     @SuppressWarnings("unchecked")
     @Nullable
     public <C extends ConfigInfo> JsonConfigDeSerializer<C> getDeSerializer(ConfigInfo config)
     {
-        JsonConfigDeSerializer<C> deSerializer = (JsonConfigDeSerializer<C>) this.deSerializers.get(config.getClass());
+        return (JsonConfigDeSerializer<C>) getForClass(this.deSerializers, config);
+    }
+
+    /**
+     * @return the streaming deserializer for the given config, or a wrapper around the
+     *         regular deserializer, if there is no streaming deserializer registered for the type
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public <C extends ConfigInfo> JsonConfigStreamDeSerializer<C> getStreamDeSerializer(ConfigInfo config)
+    {
+        Class<?> streamType = getRegisteredClass(this.streamDeSerializers, config);
+        Class<?> treeType = getRegisteredClass(this.deSerializers, config);
+
+        if (streamType != null && (treeType == null || treeType.isAssignableFrom(streamType)))
+        {
+            return (JsonConfigStreamDeSerializer<C>) this.streamDeSerializers.get(streamType);
+        }
 
-        if (deSerializer == null)
+        JsonConfigDeSerializer<C> deSerializer = this.getDeSerializer(config);
+
+        if (deSerializer != null)
         {
-            Class<?> clazz = config.getClass().getSuperclass();
+            return (c, reader, name) -> deSerializer.deSerializeConfigValue(c, new JsonParser().parse(reader), name);
+        }
 
-            while (clazz != null && ConfigInfo.class.isAssignableFrom(clazz))
-            {
-                deSerializer = (JsonConfigDeSerializer<C>) this.deSerializers.get(clazz);
+        return null;
+    }
 
-                if (deSerializer != null)
-                {
-                    return deSerializer;
-                }
+    @Nullable
+    protected static <V> V getForClass(HashMap<Class<? extends ConfigInfo>, V> map, ConfigInfo config)
+    {
+        Class<?> clazz = getRegisteredClass(map, config);
+        return clazz != null ? map.get(clazz) : null;
+    }
 
-                clazz = clazz.getSuperclass();
+    /**
+     * @return the class or super class of the given config, which has an entry in the given map
+     */
+    @Nullable
+    protected static Class<?> getRegisteredClass(HashMap<Class<? extends ConfigInfo>, ?> map, ConfigInfo config)
+    {
+        Class<?> clazz = config.getClass();
+
+        while (clazz != null && ConfigInfo.class.isAssignableFrom(clazz))
+        {
+            if (map.containsKey(clazz))
+            {
+                return clazz;
             }
+
+            clazz = clazz.getSuperclass();
         }
 
-        return deSerializer;
+        return null;
     }
 
     protected void registerDefaultSerializers()
@@ -120,6 +192,17 @@ public class JsonConfigSerializerRegistry
         this.registerSerializers(ValueListConfig.class,         JsonConfigSerializers::serializeValueListConfig,        JsonConfigSerializers::loadValueListConfig);
         this.registerSerializers(Vec2dConfig.class,             JsonConfigSerializers::serializeVec2dConfig,            JsonConfigSerializers::loadVec2dConfig);
         this.registerSerializers(Vec2iConfig.class,             JsonConfigSerializers::serializeVec2iConfig,            JsonConfigSerializers::loadVec2iConfig);
+
+        this.registerStreamSerializers(BooleanConfig.class,     JsonConfigStreamSerializers::writeBooleanConfig,    JsonConfigStreamSerializers::readBooleanConfig);
+        this.registerStreamSerializers(ColorConfig.class,       JsonConfigStreamSerializers::writeColorConfig,      JsonConfigStreamSerializers::readColorConfig);
+        this.registerStreamSerializers(DirectoryConfig.class,   JsonConfigStreamSerializers::writeFileConfig,       JsonConfigStreamSerializers::readFileConfig);
+        this.registerStreamSerializers(DoubleConfig.class,      JsonConfigStreamSerializers::writeDoubleConfig,     JsonConfigStreamSerializers::readDoubleConfig);
+        this.registerStreamSerializers(FileConfig.class,        JsonConfigStreamSerializers::writeFileConfig,       JsonConfigStreamSerializers::readFileConfig);
+        this.registerStreamSerializers(IntegerConfig.class,     JsonConfigStreamSerializers::writeIntegerConfig,    JsonConfigStreamSerializers::readIntegerConfig);
+        this.registerStreamSerializers(StringConfig.class,      JsonConfigStreamSerializers::writeStringConfig,     JsonConfigStreamSerializers::readStringConfig);
+
+        this.registerStreamSerializers(BlackWhiteListConfig.class,  JsonConfigStreamSerializers::writeBlackWhiteListConfig, JsonConfigStreamSerializers::readBlackWhiteListConfig);
+        this.registerStreamSerializers(ValueListConfig.class,       JsonConfigStreamSerializers::writeValueListConfig,      JsonConfigStreamSerializers::readValueListConfig);
     }
 
     public interface JsonConfigSerializer<C extends ConfigInfo>
@@ -131,4 +214,21 @@ public class JsonConfigSerializerRegistry
     {
         void deSerializeConfigValue(C config, JsonElement data, String configName);
     }
+
+    public interface JsonConfigStreamSerializer<C extends ConfigInfo>
+    {
+        /**
+         * Writes the value of the config as exactly one JSON value
+         */
+        void writeConfigValue(C config, JsonWriter writer) throws IOException;
+    }
+
+    public interface JsonConfigStreamDeSerializer<C extends ConfigInfo>
+    {
+        /**
+         * Reads the config value from the next JSON value in the reader.
+         * This must consume exactly one JSON value, even if the value is not valid for the config.
+         */
+        void readConfigValue(C config, JsonReader reader, String configName) throws IOException;
+    }
 }
@@ -0,0 +1,304 @@
+package malilib.config.serialization;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import malilib.MaLiLib;
+import malilib.config.option.BooleanConfig;
+import malilib.config.option.ColorConfig;
+import malilib.config.option.DoubleConfig;
+import malilib.config.option.FileConfig;
+import malilib.config.option.IntegerConfig;
+import malilib.config.option.StringConfig;
+import malilib.config.option.list.BlackWhiteListConfig;
+import malilib.config.option.list.ValueListConfig;
+import malilib.config.value.BaseOptionListConfigValue;
+import malilib.config.value.BlackWhiteList;
+import malilib.util.restriction.UsageRestriction;
+import malilib.util.restriction.UsageRestriction.ListType;
+
+/**
+ * Streaming variants of the serializers in {@link JsonConfigSerializers}, which read and
+ * write the config values directly from/to the JSON token stream, without building a JsonElement tree.
+ * The produced JSON and the value coercion when reading are identical to the tree based serializers.
+ */
+public class JsonConfigStreamSerializers
+{
+    public static void writeBooleanConfig(BooleanConfig config, JsonWriter writer) throws IOException
+    {
+        writer.value(config.getValueForSerialization());
+    }
+
+    public static void writeIntegerConfig(IntegerConfig config, JsonWriter writer) throws IOException
+    {
+        writer.value(config.getValueForSerialization());
+    }
+
+    public static void writeDoubleConfig(DoubleConfig config, JsonWriter writer) throws IOException
+    {
+        writer.value(config.getValueForSerialization());
+    }
+
+    public static void writeStringConfig(StringConfig config, JsonWriter writer) throws IOException
+    {
+        writer.value(config.getValueForSerialization());
+    }
+
+    public static void writeColorConfig(ColorConfig config, JsonWriter writer) throws IOException
+    {
+        writer.value(config.getValueForSerialization().toString());
+    }
+
+    public static void writeFileConfig(FileConfig config, JsonWriter writer) throws IOException
+    {
+        writer.value(config.getValueForSerialization().toAbsolutePath().toString());
+    }
+
+    public static <T> void writeValueListConfig(ValueListConfig<T> config, JsonWriter writer) throws IOException
+    {
+        writer.beginArray();
+
+        for (T value : config.getValueForSerialization())
+        {
+            writer.value(config.getToStringConverter().apply(value));
+        }
+
+        writer.endArray();
+    }
+
+    public static <T> void writeBlackWhiteListConfig(BlackWhiteListConfig<T> config, JsonWriter writer) throws IOException
+    {
+        BlackWhiteList<T> value = config.getValueForSerialization();
+
+        writer.beginObject();
+        writer.name("type").value(value.getListType().getName());
+        writer.name("blacklist");
+        writeStringList(value.getBlackListAsString(), writer);
+        writer.name("whitelist");
+        writeStringList(value.getWhiteListAsString(), writer);
+        writer.endObject();
+    }
+
+    public static void readBooleanConfig(BooleanConfig config, JsonReader reader, String configName) throws IOException
+    {
+        readPrimitive(reader, configName, JsonPrimitive::getAsBoolean, config::loadValue);
+    }
+
+    public static void readIntegerConfig(IntegerConfig config, JsonReader reader, String configName) throws IOException
+    {
+        readPrimitive(reader, configName, JsonPrimitive::getAsInt, config::loadValue);
+    }
+
+    public static void readDoubleConfig(DoubleConfig config, JsonReader reader, String configName) throws IOException
+    {
+        readPrimitive(reader, configName, JsonPrimitive::getAsDouble, config::loadValue);
+    }
+
+    public static void readStringConfig(StringConfig config, JsonReader reader, String configName) throws IOException
+    {
+        readPrimitive(reader, configName, JsonPrimitive::getAsString, config::loadValue);
+    }
+
+    public static void readColorConfig(ColorConfig config, JsonReader reader, String configName) throws IOException
+    {
+        readPrimitive(reader, configName, JsonPrimitive::getAsString, config::loadColorValueFromString);
+    }
+
+    public static void readFileConfig(FileConfig config, JsonReader reader, String configName) throws IOException
+    {
+        readPrimitive(reader, configName, p -> Paths.get(p.getAsString()), config::loadValue);
+    }
+
+    public static <T> void readValueListConfig(ValueListConfig<T> config, JsonReader reader, String configName) throws IOException
+    {
+        List<String> strings = readStringList(reader, configName);
+
+        if (strings != null)
+        {
+            try
+            {
+                config.loadValue(ValueListConfig.getStringListAsValues(strings, config.getFromStringConverter()));
+                return;
+            }
+            catch (Exception e)
+            {
+                MaLiLib.LOGGER.warn("Failed to read a list of values for '{}'", configName, e);
+            }
+        }
+
+        config.loadValue(config.getDefaultValue());
+    }
+
+    public static <T> void readBlackWhiteListConfig(BlackWhiteListConfig<T> config, JsonReader reader, String configName) throws IOException
+    {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT)
+        {
+            MaLiLib.LOGGER.warn("Failed to read BlackWhiteList value for '{}' - not a JSON object", configName);
+            reader.skipValue();
+            config.loadValue(config.getDefaultValue());
+            return;
+        }
+
+        String typeStr = null;
+        List<String> blackListStr = null;
+        List<String> whiteListStr = null;
+
+        reader.beginObject();
+
+        while (reader.hasNext())
+        {
+            String name = reader.nextName();
+
+            if (name.equals("type") && reader.peek() == JsonToken.STRING)
+            {
+                typeStr = reader.nextString();
+            }
+            else if (name.equals("blacklist"))
+            {
+                blackListStr = readStringList(reader, configName);
+            }
+            else if (name.equals("whitelist"))
+            {
+                whiteListStr = readStringList(reader, configName);
+            }
+            else
+            {
+                reader.skipValue();
+            }
+        }
+
+        reader.endObject();
+
+        if (typeStr != null && blackListStr != null && whiteListStr != null)
+        {
+            try
+            {
+                ListType type = BaseOptionListConfigValue.findValueByName(typeStr, UsageRestriction.ListType.VALUES);
+                BlackWhiteList<T> list = config.getValue();
+                ValueListConfig<T> blackList = list.getBlackList().copy();
+                ValueListConfig<T> whiteList = list.getWhiteList().copy();
+
+                blackList.setValue(ValueListConfig.getStringListAsValues(blackListStr, list.getFromStringConverter()));
+                whiteList.setValue(ValueListConfig.getStringListAsValues(whiteListStr, list.getFromStringConverter()));
+
+                config.loadValue(new BlackWhiteList<>(type, blackList, whiteList, list.getToStringConverter(), list.getFromStringConverter()));
+                return;
+            }
+            catch (Exception e)
+            {
+                MaLiLib.LOGGER.warn("Failed to read BlackWhiteList value for '{}'", configName, e);
+            }
+        }
+        else
+        {
+            MaLiLib.LOGGER.warn("Failed to read BlackWhiteList value for '{}' - missing data", configName);
+        }
+
+        config.loadValue(config.getDefaultValue());
+    }
+
+    public static void writeStringList(List<String> list, JsonWriter writer) throws IOException
+    {
+        writer.beginArray();
+
+        for (String str : list)
+        {
+            writer.value(str);
+        }
+
+        writer.endArray();
+    }
+
+    /**
+     * Reads an array of strings. Any non-string primitive values are read as strings.
+     * @return the read strings, or null if the next value was not an array
+     */
+    public static List<String> readStringList(JsonReader reader, String configName) throws IOException
+    {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY)
+        {
+            MaLiLib.LOGGER.warn("Failed to read a list of values for '{}' - not a JSON array", configName);
+            reader.skipValue();
+            return null;
+        }
+
+        List<String> list = new ArrayList<>();
+
+        reader.beginArray();
+
+        while (reader.hasNext())
+        {
+            JsonToken token = reader.peek();
+
+            if (token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN)
+            {
+                list.add(nextString(reader));
+            }
+            else
+            {
+                reader.skipValue();
+            }
+        }
+
+        reader.endArray();
+
+        return list;
+    }
+
+    /**
+     * Reads the next primitive value as a string, including boolean values
+     */
+    public static String nextString(JsonReader reader) throws IOException
+    {
+        return reader.peek() == JsonToken.BOOLEAN ? String.valueOf(reader.nextBoolean()) : reader.nextString();
+    }
+
+    /**
+     * Reads the next primitive value, and passes it to the given converter as a JsonPrimitive.
+     * This way the value coercion (for example a number read as a boolean, or a floating point
+     * number read as an integer) is identical to the tree based deserializers.
+     */
+    public static <T> void readPrimitive(JsonReader reader, String configName,
+                                         Function<JsonPrimitive, T> converter, Consumer<T> consumer) throws IOException
+    {
+        JsonToken token = reader.peek();
+
+        if (token != JsonToken.STRING && token != JsonToken.NUMBER && token != JsonToken.BOOLEAN)
+        {
+            MaLiLib.LOGGER.warn("Failed to set config value for '{}' - not a JSON primitive", configName);
+            reader.skipValue();
+            return;
+        }
+
+        JsonPrimitive element = new JsonParser().parse(reader).getAsJsonPrimitive();
+        T value;
+
+        try
+        {
+            value = converter.apply(element);
+        }
+        catch (Exception e)
+        {
+            MaLiLib.LOGGER.warn("Failed to set config value for '{}' from the JSON element '{}'", configName, element, e);
+            return;
+        }
+
+        try
+        {
+            consumer.accept(value);
+        }
+        catch (Exception e)
+        {
+            MaLiLib.LOGGER.warn("Failed to set config value for '{}' from the value '{}'", configName, value, e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package malilib.config.util;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import malilib.MaLiLibReference;
+import malilib.util.AsyncFileWriter;
+import malilib.util.data.json.JsonUtils;
+
+/**
+ * A disk cache for the config override documents fetched from URLs, keyed by the URL.
+ * The ETag and Last-Modified headers of the responses are stored with the documents,
+ * so that the cached documents can be re-validated with conditional requests.
+ * <br><br>
+ * The cache is thread safe, as the documents are fetched on a background thread.
+ */
+public class ConfigOverrideDocumentCache
+{
+    protected final HashMap<String, CachedDocument> documents = new HashMap<>();
+    protected boolean loaded;
+
+    @Nullable
+    public synchronized CachedDocument get(String url)
+    {
+        this.loadFromFileIfNeeded();
+        return this.documents.get(url);
+    }
+
+    /**
+     * Adds or replaces the cached document of the given URL, and writes the cache to disk
+     */
+    public synchronized void put(String url, CachedDocument document)
+    {
+        this.loadFromFileIfNeeded();
+        this.documents.put(url, document);
+
+        final Path file = this.getCacheFile();
+        final JsonObject obj = this.toJson();
+        AsyncFileWriter.INSTANCE.submit(file, () -> JsonUtils.writeJsonToFile(obj, file));
+    }
+
+    protected Path getCacheFile()
+    {
+        return ConfigUtils.getConfigDirectory().resolve(MaLiLibReference.MOD_ID).resolve("config_override_cache.json");
+    }
+
+    protected void loadFromFileIfNeeded()
+    {
+        if (this.loaded == false)
+        {
+            this.loaded = true;
+            JsonUtils.loadFromFile(this.getCacheFile(), this::fromJson);
+        }
+    }
+
+    protected JsonObject toJson()
+    {
+        JsonObject obj = new JsonObject();
+
+        for (Map.Entry<String, CachedDocument> entry : this.documents.entrySet())
+        {
+            obj.add(entry.getKey(), entry.getValue().toJson());
+        }
+
+        return obj;
+    }
+
+    protected void fromJson(JsonElement el)
+    {
+        if (el.isJsonObject() == false)
+        {
+            return;
+        }
+
+        for (Map.Entry<String, JsonElement> entry : el.getAsJsonObject().entrySet())
+        {
+            CachedDocument document = CachedDocument.fromJson(entry.getValue());
+
+            if (document != null)
+            {
+                this.documents.put(entry.getKey(), document);
+            }
+        }
+    }
+
+    public static class CachedDocument
+    {
+        public final String content;
+        @Nullable public final String eTag;
+        @Nullable public final String lastModified;
+
+        public CachedDocument(String content, @Nullable String eTag, @Nullable String lastModified)
+        {
+            this.content = content;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        public JsonObject toJson()
+        {
+            JsonObject obj = new JsonObject();
+
+            obj.addProperty("content", this.content);
+            if (this.eTag != null) { obj.addProperty("etag", this.eTag); }
+            if (this.lastModified != null) { obj.addProperty("last_modified", this.lastModified); }
+
+            return obj;
+        }
+
+        @Nullable
+        public static CachedDocument fromJson(JsonElement el)
+        {
+            if (el.isJsonObject() == false)
+            {
+                return null;
+            }
+
+            JsonObject obj = el.getAsJsonObject();
+
+            if (JsonUtils.hasString(obj, "content") == false)
+            {
+                return null;
+            }
+
+            return new CachedDocument(JsonUtils.getString(obj, "content"),
+                                      JsonUtils.getStringOrDefault(obj, "etag", null),
+                                      JsonUtils.getStringOrDefault(obj, "last_modified", null));
+        }
+    }
+}
@@ -7,11 +7,14 @@ import java.net.Proxy;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
@@ -37,6 +40,7 @@ import malilib.config.option.BooleanAndIntConfig;
 import malilib.config.option.BooleanConfig;
 import malilib.config.option.ConfigInfo;
 import malilib.config.option.OverridableConfig;
+import malilib.config.util.ConfigOverrideDocumentCache.CachedDocument;
 import malilib.gui.config.ConfigSearchInfo;
 import malilib.input.ActionResult;
 import malilib.overlay.message.MessageDispatcher;
@@ -48,6 +52,10 @@ import malilib.util.game.wrap.GameUtils;
 
 public class ConfigOverrideUtils
 {
+    protected static final ConfigOverrideDocumentCache DOCUMENT_CACHE = new ConfigOverrideDocumentCache();
+    /** Incremented whenever the overrides are applied or reset, used to discard the results of outdated fetches */
+    protected static final AtomicInteger OVERRIDE_VERSION = new AtomicInteger();
+
     public static ActionResult resetConfigOverrides()
     {
         return resetConfigOverrides(ActionContext.COMMON);
@@ -55,12 +63,20 @@ public class ConfigOverrideUtils
 
     public static ActionResult resetConfigOverrides(ActionContext ctx)
     {
-        getAllOverridableConfigs().values().forEach(p -> p.getRight().disableOverride());
+        OVERRIDE_VERSION.incrementAndGet();
+        disableAllOverrides();
         return ActionResult.SUCCESS;
     }
 
+    protected static void disableAllOverrides()
+    {
+        getAllOverridableConfigs().values().forEach(p -> p.getRight().disableOverride());
+    }
+
     public static void applyConfigOverrides()
     {
+        OVERRIDE_VERSION.incrementAndGet();
+
         try
         {
             if (GameUtils.isSinglePlayer())
@@ -105,24 +121,51 @@ public class ConfigOverrideUtils
 
         if (el != null && el.isJsonObject())
         {
-            return applyConfigOverrides(el.getAsJsonObject());
+            return applyOverridesFromDocument(el.getAsJsonObject());
         }
 
         return false;
     }
 
-    protected static boolean tryApplyOverridesFromURL(String str)
+    /**
+     * @return the override document URL from the given MOTD line, or null if the line is not a URL
+     */
+    @Nullable
+    protected static String getOverrideURL(String str)
     {
         if (str.startsWith("http://") || str.startsWith("https://"))
         {
             // Strip away the ending '§r'
-            str = str.substring(0, str.length() - 2);
+            return str.substring(0, str.length() - 2);
+        }
 
-            String pageContent = tryFetchPage(str, 2000);
+        return null;
+    }
 
-            if (pageContent != null)
+    /**
+     * Tries to apply the overrides from the given MOTD lines in order, until one of them applies.
+     * The documents of the URL lines are fetched from the given document provider.
+     */
+    protected static boolean tryApplyOverridesFromLines(List<String> lines,
+                                                        Function<String, CachedDocument> documentProvider)
+    {
+        for (String str : lines)
+        {
+            if (tryApplyOverridesFromString(str))
+            {
+                return true;
+            }
+
+            String url = getOverrideURL(str);
+
+            if (url != null)
             {
-                return tryApplyOverridesFromString(pageContent.trim());
+                CachedDocument document = documentProvider.apply(url);
+
+                if (document != null && tryApplyOverridesFromString(document.content.trim()))
+                {
+                    return true;
+                }
             }
         }
 
@@ -159,14 +202,70 @@ public class ConfigOverrideUtils
                     return;
                 }
 
-                if (tryApplyOverridesFromURL(str))
+                if (getOverrideURL(str) != null)
                 {
+                    // The rest of the lines are handled once the URLs have been fetched
+                    tryApplyOverridesFromURLs(Arrays.asList(lines).subList(index, lines.length));
                     return;
                 }
             }
         }
     }
 
+    /**
+     * Applies the overrides from the given MOTD lines using the cached documents right away,
+     * and then re-validates or fetches the documents of the URL lines on a background thread.
+     * If any of the documents have changed, then the overrides are applied again
+     * on the client thread using the new documents.
+     */
+    protected static void tryApplyOverridesFromURLs(final List<String> lines)
+    {
+        final int version = OVERRIDE_VERSION.get();
+
+        tryApplyOverridesFromLines(lines, DOCUMENT_CACHE::get);
+
+        Registry.DATA_TASK_SCHEDULER.executeAsync(() -> {
+            HashMap<String, CachedDocument> documents = new HashMap<>();
+            boolean changed = false;
+
+            for (String str : lines)
+            {
+                String url = getOverrideURL(str);
+
+                if (url != null && documents.containsKey(url) == false)
+                {
+                    CachedDocument cachedDocument = DOCUMENT_CACHE.get(url);
+                    CachedDocument document = fetchDocument(url, 5000, cachedDocument);
+
+                    if (document != cachedDocument)
+                    {
+                        DOCUMENT_CACHE.put(url, document);
+                        changed = true;
+                    }
+
+                    documents.put(url, document);
+                }
+            }
+
+            if (changed)
+            {
+                GameUtils.scheduleToClientThread(() -> applyFetchedOverrides(version, lines, documents));
+            }
+        });
+    }
+
+    protected static void applyFetchedOverrides(int version, List<String> lines, Map<String, CachedDocument> documents)
+    {
+        // The overrides have been reset or re-applied (for example for another server) since the fetch started
+        if (version != OVERRIDE_VERSION.get())
+        {
+            return;
+        }
+
+        disableAllOverrides();
+        tryApplyOverridesFromLines(lines, documents::get);
+    }
+
     protected static <C extends ConfigInfo & OverridableConfig<?>>
     ArrayListMultimap<String, Pair<ConfigOptionCategory, C>> getAllOverridableConfigs()
     {
@@ -199,8 +298,19 @@ public class ConfigOverrideUtils
         return configs;
     }
 
-    public static <C extends ConfigInfo & OverridableConfig<?>>
-    boolean applyConfigOverrides(JsonObject root)
+    /**
+     * Applies the overrides from the given override document, for example from a server packet.
+     * This also discards the pending re-apply of the overrides from any URL documents
+     * that are still being fetched, so that it won't replace these overrides.
+     */
+    public static boolean applyConfigOverrides(JsonObject root)
+    {
+        OVERRIDE_VERSION.incrementAndGet();
+        return applyOverridesFromDocument(root);
+    }
+
+    protected static <C extends ConfigInfo & OverridableConfig<?>>
+    boolean applyOverridesFromDocument(JsonObject root)
     {
         if (JsonUtils.getStringOrDefault(root, "type", "?").equals("malilib_config_overrides") == false ||
             JsonUtils.hasArray(root, "config_overrides") == false)
@@ -534,6 +644,71 @@ public class ConfigOverrideUtils
         return null;
     }
 
+    /**
+     * Fetches the document from the given URL. If a cached document is given,
+     * then the request is made conditional using its ETag and Last-Modified values.
+     * @return the new document, or the cached document if it was not modified
+     *         or if the request failed, or null if the request failed and there was no cached document
+     */
+    @Nullable
+    protected static CachedDocument fetchDocument(String url, int timeout, @Nullable CachedDocument cachedDocument)
+    {
+        HttpURLConnection connection = null;
+
+        try
+        {
+            connection = createUrlConnection(new URL(url), timeout);
+
+            if (cachedDocument != null)
+            {
+                if (cachedDocument.eTag != null)
+                {
+                    connection.setRequestProperty("If-None-Match", cachedDocument.eTag);
+                }
+
+                if (cachedDocument.lastModified != null)
+                {
+                    connection.setRequestProperty("If-Modified-Since", cachedDocument.lastModified);
+                }
+            }
+
+            int responseCode = connection.getResponseCode();
+
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cachedDocument != null)
+            {
+                MaLiLib.debugLog("The cached document for '{}' is up to date", url);
+                return cachedDocument;
+            }
+
+            if (responseCode >= 200 && responseCode < 300)
+            {
+                try (InputStream inputStream = connection.getInputStream())
+                {
+                    String content = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+                    MaLiLib.debugLog("Successful read, server response was: " + responseCode);
+                    MaLiLib.debugLog("Result: " + content);
+                    return new CachedDocument(content, connection.getHeaderField("ETag"),
+                                              connection.getHeaderField("Last-Modified"));
+                }
+            }
+
+            MaLiLib.debugLog("Failed to fetch '{}', server response was: {}", url, responseCode);
+        }
+        catch (Exception e)
+        {
+            MaLiLib.debugLog("Page fetch failed", e);
+        }
+        finally
+        {
+            if (connection != null)
+            {
+                connection.disconnect();
+            }
+        }
+
+        return cachedDocument;
+    }
+
     @Nullable
     public static String tryFetchPage(String pageURL, int timeout)
     {
@@ -210,7 +210,7 @@ public class ConfigUtils
      */
     public static void saveAllConfigsToFileIfDirty()
     {
-        ((ConfigManagerImpl) Registry.CONFIG_MANAGER).saveIfDirty();
+        ((ConfigManagerImpl) Registry.CONFIG_MANAGER).saveIfDirtyAsync();
         Registry.INFO_WIDGET_MANAGER.saveToFileIfDirty();
         Registry.MESSAGE_REDIRECT_MANAGER.saveToFileIfDirty();
         OverlayRendererContainer.INSTANCE.saveToFile(false);
@@ -1,20 +1,39 @@
 package malilib.config.util;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 import malilib.MaLiLib;
+import malilib.MaLiLibConfigs;
 import malilib.config.category.ConfigOptionCategory;
 import malilib.config.option.ConfigInfo;
 import malilib.config.option.ConfigOption;
 import malilib.config.serialization.JsonConfigSerializerRegistry.JsonConfigDeSerializer;
 import malilib.config.serialization.JsonConfigSerializerRegistry.JsonConfigSerializer;
+import malilib.config.serialization.JsonConfigSerializerRegistry.JsonConfigStreamDeSerializer;
+import malilib.config.serialization.JsonConfigSerializerRegistry.JsonConfigStreamSerializer;
 import malilib.overlay.message.MessageDispatcher;
 import malilib.registry.Registry;
+import malilib.util.FileUtils;
 import malilib.util.data.json.JsonUtils;
 
 public class JsonConfigUtils
@@ -41,6 +60,169 @@ public class JsonConfigUtils
         }
     }
 
+    /**
+     * Reads the configs directly from the file via a JsonReader, without building
+     * the JsonElement tree of the entire file first. Unknown keys are skipped.
+     * Any configs that were not found in the file are reset to their default values.
+     * @param configVersionConsumer the consumer for the config_version value read from the file.
+     *                              This is called with 0 if the file doesn't have a config version,
+     *                              and it's not called at all if the file can't be read.
+     */
+    public static void loadFromFileStreaming(Path configFile, List<ConfigOptionCategory> categories,
+                                             IntConsumer configVersionConsumer)
+    {
+        Set<ConfigOption<?>> loadedConfigs = new HashSet<>();
+
+        if (Files.isRegularFile(configFile) && Files.isReadable(configFile))
+        {
+            try (BufferedReader fileReader = Files.newBufferedReader(configFile, StandardCharsets.UTF_8))
+            {
+                JsonReader reader = new JsonReader(fileReader);
+                reader.setLenient(true);
+                readConfigs(reader, categories, configVersionConsumer, loadedConfigs);
+            }
+            catch (Exception e)
+            {
+                MaLiLib.LOGGER.error("Failed to parse the JSON file '{}'", configFile.toAbsolutePath(), e);
+            }
+        }
+
+        // Reset the configs to default if they weren't successfully read from the config file.
+        // See the comment in tryLoadConfig() for the onValueLoaded() call.
+        for (ConfigOptionCategory category : categories)
+        {
+            for (ConfigOption<?> config : category.getConfigOptions())
+            {
+                if (loadedConfigs.contains(config) == false)
+                {
+                    resetConfigAfterFailedLoad(config);
+                }
+            }
+        }
+    }
+
+    protected static void readConfigs(JsonReader reader,
+                                      List<ConfigOptionCategory> categories,
+                                      IntConsumer configVersionConsumer,
+                                      Set<ConfigOption<?>> loadedConfigs) throws IOException
+    {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT)
+        {
+            reader.skipValue();
+            return;
+        }
+
+        Map<String, List<ConfigOptionCategory>> categoriesByName = new HashMap<>();
+
+        for (ConfigOptionCategory category : categories)
+        {
+            categoriesByName.computeIfAbsent(category.getName(), n -> new ArrayList<>(1)).add(category);
+        }
+
+        int configVersion = 0;
+
+        reader.beginObject();
+
+        while (reader.hasNext())
+        {
+            String key = reader.nextName();
+            List<ConfigOptionCategory> list = categoriesByName.get(key);
+
+            if (key.equals("config_version") && reader.peek() == JsonToken.NUMBER)
+            {
+                configVersion = reader.nextInt();
+            }
+            else if (list != null && reader.peek() == JsonToken.BEGIN_OBJECT)
+            {
+                readCategory(reader, key, list, loadedConfigs);
+            }
+            else
+            {
+                reader.skipValue();
+            }
+        }
+
+        reader.endObject();
+        configVersionConsumer.accept(configVersion);
+    }
+
+    protected static void readCategory(JsonReader reader,
+                                       String categoryName,
+                                       List<ConfigOptionCategory> categories,
+                                       Set<ConfigOption<?>> loadedConfigs) throws IOException
+    {
+        Map<String, ConfigOption<?>> configsByName = new HashMap<>();
+        Map<String, ConfigOption<?>> configsByOldName = new HashMap<>();
+
+        for (ConfigOptionCategory category : categories)
+        {
+            for (ConfigOption<?> config : category.getConfigOptions())
+            {
+                configsByName.putIfAbsent(config.getName(), config);
+
+                for (String oldName : config.getOldNames())
+                {
+                    configsByOldName.putIfAbsent(oldName, config);
+                }
+            }
+        }
+
+        reader.beginObject();
+
+        while (reader.hasNext())
+        {
+            String key = reader.nextName();
+            ConfigOption<?> config = configsByName.get(key);
+
+            // The current name takes precedence over the old names, like in the tree based loading
+            if (config == null)
+            {
+                config = configsByOldName.get(key);
+
+                if (config != null && loadedConfigs.contains(config))
+                {
+                    config = null;
+                }
+            }
+
+            if (config != null && tryReadConfig(reader, config, categoryName))
+            {
+                loadedConfigs.add(config);
+            }
+            else
+            {
+                reader.skipValue();
+            }
+        }
+
+        reader.endObject();
+    }
+
+    /**
+     * @return true if a deserializer was found and the value was consumed from the reader
+     */
+    protected static <C extends ConfigOption<?>> boolean tryReadConfig(JsonReader reader, C config,
+                                                                       String categoryName) throws IOException
+    {
+        JsonConfigStreamDeSerializer<C> deSerializer = Registry.JSON_CONFIG_SERIALIZER.getStreamDeSerializer(config);
+
+        if (deSerializer != null)
+        {
+            deSerializer.readConfigValue(config, reader, config.getName());
+            return true;
+        }
+
+        MaLiLib.LOGGER.warn("Failed to get a config de-serializer for '{}'.'{}'", categoryName, config.getName());
+
+        return false;
+    }
+
+    protected static <T> void resetConfigAfterFailedLoad(ConfigOption<T> config)
+    {
+        config.resetToDefault();
+        config.onValueLoaded(config.getValue());
+    }
+
     public static void readConfigs(JsonObject root, ConfigOptionCategory category)
     {
         String categoryName = category.getName();
@@ -91,7 +273,7 @@ public class JsonConfigUtils
                 {
                     if (obj.has(oldName))
                     {
-                        deSerializer.deSerializeConfigValue(config, obj.get(name), name);
+                        deSerializer.deSerializeConfigValue(config, obj.get(oldName), name);
                         return;
                     }
                 }
@@ -114,6 +296,130 @@ public class JsonConfigUtils
     public static boolean saveToFile(Path configFile, List<ConfigOptionCategory> categories, int configVersion)
     {
         JsonObject root = new JsonObject();
+        boolean success = writeConfigs(root, categories, configVersion);
+
+        return JsonUtils.writeJsonToFile(root, configFile) && success;
+    }
+
+    /**
+     * Writes the configs directly to the file via a JsonWriter, without building
+     * the JsonElement tree first. The output is the same as with {@link #saveToFile(Path, List, int)}.
+     */
+    public static boolean saveToFileStreaming(Path configFile, List<ConfigOptionCategory> categories, int configVersion)
+    {
+        boolean[] success = new boolean[] { true };
+        boolean written = FileUtils.writeDataToFile(configFile, w -> {
+            try
+            {
+                JsonWriter writer = JsonUtils.GSON.newJsonWriter(w);
+                success[0] = writeConfigs(writer, categories, configVersion);
+                writer.flush();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }, MaLiLibConfigs.Generic.CONFIG_WRITE_METHOD.getValue());
+
+        if (success[0] == false)
+        {
+            MessageDispatcher.error().console().translate("malilib.message.error.failed_to_save_all_configs");
+        }
+
+        return written && success[0];
+    }
+
+    /**
+     * Writes all the configs in the given categories as one JSON object into the given writer,
+     * and marks the configs as saved.
+     * @return true if all the configs were successfully serialized
+     */
+    public static boolean writeConfigs(JsonWriter writer, List<ConfigOptionCategory> categories, int configVersion) throws IOException
+    {
+        // Categories with the same name get merged, like in the tree based serialization
+        Map<String, List<ConfigOptionCategory>> categoriesByName = new LinkedHashMap<>();
+        boolean success = true;
+
+        for (ConfigOptionCategory category : categories)
+        {
+            if (category.shouldSaveToFile())
+            {
+                categoriesByName.computeIfAbsent(category.getName(), n -> new ArrayList<>(1)).add(category);
+            }
+        }
+
+        writer.beginObject();
+        writer.name("config_version").value(configVersion);
+
+        for (Map.Entry<String, List<ConfigOptionCategory>> entry : categoriesByName.entrySet())
+        {
+            String categoryName = entry.getKey();
+
+            // Configs with the same name would produce duplicate keys. Like in the tree based
+            // serialization, the last config with a given name wins, in the position of the first one.
+            Map<String, ConfigOption<?>> configsByName = new LinkedHashMap<>();
+
+            for (ConfigOptionCategory category : entry.getValue())
+            {
+                for (ConfigOption<?> config : category.getConfigOptions())
+                {
+                    if (configsByName.put(config.getName(), config) != null)
+                    {
+                        MaLiLib.LOGGER.warn("Duplicate config name '{}'.'{}' - only the last one will be saved",
+                                            categoryName, config.getName());
+                    }
+                }
+            }
+
+            writer.name(categoryName);
+            writer.beginObject();
+
+            for (ConfigOption<?> config : configsByName.values())
+            {
+                success &= tryWriteConfig(writer, config, categoryName);
+            }
+
+            writer.endObject();
+
+            for (ConfigOptionCategory category : entry.getValue())
+            {
+                for (ConfigOption<?> config : category.getConfigOptions())
+                {
+                    config.cacheSavedValue();
+                }
+            }
+        }
+
+        writer.endObject();
+
+        return success;
+    }
+
+    public static <C extends ConfigInfo> boolean tryWriteConfig(JsonWriter writer, C config, String categoryName) throws IOException
+    {
+        JsonConfigStreamSerializer<C> serializer = Registry.JSON_CONFIG_SERIALIZER.getStreamSerializer(config);
+
+        if (serializer != null)
+        {
+            writer.name(config.getName());
+            serializer.writeConfigValue(config, writer);
+            return true;
+        }
+        else
+        {
+            MaLiLib.LOGGER.warn("Failed to get a config serializer for '{}'.'{}'", categoryName, config.getName());
+        }
+
+        return false;
+    }
+
+    /**
+     * Serializes all the configs in the given categories into the given root object,
+     * and marks the configs as saved.
+     * @return true if all the configs were successfully serialized
+     */
+    public static boolean writeConfigs(JsonObject root, List<ConfigOptionCategory> categories, int configVersion)
+    {
         root.add("config_version", new JsonPrimitive(configVersion));
         boolean success = true;
 
@@ -130,7 +436,7 @@ public class JsonConfigUtils
             MessageDispatcher.error().console().translate("malilib.message.error.failed_to_save_all_configs");
         }
 
-        return JsonUtils.writeJsonToFile(root, configFile) && success;
+        return success;
     }
 
     public static boolean writeConfigs(JsonObject root, ConfigOptionCategory category)
@@ -10,6 +10,7 @@ import net.minecraft.client.multiplayer.WorldClient;
 import malilib.config.util.ConfigOverrideUtils;
 import malilib.config.util.ConfigUtils;
 import malilib.event.ClientWorldChangeHandler;
+import malilib.network.PacketSplitter;
 import malilib.render.overlay.OverlayRendererContainer;
 
 public class ClientWorldChangeEventDispatcherImpl implements ClientWorldChangeEventDispatcher
@@ -88,6 +89,7 @@ public class ClientWorldChangeEventDispatcherImpl implements ClientWorldChangeEv
     {
         ConfigOverrideUtils.resetConfigOverrides();
         ConfigUtils.saveAllConfigsToFileIfDirty();
+        PacketSplitter.clearReadingSessions();
     }
 
     protected void onEnterWorld()
@@ -71,6 +71,7 @@ public class StringListSelectionScreen extends BaseListScreen<DataListWidget<Str
         listWidget.setListEntryWidgetFixedHeight(16);
         listWidget.setShouldSortList(true);
         listWidget.setListSortComparator(String::compareTo);
+        listWidget.setAsyncRefresh(true);
         listWidget.setDataListEntryWidgetFactory(StringListEntryWidget::new);
         listWidget.getEntrySelectionHandler().setAllowSelection(true);
         listWidget.getEntrySelectionHandler().setAllowMultiSelection(true);
@@ -44,7 +44,7 @@ public class BaseConfigScreen extends BaseListScreen<ConfigOptionListWidget> imp
 
     protected void saveConfigsOnScreenClose()
     {
-        if (((ConfigManagerImpl) Registry.CONFIG_MANAGER).saveIfDirty())
+        if (((ConfigManagerImpl) Registry.CONFIG_MANAGER).saveIfDirtyAsync())
         {
             this.onSettingsChanged();
         }
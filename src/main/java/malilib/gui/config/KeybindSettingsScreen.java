@@ -13,6 +13,7 @@ import malilib.gui.widget.button.BooleanConfigButton;
 import malilib.gui.widget.button.OptionListConfigButton;
 import malilib.input.KeyBind;
 import malilib.input.KeyBindSettingsConfigs;
+import malilib.registry.Registry;
 import malilib.util.StringUtils;
 
 public class KeybindSettingsScreen extends BaseScreen
@@ -103,5 +104,7 @@ public class KeybindSettingsScreen extends BaseScreen
     protected void saveSettings()
     {
         this.keybind.setSettings(this.configs.getCurrentSettings());
+        // The priority may have changed
+        Registry.HOTKEY_MANAGER.updateKeyBind(this.keybind);
     }
 }
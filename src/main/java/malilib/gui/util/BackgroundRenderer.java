@@ -1,5 +1,7 @@
 package malilib.gui.util;
 
+import net.minecraft.client.renderer.BufferBuilder;
+
 import malilib.render.ShapeRenderUtils;
 
 public class BackgroundRenderer
@@ -36,4 +38,16 @@ public class BackgroundRenderer
     {
         ShapeRenderUtils.renderRectangle(x, y, z, width, height, settings.getColor());
     }
+
+    /**
+     * Takes in a BufferBuilder initialized in GL_QUADS, POSITION_COLOR mode
+     */
+    public void renderBackgroundIfEnabled(int x, int y, float z, int width, int height,
+                                          BackgroundSettings settings, BufferBuilder buffer)
+    {
+        if (settings.isEnabled())
+        {
+            ShapeRenderUtils.renderRectangle(x, y, z, width, height, settings.getColor(), buffer);
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package malilib.gui.util;
 
+import net.minecraft.client.renderer.BufferBuilder;
+
 import malilib.render.ShapeRenderUtils;
 import malilib.util.data.EdgeInt;
 
@@ -41,4 +43,19 @@ public class BorderRenderer
         int borderWidth = settings.getActiveBorderWidth();
         ShapeRenderUtils.renderOutline(x, y, z, width, height, borderWidth, color);
     }
+
+    /**
+     * Takes in a BufferBuilder initialized in GL_QUADS, POSITION_COLOR mode
+     */
+    public void renderBorderIfEnabled(int x, int y, float z,
+                                      int width, int height,
+                                      BorderSettings settings, BufferBuilder buffer)
+    {
+        if (settings.isEnabled())
+        {
+            EdgeInt color = settings.getColor();
+            int borderWidth = settings.getActiveBorderWidth();
+            ShapeRenderUtils.renderOutline(x, y, z, width, height, borderWidth, color, buffer);
+        }
+    }
 }
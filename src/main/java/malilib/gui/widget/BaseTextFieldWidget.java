@@ -24,8 +24,6 @@ import malilib.render.RenderUtils;
 import malilib.render.ShapeRenderUtils;
 import malilib.render.text.StyledText;
 import malilib.render.text.StyledTextLine;
-import malilib.render.text.TextRenderer;
-import malilib.util.StringUtils;
 import malilib.util.data.LeftRight;
 
 public class BaseTextFieldWidget extends InteractableWidget
@@ -548,16 +546,23 @@ public class BaseTextFieldWidget extends InteractableWidget
         }
 
         String visibleText = this.visibleText.getText();
-        String textLeftOfCursor = StringUtils.clampTextToRenderLength(visibleText, relX, LeftRight.RIGHT, "");
-        int textLeftLength = textLeftOfCursor.length();
+        final int length = visibleText.length();
+        int[] widths = this.textRenderer.getRawTextPrefixRenderWidths(visibleText, new int[length + 1]);
+        int textLeftLength = 0;
+
+        while (textLeftLength < length && widths[textLeftLength + 1] <= relX)
+        {
+            ++textLeftLength;
+        }
+
         int index = textLeftLength + this.visibleText.getStartIndex();
 
         // Set the click position to the right of the clicked character,
         // if the click position is on the right half of the character.
-        if (visibleText.length() > textLeftLength)
+        if (length > textLeftLength)
         {
-            int xPosInChar = relX - this.getRawStyledTextWidth(textLeftOfCursor);
-            int charWidth = TextRenderer.INSTANCE.getGlyphFor(visibleText.charAt(textLeftLength)).renderWidth;
+            int xPosInChar = relX - widths[textLeftLength];
+            int charWidth = widths[textLeftLength + 1] - widths[textLeftLength];
 
             if (xPosInChar >= charWidth / 2)
             {
@@ -643,7 +643,7 @@ public class BaseWidget
 
     public int getRawStyledTextWidth(String str)
     {
-        return StyledTextLine.unParsed(str).renderWidth;
+        return this.textRenderer.getRawTextRenderWidth(str);
     }
 
     protected int getTextPositionX(int x, int usableWidth, int textWidth)
@@ -12,6 +12,7 @@ import malilib.gui.util.ScreenContext;
 import malilib.input.CancelCondition;
 import malilib.input.KeyBind;
 import malilib.input.KeyBindSettings;
+import malilib.registry.Registry;
 import malilib.render.RenderUtils;
 import malilib.render.ShapeRenderUtils;
 import malilib.util.StringUtils;
@@ -47,6 +48,7 @@ public class KeybindSettingsWidget extends InteractableWidget
         else if (mouseButton == 1)
         {
             this.keyBind.resetSettingsToDefaults();
+            Registry.HOTKEY_MANAGER.updateKeyBind(this.keyBind);
             this.updateHoverStrings();
             return true;
         }
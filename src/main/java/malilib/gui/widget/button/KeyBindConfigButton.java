@@ -116,7 +116,7 @@ public class KeyBindConfigButton extends GenericButton
         {
             this.keyBind.clearKeys();
             this.updateButtonState();
-            this.notifyListener();
+            this.onKeyBindChanged();
             handled = true;
         }
 
@@ -223,7 +223,7 @@ public class KeyBindConfigButton extends GenericButton
         if (this.updateImmediately)
         {
             this.keyBind.setKeys(this.newKeys);
-            this.notifyListener();
+            this.onKeyBindChanged();
         }
     }
 
@@ -248,7 +248,7 @@ public class KeyBindConfigButton extends GenericButton
         this.newKeys.clear();
         this.setHoverInfoRequiresShift(true);
         this.updateButtonState();
-        this.notifyListener();
+        this.onKeyBindChanged();
     }
 
     @Override
@@ -258,8 +258,13 @@ public class KeyBindConfigButton extends GenericButton
         super.updateButtonState();
     }
 
-    protected void notifyListener()
+    /**
+     * Applies the change to the hotkey index, and notifies the value change listener
+     */
+    protected void onKeyBindChanged()
     {
+        Registry.HOTKEY_MANAGER.updateKeyBind(this.keyBind);
+
         if (this.valueChangeListener != null)
         {
             this.valueChangeListener.onEvent();
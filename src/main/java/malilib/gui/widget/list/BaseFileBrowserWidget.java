@@ -7,18 +7,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 import javax.annotation.Nullable;
 import com.google.common.collect.ImmutableList;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
-import org.apache.commons.lang3.tuple.Pair;
 
 import malilib.MaLiLibConfigs;
 import malilib.gui.BaseScreen;
@@ -26,6 +25,7 @@ import malilib.gui.ConfirmActionScreen;
 import malilib.gui.TextInputScreen;
 import malilib.gui.icon.DefaultFileBrowserIconProvider;
 import malilib.gui.icon.FileBrowserIconProvider;
+import malilib.gui.util.ScreenContext;
 import malilib.gui.widget.MenuEntryWidget;
 import malilib.gui.widget.list.BaseFileBrowserWidget.DirectoryEntry;
 import malilib.gui.widget.list.entry.DirectoryEntryWidget;
@@ -38,17 +38,18 @@ import malilib.gui.widget.util.DirectoryNavigator;
 import malilib.input.Keys;
 import malilib.listener.EventListener;
 import malilib.overlay.message.MessageDispatcher;
+import malilib.registry.Registry;
 import malilib.render.text.StyledText;
 import malilib.render.text.StyledTextLine;
 import malilib.util.DataIteratingTask;
 import malilib.util.DirectoryCreator;
+import malilib.util.DirectoryListingCache.FileEntry;
 import malilib.util.FileNameUtils;
 import malilib.util.FileUtils;
 import malilib.util.data.ResultingStringConsumer;
 
 public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implements DirectoryNavigator
 {
-    protected final Map<Pair<Path, Predicate<Path>>, List<Path>> directoryContentsCache = new HashMap<>();
     protected final Object2IntOpenHashMap<Path> keyboardNavigationPositions = new Object2IntOpenHashMap<>();
     protected final Object2IntOpenHashMap<Path> scrollPositions = new Object2IntOpenHashMap<>();
     protected final Set<Path> operatedOnFiles = new HashSet<>();
@@ -56,6 +57,7 @@ public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implem
     protected final Path rootDirectory;
     @Nullable protected final DirectoryCache cache;
     @Nullable protected String rootDirectoryDisplayName;
+    @Nullable protected DirectorySearchTask searchTask;
     protected Predicate<Path> directoryFilter = FileUtils.DIRECTORY_FILTER;
     protected Predicate<Path> fileFilter = FileUtils.ALWAYS_FALSE_FILEFILTER;
     protected SimpleDateFormat dateFormat;
@@ -120,6 +122,7 @@ public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implem
 
         this.setAllowSelection(true);
         this.setShouldSortList(true);
+        this.setRecycleEntryWidgets(true);
 
         this.defaultListSortComparator = Comparator.naturalOrder();
         this.defaultSortColumn = DirectoryEntryWidget.NAME_COLUMN;
@@ -207,7 +210,6 @@ public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implem
     public void toggleShowHiddenFiles()
     {
         this.showHiddenFiles = ! this.showHiddenFiles;
-        this.directoryContentsCache.clear();
         this.refreshEntries();
     }
 
@@ -256,15 +258,12 @@ public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implem
         return this.filteredDataList;
     }
 
-    @Override
-    protected void fetchCurrentEntries()
-    {
-        this.directoryContentsCache.clear();
-    }
-
     @Override
     protected void reAddFilteredEntries()
     {
+        this.cancelDirectorySearch();
+        // The directories are watched for changes while the browser is open
+        Registry.DIRECTORY_LISTING_CACHE.addWatchUser(this);
         this.filteredDataList.clear();
 
         Path dir = this.currentDirectory;
@@ -287,76 +286,109 @@ public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implem
         List<DirectoryEntry> list = new ArrayList<>();
 
         // Show directories at the top
-        this.addMatchingEntriesToList(dir, list, this.getDirectoryFilter(), Collections.emptyList(), null);
+        this.addMatchingEntriesToList(dir, list, this.getDirectoryFilter(), Collections.emptyList(), null, this.showHiddenFiles);
         list.sort(this.activeListSortComparator);
         this.filteredDataList.addAll(list);
         list.clear();
 
-        this.addMatchingEntriesToList(dir, list, this.getFileFilter(), Collections.emptyList(), null);
+        this.addMatchingEntriesToList(dir, list, this.getFileFilter(), Collections.emptyList(), null, this.showHiddenFiles);
         this.sortEntryList(list);
         this.filteredDataList.addAll(list);
     }
 
+    /**
+     * Starts a recursive search of the directory tree on a worker thread.
+     * The results get added to the list as they arrive, see {@link #addPendingSearchResults()}.
+     */
     protected void addFilteredContents(Path dir)
     {
         String filterText = this.getSearchBarWidget().getFilter().toLowerCase();
         List<String> searchTerms = Arrays.asList(filterText.split("\\|"));
-        List<DirectoryEntry> list = new ArrayList<>();
-        this.addFilteredContents(dir, searchTerms, list, null);
-        this.filteredDataList.addAll(list);
+        DirectorySearchTask task = new DirectorySearchTask(dir, searchTerms, this.getDirectoryFilter(),
+                                                           this.getFileFilter(), this.getComparator(),
+                                                           this.showHiddenFiles);
+        this.searchTask = task;
+        Registry.DATA_TASK_SCHEDULER.executeAsync(task);
     }
 
-    protected void addFilteredContents(Path dir,
-                                       List<String> searchTerms,
-                                       List<DirectoryEntry> listOut,
-                                       @Nullable String prefix)
+    protected void cancelDirectorySearch()
     {
-        List<DirectoryEntry> list = new ArrayList<>();
-        this.addMatchingEntriesToList(dir, list, this.getDirectoryFilter(), searchTerms, prefix);
-        list.sort(Comparator.comparing(e -> e.name.toLowerCase(Locale.ROOT)));
-        listOut.addAll(list);
-        list.clear();
+        if (this.searchTask != null)
+        {
+            this.searchTask.cancelled = true;
+            this.searchTask = null;
+        }
+    }
 
-        for (Path subDir : this.getContents(dir, FileUtils.DIRECTORY_FILTER))
+    /**
+     * Adds the results that the background directory search has found since the last call.
+     * Only the visible entry widgets are re-created while the search is running,
+     * and the full entry refresh (which also updates the column widths) happens once the search completes.
+     */
+    protected void addPendingSearchResults()
+    {
+        DirectorySearchTask task = this.searchTask;
+
+        if (task == null)
         {
-            String pre;
+            return;
+        }
 
-            if (prefix != null)
-            {
-                pre = prefix + subDir.getFileName().toString() + "/";
-            }
-            else
-            {
-                pre = subDir.getFileName().toString() + "/";
-            }
+        // Read the finished state before polling, so that the last results can't be missed
+        boolean finished = task.finished;
+        boolean added = false;
+        List<DirectoryEntry> results;
 
-            this.addFilteredContents(subDir, searchTerms, list, pre);
-            this.sortEntryList(list);
-            listOut.addAll(list);
-            list.clear();
+        while ((results = task.results.poll()) != null)
+        {
+            this.filteredDataList.addAll(results);
+            added = true;
         }
 
-        this.addMatchingEntriesToList(dir, list, this.getFileFilter(), searchTerms, prefix);
-        this.sortEntryList(list);
-        listOut.addAll(list);
+        if (finished)
+        {
+            this.searchTask = null;
+            this.onEntriesRefreshed();
+            this.notifyListWidgetFactory();
+            this.reCreateListEntryWidgets();
+        }
+        else if (added)
+        {
+            // The new results only get appended, so the existing widgets stay valid
+            this.updateListEntryWidgets();
+        }
     }
 
+    /**
+     * Adds the entries from the given directory that match the given filter and the search terms.
+     * This is also called from the background search thread, so it must not access the widget state.
+     */
     protected void addMatchingEntriesToList(final Path dir, List<DirectoryEntry> outputList, final Predicate<Path> filter,
-                                            List<String> searchTerms, @Nullable String displayNamePrefix)
+                                            List<String> searchTerms, @Nullable String displayNamePrefix,
+                                            boolean showHiddenFiles)
     {
-        for (Path file : this.getContents(dir, filter))
+        for (FileEntry file : this.getContents(dir, filter, showHiddenFiles))
         {
-            String fileName = file.getFileName().toString();
-            String entryString = FileNameUtils.getFileNameWithoutExtension(fileName.toLowerCase(Locale.ROOT));
+            String entryString = FileNameUtils.getFileNameWithoutExtension(file.name.toLowerCase(Locale.ROOT));
 
             if (searchTerms.isEmpty() || this.fileNameMatchesFilter(entryString, searchTerms))
             {
-                DirectoryEntryType type = DirectoryEntryType.fromFile(file);
-                outputList.add(new DirectoryEntry(type, dir, fileName, displayNamePrefix));
+                DirectoryEntryType type = DirectoryEntryType.fromFileEntry(file);
+                outputList.add(new DirectoryEntry(type, dir, file.name, displayNamePrefix, file.size, file.lastModified));
             }
         }
     }
 
+    /**
+     * @deprecated override or call the variant with the showHiddenFiles argument instead
+     */
+    @Deprecated
+    protected void addMatchingEntriesToList(final Path dir, List<DirectoryEntry> outputList, final Predicate<Path> filter,
+                                            List<String> searchTerms, @Nullable String displayNamePrefix)
+    {
+        this.addMatchingEntriesToList(dir, outputList, filter, searchTerms, displayNamePrefix, this.showHiddenFiles);
+    }
+
     protected boolean fileNameMatchesFilter(String entryString, List<String> searchTerms)
     {
         for (String searchTerm : searchTerms)
@@ -370,13 +402,53 @@ public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implem
         return false;
     }
 
+    /**
+     * @return the entries of the given directory that match the given filter.
+     *         The directory listings and the filter results are cached in {@link Registry#DIRECTORY_LISTING_CACHE}.
+     */
+    protected List<FileEntry> getContents(Path dir, Predicate<Path> filter, boolean showHiddenFiles)
+    {
+        List<FileEntry> entries = Registry.DIRECTORY_LISTING_CACHE.getListing(dir).getMatchingEntries(filter);
+
+        if (showHiddenFiles)
+        {
+            return entries;
+        }
+
+        List<FileEntry> list = new ArrayList<>(entries.size());
+
+        for (FileEntry entry : entries)
+        {
+            if (entry.isHidden() == false)
+            {
+                list.add(entry);
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * @deprecated use the variant returning the cached {@link FileEntry}s instead
+     */
+    @Deprecated
     protected List<Path> getContents(final Path dir, Predicate<Path> filter)
     {
-        final Predicate<Path> finalFilter = this.getFileFilterObeyingHiddenFiles(filter);
-        Pair<Path, Predicate<Path>> cacheKey = Pair.of(dir, finalFilter); // FIXME this won't work now...
-        return this.directoryContentsCache.computeIfAbsent(cacheKey, (k) -> FileUtils.getDirectoryContents(dir, finalFilter, false));
+        List<FileEntry> entries = this.getContents(dir, filter, this.showHiddenFiles);
+        List<Path> list = new ArrayList<>(entries.size());
+
+        for (FileEntry entry : entries)
+        {
+            list.add(dir.resolve(entry.name));
+        }
+
+        return list;
     }
 
+    /**
+     * @deprecated the hidden files are now filtered in {@link #getContents(Path, Predicate, boolean)}
+     */
+    @Deprecated
     protected Predicate<Path> getFileFilterObeyingHiddenFiles(Predicate<Path> original)
     {
         if (this.showHiddenFiles == false)
@@ -641,9 +713,17 @@ public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implem
 
     protected void endFileOperation()
     {
+        // Don't wait for the watch events, the listings need to be up to date for the refresh below
+        Registry.DIRECTORY_LISTING_CACHE.invalidate(this.getCurrentDirectory());
+
+        for (Path file : this.operatedOnFiles)
+        {
+            Path parent = file.getParent();
+            Registry.DIRECTORY_LISTING_CACHE.invalidate(parent != null ? parent : file);
+        }
+
         this.pendingOperationIsCut = false;
         this.operatedOnFiles.clear();
-        this.directoryContentsCache.clear();
         this.getEntrySelectionHandler().clearSelection();
         this.refreshEntries();
     }
@@ -684,7 +764,6 @@ public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implem
 
         this.resetScrollBarPositionWithoutNotify();
         this.restoreScrollBarPosition(dir);
-        this.directoryContentsCache.clear();
 
         this.refreshEntries();
         this.updateDirectoryNavigationWidget();
@@ -719,6 +798,22 @@ public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implem
         }
     }
 
+    @Override
+    public void onScreenClosed()
+    {
+        this.cancelDirectorySearch();
+        Registry.DIRECTORY_LISTING_CACHE.removeWatchUser(this);
+        Registry.DIRECTORY_LISTING_CACHE.saveToFileIfDirty();
+        super.onScreenClosed();
+    }
+
+    @Override
+    public void renderAt(int x, int y, float z, ScreenContext ctx)
+    {
+        this.addPendingSearchResults();
+        super.renderAt(x, y, z, ctx);
+    }
+
     @Override
     protected boolean onMouseClicked(int mouseX, int mouseY, int mouseButton)
     {
@@ -866,13 +961,27 @@ public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implem
         protected final Path dir;
         protected final String name;
         @Nullable protected final String displayNamePrefix;
+        protected final long size;
+        protected final long lastModified;
 
         public DirectoryEntry(DirectoryEntryType type, Path dir, String name, @Nullable String displayNamePrefix)
+        {
+            this(type, dir, name, displayNamePrefix, -1L, -1L);
+        }
+
+        /**
+         * @param size the size of the file, or -1 to read it from the file when needed
+         * @param lastModified the modification time of the file, or -1 to read it from the file when needed
+         */
+        public DirectoryEntry(DirectoryEntryType type, Path dir, String name, @Nullable String displayNamePrefix,
+                              long size, long lastModified)
         {
             this.type = type;
             this.dir = dir;
             this.name = name;
             this.displayNamePrefix = displayNamePrefix;
+            this.size = size;
+            this.lastModified = lastModified;
         }
 
         public DirectoryEntryType getType()
@@ -906,6 +1015,16 @@ public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implem
             return this.dir.resolve(this.name);
         }
 
+        public long getSize()
+        {
+            return this.size >= 0 ? this.size : FileUtils.size(this.getFullPath());
+        }
+
+        public long getLastModified()
+        {
+            return this.lastModified >= 0 ? this.lastModified : FileUtils.getMTime(this.getFullPath());
+        }
+
         @Override
         public int compareTo(DirectoryEntry other)
         {
@@ -937,5 +1056,105 @@ public class BaseFileBrowserWidget extends DataListWidget<DirectoryEntry> implem
 
             return INVALID;
         }
+
+        public static DirectoryEntryType fromFileEntry(FileEntry entry)
+        {
+            if (entry.isDirectory)
+            {
+                return DIRECTORY;
+            }
+            else if (entry.isRegularFile)
+            {
+                return FILE;
+            }
+
+            return INVALID;
+        }
+    }
+
+    /**
+     * Recursively searches a directory tree on a worker thread. The results of each directory
+     * are handed to the client thread via the results queue, in the order they will appear in the list:
+     * first the matching directories, then the results from each sub-directory, and then the matching files.
+     */
+    protected class DirectorySearchTask implements Runnable
+    {
+        protected final Queue<List<DirectoryEntry>> results = new ConcurrentLinkedQueue<>();
+        protected final Path rootDirectory;
+        protected final List<String> searchTerms;
+        protected final Predicate<Path> directoryFilter;
+        protected final Predicate<Path> fileFilter;
+        @Nullable protected final Comparator<DirectoryEntry> fileComparator;
+        protected final boolean showHiddenFiles;
+        protected volatile boolean cancelled;
+        protected volatile boolean finished;
+
+        protected DirectorySearchTask(Path rootDirectory,
+                                      List<String> searchTerms,
+                                      Predicate<Path> directoryFilter,
+                                      Predicate<Path> fileFilter,
+                                      @Nullable Comparator<DirectoryEntry> fileComparator,
+                                      boolean showHiddenFiles)
+        {
+            this.rootDirectory = rootDirectory;
+            this.searchTerms = searchTerms;
+            this.directoryFilter = directoryFilter;
+            this.fileFilter = fileFilter;
+            this.fileComparator = fileComparator;
+            this.showHiddenFiles = showHiddenFiles;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                this.search(this.rootDirectory, null);
+            }
+            finally
+            {
+                this.finished = true;
+            }
+        }
+
+        protected void search(Path dir, @Nullable String prefix)
+        {
+            if (this.cancelled)
+            {
+                return;
+            }
+
+            List<DirectoryEntry> list = new ArrayList<>();
+            addMatchingEntriesToList(dir, list, this.directoryFilter, this.searchTerms, prefix, this.showHiddenFiles);
+            list.sort(Comparator.comparing(e -> e.name.toLowerCase(Locale.ROOT)));
+            this.addResults(list);
+
+            List<FileEntry> subDirs = new ArrayList<>(getContents(dir, FileUtils.DIRECTORY_FILTER, this.showHiddenFiles));
+            subDirs.sort(Comparator.comparing(e -> e.name.toLowerCase(Locale.ROOT)));
+
+            for (FileEntry subDir : subDirs)
+            {
+                String pre = prefix != null ? prefix + subDir.name + "/" : subDir.name + "/";
+                this.search(dir.resolve(subDir.name), pre);
+            }
+
+            list = new ArrayList<>();
+            addMatchingEntriesToList(dir, list, this.fileFilter, this.searchTerms, prefix, this.showHiddenFiles);
+
+            if (this.fileComparator != null)
+            {
+                list.sort(this.fileComparator);
+            }
+
+            this.addResults(list);
+        }
+
+        protected void addResults(List<DirectoryEntry> list)
+        {
+            if (list.isEmpty() == false && this.cancelled == false)
+            {
+                this.results.add(list);
+            }
+        }
     }
 }
@@ -7,6 +7,7 @@ import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 
 import net.minecraft.client.gui.GuiScreen;
 import net.minecraft.util.math.MathHelper;
@@ -32,6 +33,8 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
 {
     protected final EdgeInt listPosition = new EdgeInt(2, 2, 2, 2);
     protected final ScrollBarWidget scrollBar;
+    protected final ArrayList<BaseListEntryWidget> recyclableEntryWidgets = new ArrayList<>();
+    protected final IntArrayList entryWidgetHeightCache = new IntArrayList();
     protected ListEntryWidgetFactory listEntryWidgetFactory;
 
     protected WidgetPositioner searchBarPositioner = new DefaultWidgetPositioner();
@@ -53,6 +56,7 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
 
     protected boolean allowKeyboardNavigation;
     protected boolean areEntriesFixedHeight = true;
+    protected boolean recycleEntryWidgets;
 
     public BaseListWidget(int width, int height)
     {
@@ -67,7 +71,7 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
 
         // The position gets updated in setSize()
         this.scrollBar = new ScrollBarWidget(8, height);
-        this.scrollBar.setValueChangeListener(this::reCreateListEntryWidgets);
+        this.scrollBar.setValueChangeListener(this::updateListEntryWidgets);
     }
 
     @Nullable
@@ -87,6 +91,19 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
         this.areEntriesFixedHeight = areEntriesFixedHeight;
     }
 
+    /**
+     * Enables or disables the entry widget recycling mode.
+     * In the recycling mode the existing entry widgets are re-used when the list is scrolled,
+     * instead of re-creating all the visible widgets on every scroll step.
+     * The widgets of the entries that stay visible are just moved to their new position,
+     * and the widgets of the entries that were scrolled out of view can be re-bound
+     * to the newly visible entries, if the widgets support it.
+     */
+    public void setRecycleEntryWidgets(boolean recycleEntryWidgets)
+    {
+        this.recycleEntryWidgets = recycleEntryWidgets;
+    }
+
     public void setRequestedScrollBarPosition(int position)
     {
         this.requestedScrollBarPosition = position;
@@ -117,6 +134,7 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
     protected void onSizeChanged()
     {
         this.updateSubWidgetPositions();
+        this.entryWidgetHeightCache.clear();
         this.reCreateListEntryWidgets();
     }
 
@@ -125,7 +143,8 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
     {
         super.onPositionOrSizeChanged(oldX, oldY);
 
-        this.reCreateListEntryWidgets();
+        this.entryWidgetHeightCache.clear();
+        this.updateListEntryWidgets();
     }
 
     @Override
@@ -211,8 +230,19 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
 
         if (this.visibleListEntries < count)
         {
-            // There is no other way than to assume a fixed height here, since all the widgets don't exist at once
-            totalHeight += count * this.entryWidgetFixedHeight;
+            if (this.areEntriesFixedHeight)
+            {
+                totalHeight += count * this.entryWidgetFixedHeight;
+            }
+            else
+            {
+                // All the widgets don't exist at once, so use the cached heights of the
+                // entries that have already been shown, and estimate the rest
+                for (int i = 0; i < count; ++i)
+                {
+                    totalHeight += this.getEstimatedListEntryWidgetHeight(i);
+                }
+            }
         }
         else
         {
@@ -247,6 +277,47 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
         }
     }
 
+    /**
+     * @return the height of the entry widget for the given list index, from the height cache
+     *         if a widget for that entry has already been created, or otherwise
+     *         the height from {@link #getHeightForListEntryWidgetCreation(int)}
+     */
+    protected int getEstimatedListEntryWidgetHeight(int listIndex)
+    {
+        if (listIndex < this.entryWidgetHeightCache.size())
+        {
+            int height = this.entryWidgetHeightCache.getInt(listIndex);
+
+            if (height >= 0)
+            {
+                return height;
+            }
+        }
+
+        return this.getHeightForListEntryWidgetCreation(listIndex);
+    }
+
+    /**
+     * Stores the height of the entry widget of the given list index, for variable height lists.
+     * The cache is cleared when the list contents or the list size change.
+     */
+    protected void cacheListEntryWidgetHeight(int listIndex, int height)
+    {
+        if (this.areEntriesFixedHeight)
+        {
+            return;
+        }
+
+        IntArrayList cache = this.entryWidgetHeightCache;
+
+        while (cache.size() <= listIndex)
+        {
+            cache.add(-1);
+        }
+
+        cache.set(listIndex, height);
+    }
+
     protected int getListMaxWidthForTotalWidth(int width)
     {
         return width;
@@ -694,6 +765,7 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
 
     public void refreshFilteredEntries()
     {
+        this.entryWidgetHeightCache.clear();
         this.reAddFilteredEntries();
         this.onEntriesRefreshed();
         this.notifyListWidgetFactory();
@@ -752,8 +824,18 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
 
     protected void clampScrollBarPosition()
     {
-        int expectedVisibleEntries = this.entryWidgetFixedHeight > 0 ? this.listHeight / this.entryWidgetFixedHeight : 10;
-        int max = this.getFactoryTotalListWidgetCount() - expectedVisibleEntries;
+        int max;
+
+        if (this.areEntriesFixedHeight)
+        {
+            int expectedVisibleEntries = this.entryWidgetFixedHeight > 0 ? this.listHeight / this.entryWidgetFixedHeight : 10;
+            max = this.getFactoryTotalListWidgetCount() - expectedVisibleEntries;
+        }
+        else
+        {
+            max = this.getMaxStartIndexForVariableHeightEntries();
+        }
+
         this.scrollBar.setMaxValueNoNotify(max);
 
         // This "request" workaround is needed because the ConfigScreenTabButtonListener
@@ -766,6 +848,32 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
         }
     }
 
+    /**
+     * @return the highest start index that still fills the list, based on the
+     *         cached or estimated heights of the entries at the end of the list
+     */
+    protected int getMaxStartIndexForVariableHeightEntries()
+    {
+        final int count = this.getFactoryTotalListWidgetCount();
+        int usedHeight = 0;
+        int index = count;
+
+        while (index > 0)
+        {
+            int height = this.getEstimatedListEntryWidgetHeight(index - 1);
+
+            if (usedHeight + height > this.listHeight)
+            {
+                break;
+            }
+
+            usedHeight += height;
+            --index;
+        }
+
+        return index;
+    }
+
     protected int getListStartIndex()
     {
         return this.scrollBar.getValue();
@@ -778,11 +886,61 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
             widget.onAboutToDestroy();
         }
 
+        this.getEntryWidgetList().clear();
+        this.createListEntryWidgets();
+        this.destroyUnusedEntryWidgets();
+    }
+
+    /**
+     * Updates the entry widgets after the scroll position has changed, or when
+     * more entries have been added to the end of the list without changing the existing entries.
+     * In the recycling mode the old widgets are offered for re-use, see {@link #setRecycleEntryWidgets(boolean)},
+     * otherwise all the widgets are re-created.
+     */
+    public void updateListEntryWidgets()
+    {
+        if (this.recycleEntryWidgets == false)
+        {
+            this.reCreateListEntryWidgets();
+            return;
+        }
+
+        this.recyclableEntryWidgets.addAll(this.getEntryWidgetList());
+        this.getEntryWidgetList().clear();
+        this.createListEntryWidgets();
+        this.destroyUnusedEntryWidgets();
+    }
+
+    /**
+     * Destroys the recyclable widgets that did not get re-used
+     */
+    protected void destroyUnusedEntryWidgets()
+    {
+        for (BaseListEntryWidget widget : this.recyclableEntryWidgets)
+        {
+            widget.onAboutToDestroy();
+        }
+
+        this.recyclableEntryWidgets.clear();
+    }
+
+    /**
+     * Adds back a widget that was re-used as is for the same entry.
+     * The widget has already been set up as a sub widget, so it only needs to be
+     * added back to the entry widget list. Notably the widget state is not updated,
+     * so that any unsaved edits in the widget are kept.
+     */
+    protected void addRecycledEntryWidget(BaseListEntryWidget widget)
+    {
+        this.getEntryWidgetList().add(widget);
+    }
+
+    protected void createListEntryWidgets()
+    {
         this.clampScrollBarPosition();
 
         int startIndex = this.getListStartIndex();
 
-        this.getEntryWidgetList().clear();
         this.onPreListEntryWidgetsCreation(startIndex);
 
         this.listEntryWidgetFactory.createEntryWidgets(this.entryWidgetStartX, this.entryWidgetStartY,
@@ -793,6 +951,41 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
         this.onListEntryWidgetsCreated();
     }
 
+    /**
+     * Takes a widget out of the recyclable widgets, if there is one that is
+     * still showing the given list index. Such a widget only needs to be moved
+     * to the new position, as its entry has not changed.
+     */
+    @Nullable
+    protected BaseListEntryWidget getRecycledListEntryWidget(int x, int y, int listIndex)
+    {
+        ArrayList<BaseListEntryWidget> widgets = this.recyclableEntryWidgets;
+        final int size = widgets.size();
+
+        for (int i = 0; i < size; ++i)
+        {
+            BaseListEntryWidget widget = widgets.get(i);
+
+            if (widget.getDataListIndex() == listIndex && this.canReuseListEntryWidget(widget, listIndex))
+            {
+                widgets.remove(i);
+                widget.setPosition(x, y);
+                return widget;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return true if the given recyclable widget, which was showing the given list index
+     *         before the update, can be re-used as is for that same list index
+     */
+    protected boolean canReuseListEntryWidget(BaseListEntryWidget widget, int listIndex)
+    {
+        return widget.getWidth() == this.entryWidgetWidth;
+    }
+
     protected int getFactoryTotalListWidgetCount()
     {
         return this.listEntryWidgetFactory.getTotalListWidgetCount();
@@ -810,7 +1003,13 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
 
         for (int listIndex = startIndex ; listIndex < totalEntryCount; ++listIndex)
         {
-            BaseListEntryWidget widget = this.createListEntryWidget(x, y, listIndex);
+            BaseListEntryWidget widget = this.recyclableEntryWidgets.isEmpty() ? null : this.getRecycledListEntryWidget(x, y, listIndex);
+            boolean reused = widget != null;
+
+            if (widget == null)
+            {
+                widget = this.createListEntryWidget(x, y, listIndex);
+            }
 
             if (widget == null)
             {
@@ -818,14 +1017,24 @@ public abstract class BaseListWidget extends ContainerWidget implements ListEntr
             }
 
             int widgetHeight = widget.getHeight();
+            this.cacheListEntryWidgetHeight(listIndex, widgetHeight);
 
             //System.out.printf("i: %d, usable: %d, used: %d, lh: %d, sy: %d\n", listIndex, usableHeight, usedHeight, this.listHeight, this.entryWidgetsStartY);
             if (usedHeight + widgetHeight > usableHeight)
             {
+                // Put the widget back, so that it gets destroyed properly if it was a re-used or re-bound widget
+                this.recyclableEntryWidgets.add(widget);
                 break;
             }
 
-            widgetConsumer.accept(widget);
+            if (reused)
+            {
+                this.addRecycledEntryWidget(widget);
+            }
+            else
+            {
+                widgetConsumer.accept(widget);
+            }
 
             usedHeight += widgetHeight;
             y += widgetHeight;
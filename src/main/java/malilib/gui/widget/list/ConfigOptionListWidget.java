@@ -50,6 +50,7 @@ public class ConfigOptionListWidget extends DataListWidget<ConfigOnTab>
         this.modInfo = modInfo;
         this.defaultElementWidthSupplier = defaultElementWidthSupplier;
         this.allowKeyboardNavigation = true;
+        this.recycleEntryWidgets = true;
         this.showInternalConfigName = MaLiLibConfigs.Generic.SHOW_INTERNAL_CONFIG_NAME.getBooleanValue();
 
         this.setDataListEntryWidgetFactory(new ConfigOptionListEntryWidgetFactory(this, keybindEditScreen));
@@ -0,0 +1,391 @@
+package malilib.gui.widget.list;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * An index of the lower cased search strings of the entries of a data list.
+ * The search strings of each entry are only fetched and lower cased once,
+ * and the index is only re-built when the entries change.
+ * <br><br>
+ * If the new search terms just extend the previous search terms (for example
+ * when typing more characters to the search bar), then only the previous matches are checked.
+ * For large lists a trigram index is also built, which is used to get the candidate
+ * entries when all the search terms are at least 3 characters long.
+ * <br><br>
+ * The index is thread safe, so that it can also be used from the async refresh of the list.
+ */
+public class DataListSearchIndex<DATATYPE>
+{
+    /** The minimum number of entries for building the trigram index */
+    public static final int NGRAM_INDEX_THRESHOLD = 2000;
+
+    protected final ArrayList<DATATYPE> entries = new ArrayList<>();
+    protected final ArrayList<String[]> entryKeys = new ArrayList<>();
+    protected HashMap<DATATYPE, String[]> keyCache = new HashMap<>();
+    protected Function<DATATYPE, List<String>> searchStringFunction;
+    @Nullable protected Long2ObjectOpenHashMap<IntArrayList> trigramIndex;
+    @Nullable protected List<String> lastSearchTerms;
+    protected IntArrayList lastMatches = new IntArrayList();
+
+    public DataListSearchIndex(Function<DATATYPE, List<String>> searchStringFunction)
+    {
+        this.searchStringFunction = searchStringFunction;
+    }
+
+    public synchronized void setSearchStringFunction(Function<DATATYPE, List<String>> searchStringFunction)
+    {
+        this.searchStringFunction = searchStringFunction;
+        this.invalidate();
+    }
+
+    /**
+     * Clears the index and all the cached search keys.
+     * This should be called if the search strings of the existing entries may have changed.
+     */
+    public synchronized void invalidate()
+    {
+        this.entries.clear();
+        this.entryKeys.clear();
+        this.keyCache.clear();
+        this.trigramIndex = null;
+        this.lastSearchTerms = null;
+        this.lastMatches = new IntArrayList();
+    }
+
+    /**
+     * @return the lower cased search keys of the given entry
+     */
+    public synchronized String[] getSearchKeys(DATATYPE entry)
+    {
+        String[] keys = this.keyCache.get(entry);
+
+        if (keys == null)
+        {
+            keys = this.createSearchKeys(entry);
+            this.keyCache.put(entry, keys);
+        }
+
+        return keys;
+    }
+
+    protected String[] createSearchKeys(DATATYPE entry)
+    {
+        List<String> strings = this.searchStringFunction.apply(entry);
+        String[] keys = new String[strings.size()];
+
+        for (int i = 0; i < keys.length; ++i)
+        {
+            keys[i] = strings.get(i).toLowerCase(Locale.ROOT);
+        }
+
+        return keys;
+    }
+
+    /**
+     * @return the indices of the entries in the given list, whose search keys contain
+     *         any of the given (lower case) search terms, in ascending order.
+     *         The returned list must not be modified.
+     */
+    public synchronized IntArrayList getMatchingIndices(List<DATATYPE> entries, List<String> searchTerms)
+    {
+        this.updateEntries(entries);
+
+        @Nullable IntArrayList candidates = null;
+
+        if (this.lastSearchTerms != null && isRefinementOf(searchTerms, this.lastSearchTerms))
+        {
+            candidates = this.lastMatches;
+        }
+        else if (this.entries.size() >= NGRAM_INDEX_THRESHOLD)
+        {
+            candidates = this.getTrigramCandidates(searchTerms);
+        }
+
+        IntArrayList matches = new IntArrayList();
+
+        if (candidates != null)
+        {
+            final int size = candidates.size();
+
+            for (int i = 0; i < size; ++i)
+            {
+                int index = candidates.getInt(i);
+
+                if (keysMatch(this.entryKeys.get(index), searchTerms))
+                {
+                    matches.add(index);
+                }
+            }
+        }
+        else
+        {
+            final int size = this.entryKeys.size();
+
+            for (int index = 0; index < size; ++index)
+            {
+                if (keysMatch(this.entryKeys.get(index), searchTerms))
+                {
+                    matches.add(index);
+                }
+            }
+        }
+
+        this.lastSearchTerms = new ArrayList<>(searchTerms);
+        this.lastMatches = matches;
+
+        return matches;
+    }
+
+    /**
+     * Re-builds the index, if the given entries are not the same as the indexed entries.
+     * The search keys of the entries that were already indexed are re-used.
+     */
+    protected void updateEntries(List<DATATYPE> entries)
+    {
+        final int size = entries.size();
+
+        if (size == this.entries.size())
+        {
+            boolean same = true;
+
+            for (int i = 0; i < size; ++i)
+            {
+                if (Objects.equals(entries.get(i), this.entries.get(i)) == false)
+                {
+                    same = false;
+                    break;
+                }
+            }
+
+            if (same)
+            {
+                return;
+            }
+        }
+
+        HashMap<DATATYPE, String[]> oldCache = this.keyCache;
+        this.keyCache = new HashMap<>(size);
+        this.entries.clear();
+        this.entryKeys.clear();
+
+        for (DATATYPE entry : entries)
+        {
+            String[] keys = oldCache.get(entry);
+
+            if (keys == null)
+            {
+                keys = this.createSearchKeys(entry);
+            }
+
+            this.keyCache.put(entry, keys);
+            this.entries.add(entry);
+            this.entryKeys.add(keys);
+        }
+
+        this.trigramIndex = null;
+        this.lastSearchTerms = null;
+        this.lastMatches = new IntArrayList();
+    }
+
+    /**
+     * @return the indices of the entries that contain all the trigrams of at least one
+     *         of the search terms, or null if some search term is too short for using the trigram index
+     */
+    @Nullable
+    protected IntArrayList getTrigramCandidates(List<String> searchTerms)
+    {
+        for (String term : searchTerms)
+        {
+            if (term.length() < 3)
+            {
+                return null;
+            }
+        }
+
+        Long2ObjectOpenHashMap<IntArrayList> index = this.getTrigramIndex();
+        IntArrayList candidates = null;
+
+        for (String term : searchTerms)
+        {
+            IntArrayList termCandidates = null;
+
+            for (int i = 0; i <= term.length() - 3; ++i)
+            {
+                IntArrayList postings = index.get(getTrigram(term, i));
+
+                if (postings == null)
+                {
+                    termCandidates = new IntArrayList();
+                    break;
+                }
+
+                termCandidates = termCandidates == null ? postings : intersect(termCandidates, postings);
+            }
+
+            candidates = candidates == null ? termCandidates : union(candidates, termCandidates);
+        }
+
+        return candidates;
+    }
+
+    protected Long2ObjectOpenHashMap<IntArrayList> getTrigramIndex()
+    {
+        Long2ObjectOpenHashMap<IntArrayList> index = this.trigramIndex;
+
+        if (index == null)
+        {
+            index = new Long2ObjectOpenHashMap<>();
+            final int size = this.entryKeys.size();
+
+            for (int entryIndex = 0; entryIndex < size; ++entryIndex)
+            {
+                for (String key : this.entryKeys.get(entryIndex))
+                {
+                    for (int i = 0; i <= key.length() - 3; ++i)
+                    {
+                        long trigram = getTrigram(key, i);
+                        IntArrayList postings = index.get(trigram);
+
+                        if (postings == null)
+                        {
+                            postings = new IntArrayList(4);
+                            index.put(trigram, postings);
+                        }
+
+                        // The entries are added in order, so this de-duplicates the postings
+                        if (postings.isEmpty() || postings.getInt(postings.size() - 1) != entryIndex)
+                        {
+                            postings.add(entryIndex);
+                        }
+                    }
+                }
+            }
+
+            this.trigramIndex = index;
+        }
+
+        return index;
+    }
+
+    protected static long getTrigram(String str, int start)
+    {
+        return ((long) str.charAt(start) << 32) | ((long) str.charAt(start + 1) << 16) | (long) str.charAt(start + 2);
+    }
+
+    /**
+     * @return true if every entry matching the new search terms also matches the old search terms,
+     *         ie. each of the new terms contains at least one of the old terms
+     */
+    protected static boolean isRefinementOf(List<String> newTerms, List<String> oldTerms)
+    {
+        for (String newTerm : newTerms)
+        {
+            boolean found = false;
+
+            for (String oldTerm : oldTerms)
+            {
+                if (newTerm.contains(oldTerm))
+                {
+                    found = true;
+                    break;
+                }
+            }
+
+            if (found == false)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public static boolean keysMatch(String[] keys, List<String> searchTerms)
+    {
+        for (String key : keys)
+        {
+            for (String searchTerm : searchTerms)
+            {
+                if (key.contains(searchTerm))
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    protected static IntArrayList intersect(IntArrayList list1, IntArrayList list2)
+    {
+        IntArrayList result = new IntArrayList(Math.min(list1.size(), list2.size()));
+        final int size1 = list1.size();
+        final int size2 = list2.size();
+        int i1 = 0;
+        int i2 = 0;
+
+        while (i1 < size1 && i2 < size2)
+        {
+            int v1 = list1.getInt(i1);
+            int v2 = list2.getInt(i2);
+
+            if (v1 == v2)
+            {
+                result.add(v1);
+                ++i1;
+                ++i2;
+            }
+            else if (v1 < v2)
+            {
+                ++i1;
+            }
+            else
+            {
+                ++i2;
+            }
+        }
+
+        return result;
+    }
+
+    protected static IntArrayList union(IntArrayList list1, IntArrayList list2)
+    {
+        IntArrayList result = new IntArrayList(list1.size() + list2.size());
+        final int size1 = list1.size();
+        final int size2 = list2.size();
+        int i1 = 0;
+        int i2 = 0;
+
+        while (i1 < size1 || i2 < size2)
+        {
+            int v1 = i1 < size1 ? list1.getInt(i1) : Integer.MAX_VALUE;
+            int v2 = i2 < size2 ? list2.getInt(i2) : Integer.MAX_VALUE;
+
+            if (v1 <= v2)
+            {
+                result.add(v1);
+                ++i1;
+
+                if (v1 == v2)
+                {
+                    ++i2;
+                }
+            }
+            else
+            {
+                result.add(v2);
+                ++i2;
+            }
+        }
+
+        return result;
+    }
+}
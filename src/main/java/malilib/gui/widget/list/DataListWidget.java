@@ -5,8 +5,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
@@ -14,23 +14,32 @@ import com.google.common.collect.ImmutableList;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 
 import malilib.config.value.SortDirection;
+import malilib.gui.util.ScreenContext;
 import malilib.gui.widget.InteractableWidget;
 import malilib.gui.widget.MenuEntryWidget;
+import malilib.gui.widget.list.entry.BaseDataListEntryWidget;
 import malilib.gui.widget.list.entry.BaseListEntryWidget;
 import malilib.gui.widget.list.entry.DataListEntryWidgetData;
 import malilib.gui.widget.list.entry.DataListEntryWidgetFactory;
 import malilib.gui.widget.list.header.DataColumn;
 import malilib.gui.widget.list.header.DataListHeaderWidget;
+import malilib.registry.Registry;
 import malilib.render.text.StyledTextLine;
 
 public class DataListWidget<DATATYPE> extends BaseListWidget
 {
+    /** The minimum list size for sorting the list in parallel */
+    public static final int PARALLEL_SORT_THRESHOLD = 8192;
+
     protected final Supplier<List<DATATYPE>> entrySupplier;
     protected final ArrayList<DATATYPE> fullDataList;
     protected final ArrayList<DATATYPE> filteredDataList = new ArrayList<>();
     protected final IntArrayList filteredIndices = new IntArrayList();
     protected final ArrayList<BaseListEntryWidget> entryWidgets = new ArrayList<>();
     protected final ArrayList<DataColumn<DATATYPE>> columns = new ArrayList<>();
+    protected final DataListSearchIndex<DATATYPE> searchIndex;
+    protected final EntryFilter<DATATYPE> defaultEntryFilterRef;
+    protected final AtomicReference<RefreshResult<DATATYPE>> pendingRefreshResult = new AtomicReference<>();
     protected SortDirection sortDirection = SortDirection.ASCENDING;
     protected EntryFilter<DATATYPE> entryFilter;
     protected Function<DATATYPE, List<String>> entrySearchStringFunction = (e) -> Collections.singletonList(e.toString());
@@ -49,6 +58,9 @@ public class DataListWidget<DATATYPE> extends BaseListWidget
     protected boolean filterMatchesEmptyEntry;
     protected boolean hasDataColumns;
     protected boolean shouldSortList;
+    protected boolean useSearchIndex = true;
+    protected boolean asyncRefresh;
+    protected volatile int refreshVersion;
 
     public DataListWidget(Supplier<List<DATATYPE>> entrySupplier, boolean fetchFromSupplierOnRefresh)
     {
@@ -66,7 +78,11 @@ public class DataListWidget<DATATYPE> extends BaseListWidget
         this.entrySupplier = entrySupplier;
         this.fullDataList = new ArrayList<>(entrySupplier.get());
         this.selectionHandler = new DataListEntrySelectionHandler<>(this::getFilteredDataList);
-        this.entryFilter = this::defaultEntryFilter;
+        this.defaultEntryFilterRef = this::defaultEntryFilter;
+        this.entryFilter = this.defaultEntryFilterRef;
+        this.searchIndex = new DataListSearchIndex<>(this.entrySearchStringFunction);
+        // The index only replicates the default filter, so it can't be used if that is overridden
+        this.useSearchIndex = isDefaultEntryFilterOverridden(this.getClass()) == false;
 
         this.getBorderRenderer().getNormalSettings().setBorderWidth(1);
     }
@@ -114,6 +130,21 @@ public class DataListWidget<DATATYPE> extends BaseListWidget
         return this;
     }
 
+    /**
+     * Sets the list to fetch, filter and sort the entries on a worker thread when refreshing.
+     * The previous entries are shown until the new results are ready, and results
+     * that get superseded by a newer refresh before they are ready are discarded.<br><br>
+     * Note: In this mode the entry supplier (if the entries are fetched on refresh),
+     * the entry filter and the sort comparator must be thread safe,
+     * and the list must not override {@link #getNonFilteredDataList()} to return something else
+     * than the fetched entries.
+     */
+    public DataListWidget<DATATYPE> setAsyncRefresh(boolean asyncRefresh)
+    {
+        this.asyncRefresh = asyncRefresh;
+        return this;
+    }
+
     public DataListWidget<DATATYPE> setFilterMatchesEmptyEntry(boolean matchesEmpty)
     {
         this.filterMatchesEmptyEntry = matchesEmpty;
@@ -124,10 +155,25 @@ public class DataListWidget<DATATYPE> extends BaseListWidget
      * Sets the entry filter function that is used to search for entries from the list.
      * The default filter just compares the {@link Object#toString()} value of an
      * entry to the search terms.
+     * Note: Setting a custom filter disables the use of the search index.
      */
     public DataListWidget<DATATYPE> setEntryFilter(EntryFilter<DATATYPE> filter)
     {
         this.entryFilter = filter;
+        this.useSearchIndex = false;
+        return this;
+    }
+
+    /**
+     * Sets whether the search index is used to pre-filter the entries, before the
+     * full filter check in {@link #entryMatchesFilter(Object, List)}. The index is used by default,
+     * unless a custom entry filter has been set, or {@link #defaultEntryFilter(Object, List)} is overridden.
+     * It should be disabled if {@link #entryMatchesFilter(Object, List)} is overridden
+     * to match entries that the default filter would not match.
+     */
+    public DataListWidget<DATATYPE> setUseSearchIndex(boolean useSearchIndex)
+    {
+        this.useSearchIndex = useSearchIndex;
         return this;
     }
 
@@ -138,6 +184,7 @@ public class DataListWidget<DATATYPE> extends BaseListWidget
     public DataListWidget<DATATYPE> setEntryFilterStringFunction(Function<DATATYPE, List<String>> function)
     {
         this.entrySearchStringFunction = function;
+        this.searchIndex.setSearchStringFunction(function);
         return this;
     }
 
@@ -357,7 +404,151 @@ public class DataListWidget<DATATYPE> extends BaseListWidget
         {
             this.fullDataList.clear();
             this.fullDataList.addAll(this.entrySupplier.get());
+
+            // The search strings of the re-fetched entries may have changed
+            this.searchIndex.invalidate();
+        }
+    }
+
+    @Override
+    public void refreshEntries()
+    {
+        if (this.asyncRefresh)
+        {
+            this.startAsyncRefresh(this.fetchFromSupplierOnRefresh);
+        }
+        else
+        {
+            super.refreshEntries();
+        }
+    }
+
+    @Override
+    public void refreshFilteredEntries()
+    {
+        if (this.asyncRefresh)
+        {
+            this.startAsyncRefresh(false);
+        }
+        else
+        {
+            super.refreshFilteredEntries();
+        }
+    }
+
+    /**
+     * Starts a refresh of the entries on a worker thread. The filter and sort settings
+     * are captured here, and the results are applied in {@link #applyPendingRefreshResult()}
+     * if no newer refresh has been started by then.
+     */
+    protected void startAsyncRefresh(boolean fetch)
+    {
+        final int version = ++this.refreshVersion;
+        @Nullable final List<DATATYPE> entries = fetch ? null : new ArrayList<>(this.getNonFilteredDataList());
+        final List<String> searchTerms = this.hasFilter() ? this.getSearchTerms() : Collections.emptyList();
+        @Nullable final Comparator<DATATYPE> comparator = this.shouldSortList() ? this.getComparator() : null;
+
+        Registry.DATA_TASK_SCHEDULER.executeAsync(() -> this.runAsyncRefresh(version, entries, searchTerms, comparator));
+    }
+
+    /**
+     * Runs on the worker thread
+     */
+    protected void runAsyncRefresh(int version, @Nullable List<DATATYPE> entries,
+                                   List<String> searchTerms, @Nullable Comparator<DATATYPE> comparator)
+    {
+        if (version != this.refreshVersion)
+        {
+            return;
+        }
+
+        @Nullable List<DATATYPE> fetchedEntries = null;
+
+        if (entries == null)
+        {
+            fetchedEntries = new ArrayList<>(this.entrySupplier.get());
+            entries = fetchedEntries;
+
+            // The search strings of the re-fetched entries may have changed
+            this.searchIndex.invalidate();
+        }
+
+        ArrayList<DATATYPE> filteredEntries = new ArrayList<>();
+        IntArrayList filteredIndices = new IntArrayList();
+
+        if (searchTerms.isEmpty() == false)
+        {
+            this.addFilteredContents(entries, searchTerms, filteredEntries, filteredIndices);
+        }
+        else
+        {
+            filteredEntries.addAll(entries);
+        }
+
+        if (version != this.refreshVersion)
+        {
+            return;
+        }
+
+        if (comparator != null)
+        {
+            sortEntryList(filteredEntries, comparator);
+        }
+
+        RefreshResult<DATATYPE> result = new RefreshResult<>(version, fetchedEntries, filteredEntries, filteredIndices);
+
+        // Don't replace the result of a newer refresh, if it happened to finish first
+        this.pendingRefreshResult.accumulateAndGet(result, (o, n) -> o == null || n.version > o.version ? n : o);
+    }
+
+    /**
+     * Swaps in the results of the last async refresh, if they are ready and still current
+     */
+    protected void applyPendingRefreshResult()
+    {
+        RefreshResult<DATATYPE> result = this.pendingRefreshResult.getAndSet(null);
+
+        if (result == null || result.version != this.refreshVersion)
+        {
+            return;
+        }
+
+        if (result.fetchedEntries != null)
+        {
+            this.fullDataList.clear();
+            this.fullDataList.addAll(result.fetchedEntries);
+        }
+
+        this.filteredDataList.clear();
+        this.filteredDataList.addAll(result.filteredEntries);
+        this.filteredIndices.clear();
+        this.filteredIndices.addAll(result.filteredIndices);
+
+        this.entryWidgetHeightCache.clear();
+        this.onEntriesRefreshed();
+        this.notifyListWidgetFactory();
+        this.reCreateListEntryWidgets();
+    }
+
+    @Override
+    public void onScreenClosed()
+    {
+        // Discard any running refresh
+        ++this.refreshVersion;
+        this.pendingRefreshResult.set(null);
+
+        super.onScreenClosed();
+    }
+
+    @Override
+    public void renderAt(int x, int y, float z, ScreenContext ctx)
+    {
+        if (this.asyncRefresh)
+        {
+            this.applyPendingRefreshResult();
         }
+
+        super.renderAt(x, y, z, ctx);
     }
 
     @Override
@@ -390,7 +581,39 @@ public class DataListWidget<DATATYPE> extends BaseListWidget
 
     protected void addFilteredContents(List<DATATYPE> entries)
     {
-        List<String> searchTerms = this.getSearchTerms();
+        this.addFilteredContents(entries, this.getSearchTerms(), this.filteredDataList, this.filteredIndices);
+    }
+
+    /**
+     * Adds the entries matching the search terms, and their original indices, to the given lists.
+     * This is also called from the worker thread in the async refresh mode.
+     */
+    protected void addFilteredContents(List<DATATYPE> entries, List<String> searchTerms,
+                                       List<DATATYPE> filteredEntriesOut, IntArrayList filteredIndicesOut)
+    {
+        // The entry filter field is protected, so it may also have been replaced without using the setter
+        if (this.useSearchIndex && this.entryFilter == this.defaultEntryFilterRef && searchTerms.isEmpty() == false)
+        {
+            // Only check the entries whose search strings match, the rest of
+            // the filter conditions (if any) are still checked for those entries
+            IntArrayList indices = this.searchIndex.getMatchingIndices(entries, searchTerms);
+            final int count = indices.size();
+
+            for (int i = 0; i < count; ++i)
+            {
+                int index = indices.getInt(i);
+                DATATYPE entry = entries.get(index);
+
+                if (this.entryMatchesFilter(entry, searchTerms))
+                {
+                    filteredEntriesOut.add(entry);
+                    filteredIndicesOut.add(index);
+                }
+            }
+
+            return;
+        }
+
         final int size = entries.size();
 
         for (int i = 0; i < size; ++i)
@@ -399,8 +622,8 @@ public class DataListWidget<DATATYPE> extends BaseListWidget
 
             if (this.entryMatchesFilter(entry, searchTerms))
             {
-                this.filteredDataList.add(entry);
-                this.filteredIndices.add(i);
+                filteredEntriesOut.add(entry);
+                filteredIndicesOut.add(i);
             }
         }
     }
@@ -424,12 +647,70 @@ public class DataListWidget<DATATYPE> extends BaseListWidget
             DataListEntryWidgetData constructData = new DataListEntryWidgetData(x, y,
                                         this.entryWidgetWidth, height, listIndex, originalDataIndex, this);
 
+            if (this.recyclableEntryWidgets.isEmpty() == false)
+            {
+                BaseListEntryWidget widget = this.getReboundListEntryWidget(entryData, constructData);
+
+                if (widget != null)
+                {
+                    return widget;
+                }
+            }
+
             return this.dataListEntryWidgetFactory.createWidget(entryData, constructData);
         }
 
         return null;
     }
 
+    /**
+     * Tries to re-bind one of the recyclable widgets to the given entry.
+     * Only widgets whose old entry is not going to be visible anymore are used,
+     * so that the widgets that can be re-used as is for their own entry don't get taken.
+     * Since the widgets are created in list order, the widgets of the entries before
+     * the current index won't be needed anymore. The widgets of the entries past the
+     * expected end of the new visible range (based on the previous visible entry count)
+     * are also assumed to not be needed.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    protected BaseListEntryWidget getReboundListEntryWidget(DATATYPE entryData, DataListEntryWidgetData constructData)
+    {
+        ArrayList<BaseListEntryWidget> widgets = this.recyclableEntryWidgets;
+        final int listIndex = constructData.listIndex;
+        final int visibleEnd = this.getListStartIndex() + this.visibleListEntries;
+        final int size = widgets.size();
+
+        for (int i = 0; i < size; ++i)
+        {
+            BaseListEntryWidget widget = widgets.get(i);
+            int oldIndex = widget.getDataListIndex();
+
+            if ((oldIndex < listIndex || oldIndex >= visibleEnd) &&
+                widget instanceof BaseDataListEntryWidget &&
+                ((BaseDataListEntryWidget<DATATYPE>) widget).canRebind(entryData))
+            {
+                widgets.remove(i);
+                widget.onAboutToDestroy();
+                ((BaseDataListEntryWidget<DATATYPE>) widget).rebind(entryData, constructData);
+                return widget;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    protected boolean canReuseListEntryWidget(BaseListEntryWidget widget, int listIndex)
+    {
+        List<DATATYPE> list = this.getFilteredDataList();
+
+        return super.canReuseListEntryWidget(widget, listIndex) &&
+               widget instanceof BaseDataListEntryWidget &&
+               listIndex < list.size() &&
+               ((BaseDataListEntryWidget<?>) widget).getData() == list.get(listIndex);
+    }
+
     @Override
     protected boolean onMouseClicked(int mouseX, int mouseY, int mouseButton)
     {
@@ -546,26 +827,42 @@ public class DataListWidget<DATATYPE> extends BaseListWidget
         return Arrays.asList(this.getFilterText().split("\\|"));
     }
 
+    /**
+     * Note: When the search index is used, then this is only called for the entries that
+     * match the default filter. Overrides of this method can thus only narrow down the matches,
+     * otherwise the search index needs to be disabled via {@link #setUseSearchIndex(boolean)}.
+     */
     protected boolean entryMatchesFilter(DATATYPE entry, List<String> searchTerms)
     {
         return searchTerms.isEmpty() || this.entryFilter.matches(entry, searchTerms);
     }
 
+    /**
+     * Note: Overriding this method disables the use of the search index, as the index
+     * replicates this default implementation.
+     */
     protected boolean defaultEntryFilter(DATATYPE entry, List<String> searchTerms)
     {
-        List<String> entrySearchTerms = this.entrySearchStringFunction.apply(entry);
+        return DataListSearchIndex.keysMatch(this.searchIndex.getSearchKeys(entry), searchTerms);
+    }
 
-        for (String entrySearchTerm : entrySearchTerms)
+    /**
+     * @return true if the given list widget class or any of its parent classes
+     *         below DataListWidget override {@link #defaultEntryFilter(Object, List)}
+     */
+    protected static boolean isDefaultEntryFilterOverridden(Class<?> clazz)
+    {
+        while (clazz != null && clazz != DataListWidget.class)
         {
-            entrySearchTerm = entrySearchTerm.toLowerCase(Locale.ROOT);
-
-            for (String searchTerm : searchTerms)
+            try
             {
-                if (entrySearchTerm.contains(searchTerm))
-                {
-                    return true;
-                }
+                // Overrides with a specific entry type also get an (Object, List) bridge method
+                clazz.getDeclaredMethod("defaultEntryFilter", Object.class, List.class);
+                return true;
             }
+            catch (NoSuchMethodException ignore) {}
+
+            clazz = clazz.getSuperclass();
         }
 
         return false;
@@ -585,6 +882,25 @@ public class DataListWidget<DATATYPE> extends BaseListWidget
         Comparator<DATATYPE> comparator = this.getComparator();
 
         if (comparator != null)
+        {
+            sortEntryList(list, comparator);
+        }
+    }
+
+    /**
+     * Sorts the given list, in parallel if the list is large
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void sortEntryList(List<T> list, Comparator<T> comparator)
+    {
+        if (list.size() >= PARALLEL_SORT_THRESHOLD)
+        {
+            T[] array = (T[]) list.toArray();
+            Arrays.parallelSort(array, comparator);
+            list.clear();
+            Collections.addAll(list, array);
+        }
+        else
         {
             list.sort(comparator);
         }
@@ -634,6 +950,23 @@ public class DataListWidget<DATATYPE> extends BaseListWidget
         return super.onEntryWidgetClicked(widget, mouseX, mouseY, mouseButton);
     }
 
+    protected static class RefreshResult<DATATYPE>
+    {
+        protected final int version;
+        @Nullable protected final List<DATATYPE> fetchedEntries;
+        protected final List<DATATYPE> filteredEntries;
+        protected final IntArrayList filteredIndices;
+
+        protected RefreshResult(int version, @Nullable List<DATATYPE> fetchedEntries,
+                                List<DATATYPE> filteredEntries, IntArrayList filteredIndices)
+        {
+            this.version = version;
+            this.fetchedEntries = fetchedEntries;
+            this.filteredEntries = filteredEntries;
+            this.filteredIndices = filteredIndices;
+        }
+    }
+
     public interface EntryFilter<T>
     {
         boolean matches(T entry, List<String> searchTerms);
@@ -7,7 +7,7 @@ import malilib.gui.widget.list.DataListWidget;
 
 public class BaseDataListEntryWidget<DATATYPE> extends BaseListEntryWidget
 {
-    protected final DATATYPE data;
+    protected DATATYPE data;
     @Nullable protected final DataListWidget<DATATYPE> listWidget;
 
     @SuppressWarnings("unchecked")
@@ -25,6 +25,30 @@ public class BaseDataListEntryWidget<DATATYPE> extends BaseListEntryWidget
         return this.data;
     }
 
+    /**
+     * @return true if this widget can be re-bound to the given data entry
+     *         via {@link #rebind(Object, DataListEntryWidgetData)}.
+     *         The default implementation doesn't support re-binding.
+     */
+    public boolean canRebind(DATATYPE data)
+    {
+        return false;
+    }
+
+    /**
+     * Re-binds this widget to a new data entry and list index.
+     * This is used by the recycling mode of the list widget, to re-use the widgets
+     * of entries that were scrolled out of view, instead of creating new widgets.
+     * Widgets that support this need to override both this and {@link #canRebind(Object)},
+     * and update all their data dependent state here after calling the super method.
+     */
+    public void rebind(DATATYPE data, DataListEntryWidgetData constructData)
+    {
+        this.data = data;
+        this.setListIndex(constructData.listIndex, constructData.originalListIndex);
+        this.setPositionAndSize(constructData.x, constructData.y, constructData.width, constructData.height);
+    }
+
     @Override
     protected boolean isSelected()
     {
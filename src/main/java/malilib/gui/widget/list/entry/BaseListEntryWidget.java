@@ -11,8 +11,8 @@ public class BaseListEntryWidget extends ContainerWidget
 {
     protected final BackgroundSettings selectedBgSettings = new BackgroundSettings(0x50FFFFFF);
     protected final BorderSettings selectedBorderSettings = new BorderSettings();
-    protected final int listIndex;
-    protected final int originalListIndex;
+    protected int listIndex;
+    protected int originalListIndex;
     protected boolean isOdd;
     protected int keyboardNavigationHighlightColor = 0xFFFF5000;
 
@@ -41,6 +41,19 @@ public class BaseListEntryWidget extends ContainerWidget
         this.isOdd = isOdd;
     }
 
+    /**
+     * Moves this widget to a different list index, when the widget gets re-bound to a new entry.
+     * Note: This only updates the isOdd value and the default background color,
+     * sub classes with their own list index dependent colors need to update those themselves.
+     */
+    protected void setListIndex(int listIndex, int originalListIndex)
+    {
+        this.listIndex = listIndex;
+        this.originalListIndex = originalListIndex;
+        this.setIsOdd((listIndex & 0x1) != 0);
+        this.getBackgroundRenderer().getNormalSettings().setColor(this.isOdd ? 0xC0101010 : 0xC0202020);
+    }
+
     /**
      * @return the list index of the data entry this widget corresponds to, in the backing data list.
      * This can be -1 if the widget does not correspond to a data entry.
@@ -52,7 +65,8 @@ public class BaseListEntryWidget extends ContainerWidget
 
     /**
      * This gets called from BaseListWidget before the widgets
-     * are cleared before being re-created. This allows for example
+     * are cleared before being re-created, or before the widget gets re-bound
+     * to a different entry in the recycling mode. This allows for example
      * config widgets to save their changes before being destroyed
      * when the list is scrolled after editing a value.
      */
@@ -1,6 +1,5 @@
 package malilib.gui.widget.list.entry;
 
-import java.nio.file.Files;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.Comparator;
@@ -22,7 +21,6 @@ import malilib.render.ShapeRenderUtils;
 import malilib.render.text.StyledTextLine;
 import malilib.render.text.StyledTextUtils;
 import malilib.util.FileNameUtils;
-import malilib.util.FileUtils;
 import malilib.util.StringUtils;
 import malilib.util.data.LeftRight;
 
@@ -34,18 +32,19 @@ public class DirectoryEntryWidget extends BaseDataListEntryWidget<DirectoryEntry
 
     public static final DataColumn<DirectoryEntry> SIZE_COLUMN =
             new DataColumn<>("malilib.label.file_browser.column.file_size",
-                             Comparator.comparingLong((e) -> FileUtils.size(e.getFullPath())));
+                             Comparator.comparingLong(DirectoryEntry::getSize));
 
     public static final DataColumn<DirectoryEntry> TIME_COLUMN =
             new DataColumn<>("malilib.label.file_browser.column.last_modified",
-                             Comparator.comparingLong((e) -> FileUtils.getMTime(e.getFullPath())));
+                             Comparator.comparingLong(DirectoryEntry::getLastModified));
 
     protected static final DecimalFormat FILE_SIZE_FORMAT = new DecimalFormat("###,###,###.#");
 
     protected final BaseFileBrowserWidget fileBrowserWidget;
-    protected final StyledTextLine fileSizeText;
-    protected final StyledTextLine modificationTimeText;
-    protected final StyledTextLine fullNameText;
+    @Nullable protected final FileBrowserIconProvider iconProvider;
+    protected StyledTextLine fileSizeText;
+    protected StyledTextLine modificationTimeText;
+    protected StyledTextLine fullNameText;
     @Nullable protected StyledTextLine clampedNameText;
     protected boolean showSize;
     protected boolean showMTime;
@@ -61,27 +60,50 @@ public class DirectoryEntryWidget extends BaseDataListEntryWidget<DirectoryEntry
 
         this.canReceiveMouseClicks = true;
         this.fileBrowserWidget = fileBrowserWidget;
+        this.iconProvider = iconProvider;
         this.getTextSettings().setTextShadowEnabled(false);
+        this.getBackgroundRenderer().getHoverSettings().setColor(0xFF404040);
+        this.getBorderRenderer().getHoverSettings().setEnabled(true);
+
+        this.updateEntryState();
+    }
+
+    @Override
+    public boolean canRebind(DirectoryEntry data)
+    {
+        return true;
+    }
+
+    @Override
+    public void rebind(DirectoryEntry data, DataListEntryWidgetData constructData)
+    {
+        super.rebind(data, constructData);
+
+        this.clampedNameText = null;
+        this.updateEntryState();
+    }
+
+    protected void updateEntryState()
+    {
+        DirectoryEntry entry = this.data;
 
         this.fullNameText = StyledTextLine.unParsed(this.getDisplayName());
         this.getBackgroundRenderer().getNormalSettings().setEnabledAndColor(true, this.isOdd ? 0xFF202020 : 0xFF303030);
-        this.getBackgroundRenderer().getHoverSettings().setColor(0xFF404040);
-        this.getBorderRenderer().getHoverSettings().setEnabled(true);
 
         int textXOffset = 3;
-        @Nullable Icon icon = iconProvider != null ? iconProvider.getIconForEntry(entry) : null;
+        @Nullable Icon icon = this.iconProvider != null ? this.iconProvider.getIconForEntry(entry) : null;
 
         if (icon != null)
         {
-            textXOffset += iconProvider.getEntryIconWidth(entry) + 2;
+            textXOffset += this.iconProvider.getEntryIconWidth(entry) + 2;
             this.iconOffset.setXOffset(2);
-            this.setIcon(icon);
         }
 
+        this.setIcon(icon);
         this.textOffset.setXOffset(textXOffset);
         this.fileSizeText = StyledTextLine.parseFirstLine(getFileSizeStringFor(entry));
 
-        String mTimeStr = fileBrowserWidget.getDateFormat().format(new Date(FileUtils.getMTime(entry.getFullPath())));
+        String mTimeStr = this.fileBrowserWidget.getDateFormat().format(new Date(entry.getLastModified()));
         this.modificationTimeText = StyledTextLine.parseFirstLine(mTimeStr);
     }
 
@@ -164,7 +186,7 @@ public class DirectoryEntryWidget extends BaseDataListEntryWidget<DirectoryEntry
 
     public static String getFileSizeStringFor(DirectoryEntry entry)
     {
-        long fileSize = FileUtils.size(entry.getFullPath());
+        long fileSize = entry.getSize();
         if (fileSize >= 1024 * 1024 * 1024)
             return FILE_SIZE_FORMAT.format((double) fileSize / 1024.0 / 1024.0 / 1024.0) + " GiB";
         if (fileSize >= 1024 * 1024)
@@ -191,7 +213,7 @@ public class DirectoryEntryWidget extends BaseDataListEntryWidget<DirectoryEntry
             {
                 int w = StringUtils.getStringWidth(getFileSizeStringFor(e));
                 maxSizeColumnLength = Math.max(maxSizeColumnLength, w);
-                w = StringUtils.getStringWidth(fmt.format(new Date(FileUtils.getMTime(e.getFullPath()))));
+                w = StringUtils.getStringWidth(fmt.format(new Date(e.getLastModified())));
                 maxTimeColumnLength = Math.max(maxTimeColumnLength, w);
             }
 
@@ -238,7 +260,7 @@ public class DirectoryEntryWidget extends BaseDataListEntryWidget<DirectoryEntry
                 {
                     DirectoryEntryWidget widget = (DirectoryEntryWidget) w;
 
-                    widget.showSize = this.showFileSize && Files.isRegularFile(widget.data.getFullPath());
+                    widget.showSize = this.showFileSize && widget.data.getType() == DirectoryEntryType.FILE;
                     widget.showMTime = this.showFileMTime;
                     widget.mTimeColumnEndX = timeColumnRight;
                     widget.sizeColumnEndX = sizeColumnRight;
@@ -3,6 +3,11 @@ package malilib.gui.widget.util;
 import java.nio.file.Path;
 import javax.annotation.Nullable;
 
+/**
+ * Remembers the last browsed directory of each file browser context.
+ * The directory contents (and their metadata) are cached and persisted separately,
+ * for all the file browsers, in {@link malilib.registry.Registry#DIRECTORY_LISTING_CACHE}.
+ */
 public interface DirectoryCache
 {
     @Nullable
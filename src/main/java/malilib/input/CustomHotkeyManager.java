@@ -48,6 +48,7 @@ public class CustomHotkeyManager implements HotkeyProvider
     public void removeCustomHotkey(CustomHotkeyDefinition hotkey)
     {
         this.hotkeys.remove(hotkey);
+        Registry.HOTKEY_MANAGER.removeKeyBind(hotkey.getKeyBind());
         this.dirty = true;
     }
 
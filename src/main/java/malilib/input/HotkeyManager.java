@@ -22,7 +22,24 @@ public interface HotkeyManager
     ImmutableList<HotkeyCategory> getHotkeyCategories();
 
     /**
-     * Causes the key -> keybinds map to be rebuilt for all registered hotkeys.
+     * Causes the key -> keybinds map to be updated for all registered hotkeys.
+     * Only the keybinds whose keys or priority have changed since the last update,
+     * and the keybinds that are no longer provided by any provider, get updated in the map.
      */
     void updateUsedKeys();
+
+    /**
+     * Updates the position of the given keybind in the key -> keybinds map,
+     * if its keys or priority have changed. This can be used to apply a change
+     * in a single keybind, without going through all the registered hotkeys.
+     * Keybinds that are not (yet) in the map, ie. that are not provided
+     * by any registered hotkey provider, are ignored.
+     * To add newly provided hotkeys to the map, use {@link #updateUsedKeys()}.
+     */
+    void updateKeyBind(KeyBind keyBind);
+
+    /**
+     * Removes the given keybind from the key -> keybinds map
+     */
+    void removeKeyBind(KeyBind keyBind);
 }
@@ -1,19 +1,31 @@
 package malilib.input;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import javax.annotation.Nullable;
 import com.google.common.collect.ImmutableList;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
 
 public class HotkeyManagerImpl implements HotkeyManager
 {
+    protected static final KeyBind[] EMPTY_KEYBINDS = new KeyBind[0];
+
     protected final List<HotkeyCategory> keyBindCategories = new ArrayList<>();
     protected final List<HotkeyProvider> keyBindProviders = new ArrayList<>();
-    protected Int2ObjectOpenHashMap<ArrayList<KeyBind>> hotkeyMap = new Int2ObjectOpenHashMap<>();
+    /**
+     * The keybinds using each key, sorted by their priority. The arrays are never modified
+     * after being put into the map, but instead replaced with new arrays, so that the arrays
+     * can be safely iterated in checkKeyBindsForChanges() even if a keybind callback triggers an update.
+     */
+    protected final Int2ObjectOpenHashMap<KeyBind[]> hotkeyMap = new Int2ObjectOpenHashMap<>();
+    protected final Reference2ObjectOpenHashMap<KeyBind, IndexEntry> indexedKeyBinds = new Reference2ObjectOpenHashMap<>();
+    protected final IntArrayList tmpKeyList = new IntArrayList();
     @Nullable protected ImmutableList<HotkeyCategory> immutableKeyBindCategories;
+    protected int updateGeneration;
+    protected int nextOrder;
 
     @Override
     public void registerHotkeyProvider(HotkeyProvider provider)
@@ -49,32 +61,150 @@ public class HotkeyManagerImpl implements HotkeyManager
     @Override
     public void updateUsedKeys()
     {
-        // Create a new map to avoid a CME in checkKeyBindsForChanges(),
-        // if the update is triggered from a keybind callback
-        Int2ObjectOpenHashMap<ArrayList<KeyBind>> hotkeyMap = new Int2ObjectOpenHashMap<>();
+        ++this.updateGeneration;
 
         for (HotkeyProvider handler : this.keyBindProviders)
         {
             for (Hotkey hotkey : handler.getAllHotkeys())
             {
-                this.addKeyBindToMap(hotkey.getKeyBind(), hotkeyMap);
+                this.indexKeyBind(hotkey.getKeyBind());
+            }
+        }
+
+        // Remove the keybinds that are no longer provided by any of the providers
+        List<KeyBind> removed = new ArrayList<>();
+
+        for (Reference2ObjectMap.Entry<KeyBind, IndexEntry> entry : this.indexedKeyBinds.reference2ObjectEntrySet())
+        {
+            if (entry.getValue().generation != this.updateGeneration)
+            {
+                removed.add(entry.getKey());
+            }
+        }
+
+        removed.forEach(this::removeKeyBind);
+    }
+
+    @Override
+    public void updateKeyBind(KeyBind keyBind)
+    {
+        if (this.indexedKeyBinds.containsKey(keyBind))
+        {
+            this.indexKeyBind(keyBind);
+        }
+    }
+
+    /**
+     * Adds the given keybind to the key -> keybinds map, or updates its position in the map
+     * if its keys or priority have changed
+     */
+    protected void indexKeyBind(KeyBind keyBind)
+    {
+        IndexEntry entry = this.indexedKeyBinds.get(keyBind);
+        int priority = keyBind.getSettings().getPriority();
+
+        this.tmpKeyList.clear();
+        keyBind.getKeysToList(this.tmpKeyList);
+
+        if (entry != null)
+        {
+            entry.generation = this.updateGeneration;
+
+            if (entry.priority == priority && entry.hasKeys(this.tmpKeyList))
+            {
+                return;
             }
+
+            this.removeFromKeyMap(keyBind, entry);
+        }
+        else
+        {
+            // The order is used to keep the registration order for keybinds with the same priority
+            entry = new IndexEntry(this.nextOrder++, this.updateGeneration);
+            this.indexedKeyBinds.put(keyBind, entry);
         }
 
-        hotkeyMap.values().forEach((list) -> list.sort(Comparator.comparingInt((v) -> v.getSettings().getPriority())));
-        this.hotkeyMap = hotkeyMap;
+        entry.keys = this.tmpKeyList.toIntArray();
+        entry.priority = priority;
+
+        this.addToKeyMap(keyBind, entry);
+    }
+
+    @Override
+    public void removeKeyBind(KeyBind keyBind)
+    {
+        IndexEntry entry = this.indexedKeyBinds.remove(keyBind);
+
+        if (entry != null)
+        {
+            this.removeFromKeyMap(keyBind, entry);
+        }
     }
 
-    protected void addKeyBindToMap(KeyBind keybind, Int2ObjectOpenHashMap<ArrayList<KeyBind>> hotkeyMap)
+    protected void addToKeyMap(KeyBind keyBind, IndexEntry entry)
     {
-        IntArrayList keys = new IntArrayList();
-        keybind.getKeysToList(keys);
-        final int size = keys.size();
+        for (int key : entry.keys)
+        {
+            KeyBind[] oldArr = this.hotkeyMap.get(key);
+
+            if (oldArr == null)
+            {
+                oldArr = EMPTY_KEYBINDS;
+            }
+
+            KeyBind[] newArr = new KeyBind[oldArr.length + 1];
+            int index = oldArr.length;
 
-        for (int i = 0; i < size; ++i)
+            // Find the insertion point to keep the array sorted by the priority
+            for (int i = 0; i < oldArr.length; ++i)
+            {
+                IndexEntry other = this.indexedKeyBinds.get(oldArr[i]);
+
+                if (other != null && entry.compareTo(other) < 0)
+                {
+                    index = i;
+                    break;
+                }
+            }
+
+            System.arraycopy(oldArr, 0, newArr, 0, index);
+            System.arraycopy(oldArr, index, newArr, index + 1, oldArr.length - index);
+            newArr[index] = keyBind;
+
+            this.hotkeyMap.put(key, newArr);
+        }
+    }
+
+    protected void removeFromKeyMap(KeyBind keyBind, IndexEntry entry)
+    {
+        for (int key : entry.keys)
         {
-            int key = keys.getInt(i);
-            hotkeyMap.computeIfAbsent(key, (k) -> new ArrayList<>()).add(keybind);
+            KeyBind[] oldArr = this.hotkeyMap.get(key);
+
+            if (oldArr == null)
+            {
+                continue;
+            }
+
+            for (int i = 0; i < oldArr.length; ++i)
+            {
+                if (oldArr[i] == keyBind)
+                {
+                    if (oldArr.length == 1)
+                    {
+                        this.hotkeyMap.remove(key);
+                    }
+                    else
+                    {
+                        KeyBind[] newArr = new KeyBind[oldArr.length - 1];
+                        System.arraycopy(oldArr, 0, newArr, 0, i);
+                        System.arraycopy(oldArr, i + 1, newArr, i, oldArr.length - i - 1);
+                        this.hotkeyMap.put(key, newArr);
+                    }
+
+                    break;
+                }
+            }
         }
     }
 
@@ -93,9 +223,9 @@ public class HotkeyManagerImpl implements HotkeyManager
     {
         boolean cancel = false;
         boolean isFirst = true;
-        List<KeyBind> keyBinds = this.hotkeyMap.get(eventKey);
+        KeyBind[] keyBinds = this.hotkeyMap.get(eventKey);
 
-        if (keyBinds != null && keyBinds.isEmpty() == false)
+        if (keyBinds != null)
         {
             for (KeyBind keyBind : keyBinds)
             {
@@ -113,4 +243,49 @@ public class HotkeyManagerImpl implements HotkeyManager
 
         return cancel;
     }
+
+    protected static class IndexEntry implements Comparable<IndexEntry>
+    {
+        protected final int order;
+        protected int[] keys = new int[0];
+        protected int priority;
+        protected int generation;
+
+        protected IndexEntry(int order, int generation)
+        {
+            this.order = order;
+            this.generation = generation;
+        }
+
+        protected boolean hasKeys(IntArrayList keys)
+        {
+            final int size = keys.size();
+
+            if (size != this.keys.length)
+            {
+                return false;
+            }
+
+            for (int i = 0; i < size; ++i)
+            {
+                if (keys.getInt(i) != this.keys[i])
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public int compareTo(IndexEntry other)
+        {
+            if (this.priority != other.priority)
+            {
+                return Integer.compare(this.priority, other.priority);
+            }
+
+            return Integer.compare(this.order, other.order);
+        }
+    }
 }
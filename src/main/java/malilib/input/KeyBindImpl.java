@@ -30,6 +30,7 @@ import malilib.util.game.wrap.GameUtils;
 public class KeyBindImpl implements KeyBind
 {
     private static final IntArrayList PRESSED_KEYS = new IntArrayList();
+    private static final KeyCodeBitSet PRESSED_KEY_SET = new KeyCodeBitSet();
 
     public static final KeyUpdateResult NO_ACTION = new KeyUpdateResult(false, false);
 
@@ -39,6 +40,7 @@ public class KeyBindImpl implements KeyBind
     private final IntArrayList defaultKeyCodes = new IntArrayList(4);
     private final IntArrayList keyCodes = new IntArrayList(4);
     private final IntArrayList lastSavedKeyCodes = new IntArrayList(4);
+    private KeyCodeBitSet.Mask keyMask = KeyCodeBitSet.Mask.EMPTY;
     @Nullable private HotkeyCallback callback;
     private KeyBindSettings lastSavedSettings;
     private KeyBindSettings settings;
@@ -54,6 +56,7 @@ public class KeyBindImpl implements KeyBind
         this.keyCodes.addAll(this.defaultKeyCodes);
         this.settings = settings;
 
+        this.updateKeyMask();
         this.cacheSavedValue();
     }
 
@@ -98,6 +101,7 @@ public class KeyBindImpl implements KeyBind
     {
         this.keyCodes.clear();
         this.pressed = false;
+        this.updateKeyMask();
     }
 
     @Override
@@ -111,6 +115,15 @@ public class KeyBindImpl implements KeyBind
     {
         this.keyCodes.clear();
         this.keyCodes.addAll(newKeys);
+        this.updateKeyMask();
+    }
+
+    /**
+     * Compiles the current keys into the bit mask used for the pressed keys check
+     */
+    private void updateKeyMask()
+    {
+        this.keyMask = new KeyCodeBitSet.Mask(this.keyCodes);
     }
 
     @Override
@@ -160,6 +173,7 @@ public class KeyBindImpl implements KeyBind
     {
         this.keyCodes.clear();
         this.keyCodes.addAll(this.defaultKeyCodes);
+        this.updateKeyMask();
     }
 
     @Override
@@ -179,6 +193,7 @@ public class KeyBindImpl implements KeyBind
     {
         this.clearKeys();
         this.keyCodes.addAll(Keys.readKeysFromStorageString(str));
+        this.updateKeyMask();
     }
 
     @Override
@@ -241,34 +256,36 @@ public class KeyBindImpl implements KeyBind
         final int sizePressed = PRESSED_KEYS.size();
         final int sizeRequired = this.keyCodes.size();
 
-        if (sizePressed >= sizeRequired && (allowExtraKeys || sizePressed == sizeRequired))
+        if (sizePressed >= sizeRequired && (allowExtraKeys || sizePressed == sizeRequired) &&
+            PRESSED_KEY_SET.containsAll(this.keyMask))
         {
-            this.pressed = PRESSED_KEYS.containsAll(this.keyCodes);
-            final int pressedSize = PRESSED_KEYS.size();;
-            int keyCodeIndex = 0;
+            this.pressed = true;
 
-            for (int i = 0; i < pressedSize; ++i)
+            // Without the order sensitivity, the sequence check below can only fail
+            // if the keybind has the same key multiple times and no extra keys are allowed
+            if (this.settings.isOrderSensitive() || (allowExtraKeys == false && this.keyMask.hasDuplicateKeys))
             {
-                int keyCode = PRESSED_KEYS.getInt(i);
+                int keyCodeIndex = 0;
 
-                if (this.keyCodes.getInt(keyCodeIndex) == keyCode)
+                for (int i = 0; i < sizePressed; ++i)
                 {
-                    // Fully matched keybind
-                    if (++keyCodeIndex >= sizeRequired)
+                    int keyCode = PRESSED_KEYS.getInt(i);
+
+                    if (this.keyCodes.getInt(keyCodeIndex) == keyCode)
+                    {
+                        // Fully matched keybind
+                        if (++keyCodeIndex >= sizeRequired)
+                        {
+                            break;
+                        }
+                    }
+                    else if ((this.settings.isOrderSensitive() && (keyCodeIndex > 0 || sizePressed == sizeRequired)) ||
+                             (this.keyCodes.contains(keyCode) == false && allowExtraKeys == false))
                     {
+                        this.pressed = false;
                         break;
                     }
                 }
-                else if ((this.settings.isOrderSensitive() && (keyCodeIndex > 0 || sizePressed == sizeRequired)) ||
-                         (this.keyCodes.contains(keyCode) == false && allowExtraKeys == false))
-                {
-                    /*
-                    System.out.printf("km fail: key: %s, ae: %s, aoo: %s, cont: %s, keys: %s, pressed: %s, triggeredCount: %d\n",
-                            keyCodeObj, allowExtraKeys, allowOutOfOrder, this.keyCodes.contains(keyCodeObj), this.keyCodes, pressedKeys, triggeredCount);
-                    */
-                    this.pressed = false;
-                    break;
-                }
             }
         }
         else
@@ -553,15 +570,18 @@ public class KeyBindImpl implements KeyBind
         {
             KeyBind ignoredKeys = MaLiLibConfigs.Hotkeys.IGNORED_KEYS.getKeyBind();
 
-            if (PRESSED_KEYS.contains(keyCode) == false &&
+            if (KeyCodeBitSet.isValidKeyCode(keyCode) &&
+                PRESSED_KEY_SET.contains(keyCode) == false &&
                 ignoredKeys.containsKey(keyCode) == false)
             {
                 PRESSED_KEYS.add(keyCode);
+                PRESSED_KEY_SET.add(keyCode);
             }
         }
-        else
+        else if (PRESSED_KEY_SET.contains(keyCode))
         {
             PRESSED_KEYS.rem(keyCode);
+            PRESSED_KEY_SET.remove(keyCode);
         }
 
         if (MaLiLibConfigs.Debug.PRESSED_KEYS_TOAST.getBooleanValue())
@@ -592,7 +612,17 @@ public class KeyBindImpl implements KeyBind
      */
     public static void reCheckPressedKeys()
     {
-        PRESSED_KEYS.removeIf((v) -> Keys.isKeyDown(v) == false);
+        // Iterate backwards to keep the order of the remaining keys while removing
+        for (int i = PRESSED_KEYS.size() - 1; i >= 0; --i)
+        {
+            int keyCode = PRESSED_KEYS.getInt(i);
+
+            if (Keys.isKeyDown(keyCode) == false)
+            {
+                PRESSED_KEYS.removeInt(i);
+                PRESSED_KEY_SET.remove(keyCode);
+            }
+        }
 
         // Clear the triggered count after all keys have been released
         if (PRESSED_KEYS.size() == 0)
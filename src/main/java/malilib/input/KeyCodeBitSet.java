@@ -0,0 +1,130 @@
+package malilib.input;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/**
+ * A bit set covering the whole key code space of the keybind system,
+ * ie. {@link Keys#MIN_KEY_CODE} to {@link Keys#MAX_KEY_CODE}.
+ * This allows testing the currently pressed keys against a keybind's
+ * pre-compiled {@link Mask} with just a few bit tests.
+ */
+public class KeyCodeBitSet
+{
+    protected static final int WORD_COUNT = ((Keys.MAX_KEY_CODE - Keys.MIN_KEY_CODE) >> 6) + 1;
+
+    protected final long[] words = new long[WORD_COUNT];
+
+    public static boolean isValidKeyCode(int keyCode)
+    {
+        return keyCode >= Keys.MIN_KEY_CODE && keyCode <= Keys.MAX_KEY_CODE;
+    }
+
+    public boolean contains(int keyCode)
+    {
+        if (isValidKeyCode(keyCode) == false)
+        {
+            return false;
+        }
+
+        int bit = keyCode - Keys.MIN_KEY_CODE;
+        return (this.words[bit >> 6] & (1L << bit)) != 0;
+    }
+
+    public void add(int keyCode)
+    {
+        if (isValidKeyCode(keyCode))
+        {
+            int bit = keyCode - Keys.MIN_KEY_CODE;
+            this.words[bit >> 6] |= 1L << bit;
+        }
+    }
+
+    public void remove(int keyCode)
+    {
+        if (isValidKeyCode(keyCode))
+        {
+            int bit = keyCode - Keys.MIN_KEY_CODE;
+            this.words[bit >> 6] &= ~(1L << bit);
+        }
+    }
+
+    /**
+     * @return true if all the keys of the given mask are in this set
+     */
+    public boolean containsAll(Mask mask)
+    {
+        if (mask.valid == false)
+        {
+            return false;
+        }
+
+        final int[] wordIndices = mask.wordIndices;
+        final long[] wordBits = mask.wordBits;
+
+        for (int i = 0; i < wordIndices.length; ++i)
+        {
+            long bits = wordBits[i];
+
+            if ((this.words[wordIndices[i]] & bits) != bits)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * A pre-compiled sparse bit mask of the keys of one keybind.
+     * Only the words of the full key code bit set that contain some of the keys are stored.
+     */
+    public static class Mask
+    {
+        public static final Mask EMPTY = new Mask(new IntArrayList());
+
+        protected final int[] wordIndices;
+        protected final long[] wordBits;
+        /** false if some of the keys are outside the valid key code range, and thus can't ever be pressed */
+        protected final boolean valid;
+        /** true if some key is in the key list multiple times */
+        public final boolean hasDuplicateKeys;
+
+        public Mask(IntArrayList keyCodes)
+        {
+            IntArrayList wordIndices = new IntArrayList(2);
+            long[] wordBits = new long[keyCodes.size()];
+            boolean valid = true;
+            boolean duplicates = false;
+
+            for (int i = 0; i < keyCodes.size(); ++i)
+            {
+                int keyCode = keyCodes.getInt(i);
+
+                if (isValidKeyCode(keyCode) == false)
+                {
+                    valid = false;
+                    continue;
+                }
+
+                int bit = keyCode - Keys.MIN_KEY_CODE;
+                int wordIndex = bit >> 6;
+                int index = wordIndices.indexOf(wordIndex);
+
+                if (index == -1)
+                {
+                    index = wordIndices.size();
+                    wordIndices.add(wordIndex);
+                }
+
+                duplicates |= (wordBits[index] & (1L << bit)) != 0;
+                wordBits[index] |= 1L << bit;
+            }
+
+            this.wordIndices = wordIndices.toIntArray();
+            this.wordBits = new long[this.wordIndices.length];
+            System.arraycopy(wordBits, 0, this.wordBits, 0, this.wordIndices.length);
+            this.valid = valid;
+            this.hasDuplicateKeys = duplicates;
+        }
+    }
+}
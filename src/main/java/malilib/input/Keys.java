@@ -138,6 +138,14 @@ public class Keys
     public static final int KEY_SCROLL_LOCK     = Keyboard.KEY_SCROLL; // ?
     public static final int KEY_NUM_LOCK        = Keyboard.KEY_NUMLOCK;
     public static final int KEY_PAUSE           = Keyboard.KEY_PAUSE;
+    /**
+     * The range of key codes used by the keybind system. The keyboard keys are 1 - 255,
+     * the char-only keys are 256 + the char value, the mouse buttons are button - 100,
+     * and the mouse scroll is -201 and -199.
+     */
+    public static final int MIN_KEY_CODE = -256;
+    public static final int MAX_KEY_CODE = 65535 + 256;
+
     /*
     public static final int KEY_WORLD_1         = Keyboard.KEY_WORLD_1;
     public static final int KEY_WORLD_2         = Keyboard.KEY_WORLD_2;
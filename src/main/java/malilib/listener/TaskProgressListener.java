@@ -0,0 +1,11 @@
+package malilib.listener;
+
+public interface TaskProgressListener
+{
+    /**
+     * Called when a task wants to inform a listener about the progress of the task
+     * @param processedCount the number of data entries processed so far
+     * @param totalCount the total number of data entries in the task
+     */
+    void onTaskProgress(int processedCount, int totalCount);
+}
@@ -40,6 +40,7 @@ public class ClientPacketChannelHandlerImpl implements ClientPacketChannelHandle
             if (this.handlers.containsEntry(channel, handler) == false)
             {
                 this.handlers.put(channel, handler);
+                this.updateCompressionThreshold(channel);
 
                 if (handler.registerToServer())
                 {
@@ -61,9 +62,14 @@ public class ClientPacketChannelHandlerImpl implements ClientPacketChannelHandle
 
         for (ResourceLocation channel : handler.getChannels())
         {
-            if (this.handlers.remove(channel, handler) && handler.registerToServer())
+            if (this.handlers.remove(channel, handler))
             {
-                toUnRegister.add(channel);
+                this.updateCompressionThreshold(channel);
+
+                if (handler.registerToServer())
+                {
+                    toUnRegister.add(channel);
+                }
             }
         }
 
@@ -73,6 +79,28 @@ public class ClientPacketChannelHandlerImpl implements ClientPacketChannelHandle
         }
     }
 
+    /**
+     * Sets the compression threshold of the given channel based on the handlers
+     * currently registered for the channel. The compression is enabled if any of the
+     * handlers opts in to it, and the smallest threshold of those handlers is used.
+     */
+    protected void updateCompressionThreshold(ResourceLocation channel)
+    {
+        int threshold = -1;
+
+        for (PluginChannelHandler handler : this.handlers.get(channel))
+        {
+            int handlerThreshold = handler.getCompressionThreshold();
+
+            if (handler.usePacketSplitter() && handlerThreshold >= 0)
+            {
+                threshold = threshold >= 0 ? Math.min(threshold, handlerThreshold) : handlerThreshold;
+            }
+        }
+
+        PacketSplitter.setCompressionThreshold(channel, threshold);
+    }
+
     /**
      * NOT PUBLIC API - DO NOT CALL
      */
@@ -83,13 +111,24 @@ public class ClientPacketChannelHandlerImpl implements ClientPacketChannelHandle
 
         if (handlers.isEmpty() == false)
         {
+            // The split packet parts must only be fed to the PacketSplitter once,
+            // even if there are multiple handlers for the same channel
+            PacketBuffer splitBuf = null;
+            boolean splitReceived = false;
+
             for (PluginChannelHandler handler : handlers)
             {
                 PacketBuffer buf;
 
                 if (handler.usePacketSplitter())
                 {
-                    buf = PacketSplitter.receive(netHandler, packet);
+                    if (splitReceived == false)
+                    {
+                        splitBuf = PacketSplitter.receive(netHandler, packet);
+                        splitReceived = true;
+                    }
+
+                    buf = splitBuf != null ? PacketUtils.retainedSlice(splitBuf) : null;
                 }
                 else
                 {
@@ -104,6 +143,11 @@ public class ClientPacketChannelHandlerImpl implements ClientPacketChannelHandle
                 }
             }
 
+            if (splitBuf != null)
+            {
+                splitBuf.release();
+            }
+
             return true;
         }
 
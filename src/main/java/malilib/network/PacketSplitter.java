@@ -1,9 +1,16 @@
 package malilib.network;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 import javax.annotation.Nullable;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -14,6 +21,8 @@ import net.minecraft.network.play.client.CPacketCustomPayload;
 import net.minecraft.network.play.server.SPacketCustomPayload;
 import net.minecraft.util.ResourceLocation;
 
+import malilib.MaLiLib;
+
 /**
  * Network packet splitter code from QuickCarpet by skyrising
  * @author skyrising
@@ -26,40 +35,156 @@ public class PacketSplitter
     public static final int MAX_PAYLOAD_PER_PACKET_C2S = MAX_TOTAL_PER_PACKET_C2S - 5;
     public static final int DEFAULT_MAX_RECEIVE_SIZE_C2S = 1048576;
     public static final int DEFAULT_MAX_RECEIVE_SIZE_S2C = 67108864;
+    public static final long DEFAULT_SESSION_TIMEOUT_MS = 30000L;
+    public static final int MAX_READING_SESSIONS = 64;
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+    private static final byte MODE_UNCOMPRESSED = 0;
+    private static final byte MODE_DEFLATE = 1;
 
     private static final Map<Pair<INetHandler, ResourceLocation>, ReadingSession> READING_SESSIONS = new HashMap<>();
+    private static final Map<ResourceLocation, ChannelLimits> CHANNEL_LIMITS = new HashMap<>();
+    private static final Map<ResourceLocation, Integer> COMPRESSION_THRESHOLDS = new HashMap<>();
+    private static final ChannelLimits DEFAULT_LIMITS = new ChannelLimits(DEFAULT_MAX_RECEIVE_SIZE_S2C, DEFAULT_SESSION_TIMEOUT_MS);
+
+    /**
+     * Sets the receive limits for the given channel.
+     * @param maxReceiveSize the maximum total size of a split packet in bytes
+     * @param sessionTimeoutMs the time after which an incomplete split packet
+     *                         will be discarded, if no more parts have been received for it
+     */
+    public static void setChannelLimits(ResourceLocation channel, int maxReceiveSize, long sessionTimeoutMs)
+    {
+        CHANNEL_LIMITS.put(channel, new ChannelLimits(maxReceiveSize, sessionTimeoutMs));
+    }
+
+    /**
+     * Enables or disables the compression of the split packets on the given channel.
+     * <br><br>
+     * Note: This is a static per-channel opt-in, nothing is negotiated with the other end.
+     * The other end of the connection must use the same setting for the channel,
+     * as the compressed packets have an additional header byte for the compression mode.
+     * The value is recalculated from {@link PluginChannelHandler#getCompressionThreshold()}
+     * whenever a handler for the channel is registered or unregistered.
+     * @param threshold the minimum payload size in bytes to compress,
+     *                  or a negative value to disable compression on the channel
+     */
+    public static void setCompressionThreshold(ResourceLocation channel, int threshold)
+    {
+        if (threshold >= 0)
+        {
+            COMPRESSION_THRESHOLDS.put(channel, threshold);
+        }
+        else
+        {
+            COMPRESSION_THRESHOLDS.remove(channel);
+        }
+    }
+
+    public static boolean isCompressionEnabled(ResourceLocation channel)
+    {
+        return COMPRESSION_THRESHOLDS.containsKey(channel);
+    }
 
     public static void send(ResourceLocation channel,
                             PacketBuffer packet,
                             NetHandlerPlayClient networkHandler)
     {
+        Integer threshold = COMPRESSION_THRESHOLDS.get(channel);
+
+        if (threshold != null)
+        {
+            packet = compress(packet, threshold);
+        }
+
         send(packet, MAX_PAYLOAD_PER_PACKET_C2S,
              buf -> networkHandler.sendPacket(new CPacketCustomPayload(channel.toString(), buf)));
     }
 
+    /**
+     * Prepends the compression mode header to the packet, and compresses
+     * the payload if it's at least <b>threshold</b> bytes in size.
+     * This releases the original packet.
+     */
+    private static PacketBuffer compress(PacketBuffer packet, int threshold)
+    {
+        final int size = packet.writerIndex();
+        PacketBuffer out;
+
+        if (size < threshold)
+        {
+            out = new PacketBuffer(Unpooled.buffer(size + 1));
+            out.writeByte(MODE_UNCOMPRESSED);
+            out.writeBytes(packet, 0, size);
+        }
+        else
+        {
+            byte[] input = new byte[size];
+            byte[] chunk = new byte[8192];
+            Deflater deflater = new Deflater();
+
+            packet.getBytes(0, input);
+            out = new PacketBuffer(Unpooled.buffer(size / 2 + 16));
+            out.writeByte(MODE_DEFLATE);
+            out.writeVarInt(size);
+
+            deflater.setInput(input);
+            deflater.finish();
+
+            while (deflater.finished() == false)
+            {
+                int length = deflater.deflate(chunk);
+                out.writeBytes(chunk, 0, length);
+            }
+
+            deflater.end();
+        }
+
+        packet.release();
+
+        return out;
+    }
+
     private static void send(PacketBuffer packet,
                              int payloadLimit,
                              Consumer<PacketBuffer> sender)
     {
         int totalSize = packet.writerIndex();
+        // The packets are sent asynchronously on the network thread, and the game never releases them.
+        // Thus the payload can only be sliced without copying, if the memory is freed by the GC anyway.
+        boolean canSlice = packet.hasArray() && (packet.alloc() instanceof PooledByteBufAllocator) == false;
 
         packet.resetReaderIndex();
 
         for (int offset = 0; offset < totalSize; offset += payloadLimit)
         {
             int packetSize = Math.min(totalSize - offset, payloadLimit);
-            PacketBuffer buf = new PacketBuffer(Unpooled.buffer(packetSize));
+            ByteBuf buf;
 
-            buf.resetWriterIndex();
-
-            if (offset == 0)
+            if (canSlice)
             {
-                buf.writeVarInt(totalSize);
+                buf = packet.retainedSlice(offset, packetSize);
+
+                if (offset == 0)
+                {
+                    PacketBuffer header = new PacketBuffer(Unpooled.buffer(5));
+                    header.writeVarInt(totalSize);
+                    buf = Unpooled.wrappedBuffer(header, buf);
+                }
             }
+            else
+            {
+                buf = Unpooled.buffer(packetSize + (offset == 0 ? 5 : 0));
+
+                if (offset == 0)
+                {
+                    new PacketBuffer(buf).writeVarInt(totalSize);
+                }
 
-            buf.writeBytes(packet, packetSize);
+                buf.writeBytes(packet, offset, packetSize);
+            }
 
-            sender.accept(buf);
+            sender.accept(new PacketBuffer(buf));
         }
 
         packet.release();
@@ -69,56 +194,284 @@ public class PacketSplitter
     public static PacketBuffer receive(NetHandlerPlayClient networkHandler,
                                        SPacketCustomPayload message)
     {
-        return receive(networkHandler, message, DEFAULT_MAX_RECEIVE_SIZE_S2C);
+        ResourceLocation channel = new ResourceLocation(message.getChannelName());
+        ChannelLimits limits = CHANNEL_LIMITS.getOrDefault(channel, DEFAULT_LIMITS);
+
+        return receive(networkHandler, channel, message, limits);
     }
 
     @Nullable
     private static PacketBuffer receive(NetHandlerPlayClient networkHandler,
+                                        ResourceLocation channel,
                                         SPacketCustomPayload message,
-                                        int maxLength)
+                                        ChannelLimits limits)
+    {
+        final long currentTime = System.currentTimeMillis();
+        Pair<INetHandler, ResourceLocation> key = Pair.of(networkHandler, channel);
+
+        evictStaleSessions(currentTime);
+
+        ReadingSession session = READING_SESSIONS.get(key);
+
+        if (session == null)
+        {
+            if (READING_SESSIONS.size() >= MAX_READING_SESSIONS)
+            {
+                throw new IllegalStateException("Too many concurrent split packets");
+            }
+
+            session = new ReadingSession(key, limits, COMPRESSION_THRESHOLDS.containsKey(channel));
+            READING_SESSIONS.put(key, session);
+        }
+
+        try
+        {
+            return session.receive(PacketUtils.slice(message.getBufferData()), currentTime);
+        }
+        catch (RuntimeException e)
+        {
+            READING_SESSIONS.remove(key);
+            session.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Discards any incomplete split packets which haven't
+     * received new parts within the timeout of their channel
+     */
+    public static void evictStaleSessions()
     {
-        Pair<INetHandler, ResourceLocation> key = Pair.of(networkHandler,
-                                                          new ResourceLocation(message.getChannelName()));
+        evictStaleSessions(System.currentTimeMillis());
+    }
+
+    private static void evictStaleSessions(long currentTime)
+    {
+        Iterator<ReadingSession> iter = READING_SESSIONS.values().iterator();
+
+        while (iter.hasNext())
+        {
+            ReadingSession session = iter.next();
 
-        return READING_SESSIONS.computeIfAbsent(key, ReadingSession::new)
-                .receive(PacketUtils.slice(message.getBufferData()), maxLength);
+            if (currentTime - session.lastReceiveTime > session.limits.sessionTimeoutMs)
+            {
+                MaLiLib.debugLog("PacketSplitter: Discarding a timed out incomplete packet on channel '{}'",
+                                 session.key.getRight());
+                session.release();
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Discards all incomplete split packets. Called when exiting a world.
+     */
+    public static void clearReadingSessions()
+    {
+        READING_SESSIONS.values().forEach(ReadingSession::release);
+        READING_SESSIONS.clear();
+    }
+
+    private static class ChannelLimits
+    {
+        private final int maxReceiveSize;
+        private final long sessionTimeoutMs;
+
+        private ChannelLimits(int maxReceiveSize, long sessionTimeoutMs)
+        {
+            this.maxReceiveSize = maxReceiveSize;
+            this.sessionTimeoutMs = sessionTimeoutMs;
+        }
     }
 
     private static class ReadingSession
     {
         private final Pair<INetHandler, ResourceLocation> key;
+        private final ChannelLimits limits;
+        private final boolean compressionEnabled;
         private int expectedSize = -1;
-        private PacketBuffer received;
+        private int receivedSize;
+        private long lastReceiveTime;
+        @Nullable private CompositeByteBuf received;
+        @Nullable private Inflater inflater;
+        @Nullable private ByteBuf inflated;
 
-        private ReadingSession(Pair<INetHandler, ResourceLocation> key)
+        private ReadingSession(Pair<INetHandler, ResourceLocation> key, ChannelLimits limits, boolean compressionEnabled)
         {
             this.key = key;
+            this.limits = limits;
+            this.compressionEnabled = compressionEnabled;
         }
 
         @Nullable
-        private PacketBuffer receive(PacketBuffer data, int maxLength)
+        private PacketBuffer receive(PacketBuffer data, long currentTime)
         {
+            this.lastReceiveTime = currentTime;
+
             if (this.expectedSize < 0)
             {
                 this.expectedSize = data.readVarInt();
 
-                if (this.expectedSize > maxLength)
+                if (this.expectedSize > this.limits.maxReceiveSize)
                 {
                     throw new IllegalArgumentException("Payload too large");
                 }
+            }
 
-                this.received = new PacketBuffer(Unpooled.buffer(this.expectedSize));
+            int size = data.readableBytes();
+
+            if (this.receivedSize + size > this.expectedSize)
+            {
+                throw new IllegalArgumentException("Received more data than expected");
             }
 
-            this.received.writeBytes(data.readBytes(data.readableBytes()));
+            boolean firstPart = this.receivedSize == 0;
+            this.receivedSize += size;
+
+            if (firstPart && size > 0)
+            {
+                this.readPayloadHeader(data);
+                size = data.readableBytes();
+            }
 
-            if (this.received.writerIndex() >= this.expectedSize)
+            if (this.inflater != null)
+            {
+                this.inflate(data);
+            }
+            // Keep a reference to the received data instead of copying it
+            else if (size > 0)
+            {
+                this.received.addComponent(true, data.retainedSlice(data.readerIndex(), size));
+            }
+
+            if (this.receivedSize >= this.expectedSize)
             {
                 READING_SESSIONS.remove(this.key);
-                return this.received;
+                return this.finish();
             }
 
             return null;
         }
+
+        private void readPayloadHeader(PacketBuffer data)
+        {
+            byte mode = this.compressionEnabled ? data.readByte() : MODE_UNCOMPRESSED;
+
+            if (mode == MODE_DEFLATE)
+            {
+                int uncompressedSize = data.readVarInt();
+
+                if (uncompressedSize < 0 || uncompressedSize > this.limits.maxReceiveSize)
+                {
+                    throw new IllegalArgumentException("Payload too large");
+                }
+
+                this.inflater = new Inflater();
+                this.inflated = Unpooled.buffer(uncompressedSize, uncompressedSize);
+            }
+            else if (mode == MODE_UNCOMPRESSED)
+            {
+                this.received = PooledByteBufAllocator.DEFAULT.compositeBuffer(Integer.MAX_VALUE);
+            }
+            else
+            {
+                throw new IllegalArgumentException("Invalid compression mode: " + mode);
+            }
+        }
+
+        private void inflate(ByteBuf data)
+        {
+            final int length = data.readableBytes();
+            final byte[] input;
+            final int offset;
+
+            if (length <= 0)
+            {
+                return;
+            }
+
+            if (data.hasArray())
+            {
+                input = data.array();
+                offset = data.arrayOffset() + data.readerIndex();
+            }
+            else
+            {
+                input = new byte[length];
+                offset = 0;
+                data.getBytes(data.readerIndex(), input);
+            }
+
+            ByteBuf out = this.inflated;
+            this.inflater.setInput(input, offset, length);
+
+            try
+            {
+                while (this.inflater.needsInput() == false && this.inflater.finished() == false)
+                {
+                    if (out.writableBytes() <= 0 || this.inflater.needsDictionary())
+                    {
+                        throw new IllegalArgumentException("Invalid compressed data");
+                    }
+
+                    int count = this.inflater.inflate(out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes());
+                    out.writerIndex(out.writerIndex() + count);
+                }
+            }
+            catch (DataFormatException e)
+            {
+                throw new IllegalArgumentException("Invalid compressed data", e);
+            }
+        }
+
+        private PacketBuffer finish()
+        {
+            ByteBuf buf;
+
+            if (this.inflater != null)
+            {
+                boolean complete = this.inflater.finished() && this.inflated.writableBytes() == 0;
+
+                this.inflater.end();
+                this.inflater = null;
+
+                if (complete == false)
+                {
+                    this.release();
+                    throw new IllegalArgumentException("Compressed data size mismatch");
+                }
+
+                buf = this.inflated;
+                this.inflated = null;
+            }
+            else
+            {
+                buf = this.received != null ? this.received : Unpooled.EMPTY_BUFFER;
+                this.received = null;
+            }
+
+            return new PacketBuffer(buf);
+        }
+
+        private void release()
+        {
+            if (this.received != null)
+            {
+                this.received.release();
+                this.received = null;
+            }
+
+            if (this.inflater != null)
+            {
+                this.inflater.end();
+                this.inflater = null;
+            }
+
+            if (this.inflated != null)
+            {
+                this.inflated.release();
+                this.inflated = null;
+            }
+        }
     }
 }
@@ -21,6 +21,21 @@ public interface PluginChannelHandler
      */
     boolean usePacketSplitter();
 
+    /**
+     * @return the minimum payload size in bytes, above which the split packets on the
+     * channels of this handler are Deflate compressed, or -1 to not use compression.
+     * Only used if {@link #usePacketSplitter()} returns true.
+     * If several handlers are registered for the same channel, then the compression
+     * is enabled if any of them opts in to it, using the smallest threshold.
+     * Note: This is a static opt-in, there is no capability exchange with the server.
+     * The other end of the connection must also be configured to expect compressed packets
+     * on the channels, as the payloads will have an additional header byte for the compression mode.
+     */
+    default int getCompressionThreshold()
+    {
+        return -1;
+    }
+
     /**
      * @return a list of message channels this handler can handle
      */
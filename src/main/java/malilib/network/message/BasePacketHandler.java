@@ -6,6 +6,7 @@ public abstract class BasePacketHandler implements PluginChannelHandler
 {
     protected boolean registerToServer;
     protected boolean usePacketSplitter;
+    protected int compressionThreshold = -1;
 
     @Override
     public boolean usePacketSplitter()
@@ -13,6 +14,12 @@ public abstract class BasePacketHandler implements PluginChannelHandler
         return this.usePacketSplitter;
     }
 
+    @Override
+    public int getCompressionThreshold()
+    {
+        return this.compressionThreshold;
+    }
+
     @Override
     public boolean registerToServer()
     {
@@ -30,6 +30,8 @@ public class InfoOverlay implements PostGameOverlayRenderer, PostScreenRenderer,
     protected final List<InfoRendererWidget> enabledGuiWidgets = new ArrayList<>();
     protected final List<InfoRendererWidget> allEnabledWidgets = new ArrayList<>();
     protected final List<InfoArea> activeInfoAreas = new ArrayList<>();
+    // The overlay widgets are not interactive, and the ScreenContext is immutable, so it can be shared by all the frames
+    protected final ScreenContext screenContext = new ScreenContext(0, 0, -1, true);
     protected boolean needsReFetch;
 
     public InfoArea getOrCreateInfoArea(ScreenLocation location)
@@ -151,7 +153,7 @@ public class InfoOverlay implements PostGameOverlayRenderer, PostScreenRenderer,
         {
             boolean isScreenOpen = GuiUtils.getCurrentScreen() != null;
             boolean debug = MaLiLibConfigs.Debug.INFO_OVERLAY_DEBUG.getBooleanValue();
-            ScreenContext screenContext = new ScreenContext(0, 0, -1, true);
+            ScreenContext screenContext = this.screenContext;
 
             if (debug)
             {
@@ -185,7 +187,7 @@ public class InfoOverlay implements PostGameOverlayRenderer, PostScreenRenderer,
     {
         boolean isScreenOpen = GuiUtils.getCurrentScreen() != null;
         boolean debug = MaLiLibConfigs.Debug.INFO_OVERLAY_DEBUG.getBooleanValue();
-        ScreenContext screenCtx = new ScreenContext(0, 0, -1, true);
+        ScreenContext screenCtx = this.screenContext;
         RenderUtils.disableItemLighting();
 
         if (debug)
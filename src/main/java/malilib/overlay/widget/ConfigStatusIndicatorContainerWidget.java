@@ -9,10 +9,8 @@ import java.util.Set;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import org.lwjgl.opengl.GL11;
 
 import net.minecraft.client.renderer.BufferBuilder;
-import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 
 import malilib.MaLiLibReference;
 import malilib.config.option.ConfigInfo;
@@ -32,7 +30,6 @@ import malilib.input.KeyBind;
 import malilib.input.SimpleHotkeyProvider;
 import malilib.overlay.widget.sub.BaseConfigStatusIndicatorWidget;
 import malilib.registry.Registry;
-import malilib.render.RenderUtils;
 import malilib.render.ShapeRenderUtils;
 import malilib.render.text.MultiLineTextRenderSettings;
 import malilib.util.data.ConfigOnTab;
@@ -54,6 +51,7 @@ public class ConfigStatusIndicatorContainerWidget extends InfoRendererWidget
         this.hotkey.getKeyBind().setCallback(this::toggleIndicatorGroupEnabled);
         this.hotkey.setModInfo(MaLiLibReference.MOD_INFO);
         this.shouldSerialize = true;
+        this.retainedShapeRendering = true;
     }
 
     @Override
@@ -239,10 +237,22 @@ public class ConfigStatusIndicatorContainerWidget extends InfoRendererWidget
     }
 
     @Override
-    protected void renderOddEvenTextLineBackgrounds(int x, int y, float z, ScreenContext ctx)
+    protected int getShapeGeometryHash()
     {
-        BufferBuilder buffer = RenderUtils.startBuffer(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR, false);
+        int hash = super.getShapeGeometryHash();
 
+        // The odd/even row backgrounds follow the heights of the enabled widgets
+        for (BaseConfigStatusIndicatorWidget<?> widget : this.enabledWidgets)
+        {
+            hash = 31 * hash + widget.getHeight();
+        }
+
+        return 31 * hash + this.enabledWidgets.size();
+    }
+
+    @Override
+    protected void renderOddEvenTextLineBackgrounds(int x, int y, float z, BufferBuilder buffer)
+    {
         MultiLineTextRenderSettings settings = this.getTextSettings();
         int bgColor = settings.getBackgroundColor();
         int bgColorOdd = settings.getOddRowBackgroundColor();
@@ -288,8 +298,6 @@ public class ConfigStatusIndicatorContainerWidget extends InfoRendererWidget
             ShapeRenderUtils.renderRectangle(x, y, z, width, height, color, buffer);
             y += height;
         }
-
-        RenderUtils.drawBuffer();
     }
 
     @Override
@@ -2,14 +2,18 @@ package malilib.overlay.widget;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.function.IntSupplier;
 import javax.annotation.Nullable;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import org.apache.commons.lang3.StringUtils;
+import org.lwjgl.opengl.GL11;
 
+import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.GlStateManager;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 
 import malilib.MaLiLibConfigs;
 import malilib.config.value.ScreenLocation;
@@ -24,6 +28,7 @@ import malilib.overlay.InfoOverlay;
 import malilib.overlay.InfoOverlay.OverlayRenderContext;
 import malilib.overlay.InfoWidgetRegistry.InfoWidgetFactory;
 import malilib.registry.Registry;
+import malilib.render.BakedShapeGeometry;
 import malilib.render.RenderUtils;
 import malilib.render.ShapeRenderUtils;
 import malilib.render.text.MultiLineTextRenderSettings;
@@ -43,12 +48,17 @@ public abstract class InfoRendererWidget extends BaseOverlayWidget
     protected IntSupplier viewportWidthSupplier = GuiUtils::getScaledWindowWidth;
     protected String name = "?";
     @Nullable protected StyledTextLine styledName;
+    @Nullable protected BakedShapeGeometry bakedShapeGeometry;
     protected boolean renderAboveScreen;
     protected boolean renderName;
+    protected boolean retainedShapeRendering;
     protected boolean shouldSerialize;
     protected boolean valid = true;
     protected double scale = 1.0;
     protected int sortIndex = 100;
+    protected int shapeGeometryHash;
+    protected int bakedShapeWidth;
+    protected int bakedShapeHeight;
 
     public InfoRendererWidget()
     {
@@ -115,6 +125,7 @@ public abstract class InfoRendererWidget extends BaseOverlayWidget
     public void toggleRenderName()
     {
         this.renderName = ! this.renderName;
+        this.markShapeGeometryDirty();
         this.requestUnconditionalReLayout();
     }
 
@@ -203,6 +214,30 @@ public abstract class InfoRendererWidget extends BaseOverlayWidget
     {
         this.name = name;
         this.styledName = StyledTextLine.parseFirstLine(name);
+        this.markShapeGeometryDirty();
+    }
+
+    /**
+     * Sets whether the background, border and text background shapes of this widget
+     * are baked into cached vertex data and then just replayed each frame.
+     * The baked shapes are only re-built when the shape geometry hash
+     * (see {@link #getShapeGeometryHash()}) changes in {@link #updateState()},
+     * when the size of the widget changes, or when {@link #markShapeGeometryDirty()} is called.
+     * So subclasses that enable this must include all the state that affects
+     * their shapes in the geometry hash.
+     */
+    public void setRetainedShapeRendering(boolean retainedShapeRendering)
+    {
+        this.retainedShapeRendering = retainedShapeRendering;
+        this.markShapeGeometryDirty();
+    }
+
+    /**
+     * Discards the baked shapes, so that they get re-built on the next render call
+     */
+    public void markShapeGeometryDirty()
+    {
+        this.bakedShapeGeometry = null;
     }
 
     /**
@@ -293,6 +328,33 @@ public abstract class InfoRendererWidget extends BaseOverlayWidget
         return isScreenOpen == false || (this.renderAboveScreen == (context == InfoOverlay.OverlayRenderContext.GUI));
     }
 
+    @Override
+    public void updateState()
+    {
+        super.updateState();
+
+        if (this.retainedShapeRendering)
+        {
+            int hash = this.getShapeGeometryHash();
+
+            if (hash != this.shapeGeometryHash)
+            {
+                this.shapeGeometryHash = hash;
+                this.markShapeGeometryDirty();
+            }
+        }
+    }
+
+    /**
+     * @return a hash of all the state that affects the background, border and text background shapes
+     *         of this widget, other than the widget size. Used to detect when the baked shapes need to be re-built.
+     */
+    protected int getShapeGeometryHash()
+    {
+        return Objects.hash(this.padding, this.renderName, this.styledName != null, this.getTextSettings(),
+                            this.getBackgroundSettings(), this.getBorderSettings());
+    }
+
     @Override
     public void renderAt(int x, int y, float z, ScreenContext ctx)
     {
@@ -317,9 +379,7 @@ public abstract class InfoRendererWidget extends BaseOverlayWidget
             z = 0f;
         }
 
-        this.renderWidgetBackground(x, y, z, ctx);
-        this.renderWidgetBorder(x, y, z, ctx);
-        this.renderTextBackground(x, y, z, ctx);
+        this.renderShapes(x, y, z, ctx);
         y += this.renderName(x, y, z, ctx);
         this.renderContents(x, y, z, ctx);
 
@@ -349,18 +409,125 @@ public abstract class InfoRendererWidget extends BaseOverlayWidget
         return 0;
     }
 
-    protected void renderWidgetBackground(int x, int y, float z, ScreenContext ctx)
+    /**
+     * Renders the background, border and text background shapes of this widget,
+     * either from the baked vertex data if retained shape rendering is enabled,
+     * or otherwise directly via the ScreenContext variants of the shape rendering methods.
+     */
+    protected void renderShapes(int x, int y, float z, ScreenContext ctx)
+    {
+        if (this.retainedShapeRendering)
+        {
+            this.getOrBakeShapeGeometry().renderAt(x, y, z);
+        }
+        else
+        {
+            this.renderWidgetBackground(x, y, z, ctx);
+            this.renderWidgetBorder(x, y, z, ctx);
+            this.renderTextBackground(x, y, z, ctx);
+        }
+    }
+
+    /**
+     * @return the baked shapes of this widget, re-building them first if they are dirty
+     *         or if the size of the widget has changed since they were baked
+     */
+    protected BakedShapeGeometry getOrBakeShapeGeometry()
+    {
+        BakedShapeGeometry geometry = this.bakedShapeGeometry;
+        int width = this.getWidth();
+        int height = this.getHeight();
+
+        if (geometry == null || width != this.bakedShapeWidth || height != this.bakedShapeHeight)
+        {
+            geometry = BakedShapeGeometry.bake((buffer) -> this.renderShapes(0, 0, 0f, buffer));
+            this.bakedShapeGeometry = geometry;
+            this.bakedShapeWidth = width;
+            this.bakedShapeHeight = height;
+        }
+
+        return geometry;
+    }
+
+    /**
+     * Takes in a BufferBuilder initialized in GL_QUADS, POSITION_COLOR mode
+     */
+    protected void renderShapes(int x, int y, float z, BufferBuilder buffer)
+    {
+        this.renderWidgetBackground(x, y, z, buffer);
+        this.renderWidgetBorder(x, y, z, buffer);
+        this.renderTextBackground(x, y, z, buffer);
+    }
+
+    protected void renderWidgetBackground(int x, int y, float z, BufferBuilder buffer)
     {
         BackgroundSettings settings = this.backgroundRenderer.getNormalSettings();
-        this.backgroundRenderer.renderBackgroundIfEnabled(x, y, z, this.getWidth(), this.getHeight(), settings, ctx);
+        this.backgroundRenderer.renderBackgroundIfEnabled(x, y, z, this.getWidth(), this.getHeight(), settings, buffer);
     }
 
-    protected void renderWidgetBorder(int x, int y, float z, ScreenContext ctx)
+    protected void renderWidgetBorder(int x, int y, float z, BufferBuilder buffer)
     {
         BorderSettings settings = this.borderRenderer.getNormalSettings();
-        this.borderRenderer.renderBorderIfEnabled(x, y, z, this.getWidth(), this.getHeight(), settings, ctx);
+        this.borderRenderer.renderBorderIfEnabled(x, y, z, this.getWidth(), this.getHeight(), settings, buffer);
+    }
+
+    protected void renderTextBackground(int x, int y, float z, BufferBuilder buffer)
+    {
+        MultiLineTextRenderSettings settings = this.getTextSettings();
+
+        if (settings.getBackgroundEnabled())
+        {
+            if (settings.getOddEvenBackgroundEnabled())
+            {
+                this.renderOddEvenTextLineBackgrounds(x, y, z, buffer);
+            }
+            else
+            {
+                this.renderSingleTextBackground(x, y, z, buffer);
+            }
+        }
+    }
+
+    protected void renderSingleTextBackground(int x, int y, float z, BufferBuilder buffer)
+    {
+        int width = this.getWidth();
+        int height = this.getHeight();
+        ShapeRenderUtils.renderRectangle(x, y, z, width, height, this.getTextSettings().getBackgroundColor(), buffer);
     }
 
+    protected void renderOddEvenTextLineBackgrounds(int x, int y, float z, BufferBuilder buffer)
+    {
+    }
+
+    /**
+     * @deprecated override the BufferBuilder variant instead. This is only called
+     *             when retained shape rendering is disabled.
+     */
+    @Deprecated
+    protected void renderWidgetBackground(int x, int y, float z, ScreenContext ctx)
+    {
+        BufferBuilder buffer = RenderUtils.startBuffer(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR, false);
+        this.renderWidgetBackground(x, y, z, buffer);
+        RenderUtils.drawBuffer();
+    }
+
+    /**
+     * @deprecated override the BufferBuilder variant instead. This is only called
+     *             when retained shape rendering is disabled.
+     */
+    @Deprecated
+    protected void renderWidgetBorder(int x, int y, float z, ScreenContext ctx)
+    {
+        BufferBuilder buffer = RenderUtils.startBuffer(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR, false);
+        this.renderWidgetBorder(x, y, z, buffer);
+        RenderUtils.drawBuffer();
+    }
+
+    /**
+     * @deprecated override the BufferBuilder variant instead. This is only called
+     *             when retained shape rendering is disabled.
+     */
+    @Deprecated
     protected void renderTextBackground(int x, int y, float z, ScreenContext ctx)
     {
         MultiLineTextRenderSettings settings = this.getTextSettings();
@@ -378,15 +545,28 @@ public abstract class InfoRendererWidget extends BaseOverlayWidget
         }
     }
 
+    /**
+     * @deprecated override the BufferBuilder variant instead. This is only called
+     *             when retained shape rendering is disabled.
+     */
+    @Deprecated
     protected void renderSingleTextBackground(int x, int y, float z, ScreenContext ctx)
     {
-        int width = this.getWidth();
-        int height = this.getHeight();
-        ShapeRenderUtils.renderRectangle(x, y, z, width, height, this.getTextSettings().getBackgroundColor());
+        BufferBuilder buffer = RenderUtils.startBuffer(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR, false);
+        this.renderSingleTextBackground(x, y, z, buffer);
+        RenderUtils.drawBuffer();
     }
 
+    /**
+     * @deprecated override the BufferBuilder variant instead. This is only called
+     *             when retained shape rendering is disabled.
+     */
+    @Deprecated
     protected void renderOddEvenTextLineBackgrounds(int x, int y, float z, ScreenContext ctx)
     {
+        BufferBuilder buffer = RenderUtils.startBuffer(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR, false);
+        this.renderOddEvenTextLineBackgrounds(x, y, z, buffer);
+        RenderUtils.drawBuffer();
     }
 
     protected void renderContents(int x, int y, float z, ScreenContext ctx)
@@ -423,6 +603,7 @@ public abstract class InfoRendererWidget extends BaseOverlayWidget
         this.setName(JsonUtils.getStringOrDefault(obj, "name", this.name));
         this.setRenderAboveScreen(JsonUtils.getBooleanOrDefault(obj, "above_screen", false));
         this.scale = JsonUtils.getDoubleOrDefault(obj, "scale", 1.0);
+        this.markShapeGeometryDirty();
         this.setSortIndex(JsonUtils.getIntegerOrDefault(obj, "sort_index", 100));
         this.setZ(JsonUtils.getFloatOrDefault(obj, "z", this.getZ()));
         JsonUtils.getObjectIfExists(obj, "text_settings", this.getTextSettings()::fromJson);
@@ -26,6 +26,7 @@ public class MessageRendererWidget extends InfoRendererWidget
         super();
 
         this.shouldSerialize = true;
+        this.retainedShapeRendering = true;
         this.getBackgroundSettings().setEnabled(true);
         this.getBackgroundSettings().setColor(0xF0000000);
         this.getBorderSettings().setEnabled(true);
@@ -180,29 +181,11 @@ public class MessageRendererWidget extends InfoRendererWidget
     }
 
     @Override
-    protected void renderTextBackground(int x, int y, float z, ScreenContext ctx)
+    protected void renderShapes(int x, int y, float z, ScreenContext ctx)
     {
         if (this.messages.isEmpty() == false)
         {
-            super.renderTextBackground(x, y, z, ctx);
-        }
-    }
-
-    @Override
-    protected void renderWidgetBackground(int x, int y, float z, ScreenContext ctx)
-    {
-        if (this.messages.isEmpty() == false)
-        {
-            super.renderWidgetBackground(x, y, z, ctx);
-        }
-    }
-
-    @Override
-    protected void renderWidgetBorder(int x, int y, float z, ScreenContext ctx)
-    {
-        if (this.messages.isEmpty() == false)
-        {
-            super.renderWidgetBorder(x, y, z, ctx);
+            super.renderShapes(x, y, z, ctx);
         }
     }
 
@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.function.Supplier;
 import com.google.gson.JsonObject;
 
+import net.minecraft.client.renderer.BufferBuilder;
+
 import malilib.MaLiLibReference;
 import malilib.config.value.ScreenLocation;
 import malilib.gui.BaseScreen;
@@ -30,6 +32,7 @@ public class StringListRendererWidget extends InfoRendererWidget
         this.padding.setChangeListener(this::onPaddingChanged);
         this.padding.setAll(1, 2, 0, 2);
         this.shouldSerialize = true;
+        this.retainedShapeRendering = true;
     }
 
     @Override
@@ -169,26 +172,26 @@ public class StringListRendererWidget extends InfoRendererWidget
     }
 
     @Override
-    protected void renderSingleTextBackground(int x, int y, float z, ScreenContext ctx)
+    protected void renderSingleTextBackground(int x, int y, float z, BufferBuilder buffer)
     {
         // Render the background for the title row
         if (this.getTextSettings().getBackgroundEnabled() && this.renderName && this.styledName != null)
         {
             int width = this.getWidth();
             int height = this.getLineHeight() + this.padding.getTop();
-            ShapeRenderUtils.renderRectangle(x, y, z, width, height, this.getTextSettings().getBackgroundColor());
+            ShapeRenderUtils.renderRectangle(x, y, z, width, height, this.getTextSettings().getBackgroundColor(), buffer);
         }
     }
 
     @Override
-    protected void renderOddEvenTextLineBackgrounds(int x, int y, float z, ScreenContext ctx)
+    protected void renderOddEvenTextLineBackgrounds(int x, int y, float z, BufferBuilder buffer)
     {
         // Render the background for the title row
         if (this.getTextSettings().getOddEvenBackgroundEnabled() && this.renderName && this.styledName != null)
         {
             int width = this.getWidth();
             int height = this.getLineHeight() + this.padding.getTop();
-            ShapeRenderUtils.renderRectangle(x, y, z, width, height, this.getTextSettings().getBackgroundColor());
+            ShapeRenderUtils.renderRectangle(x, y, z, width, height, this.getTextSettings().getBackgroundColor(), buffer);
         }
     }
 
@@ -31,6 +31,8 @@ import malilib.overlay.InfoOverlay;
 import malilib.overlay.InfoWidgetManager;
 import malilib.overlay.InfoWidgetRegistry;
 import malilib.overlay.message.MessageRedirectManager;
+import malilib.util.DataIteratingTaskScheduler;
+import malilib.util.DirectoryListingCache;
 
 public class Registry
 {
@@ -48,6 +50,8 @@ public class Registry
     // Various "managers" or "handlers"
     public static final ClientCommandHandler CLIENT_COMMAND_HANDLER = new ClientCommandHandler();
     public static final ConfigManager CONFIG_MANAGER = new ConfigManagerImpl();
+    public static final DataIteratingTaskScheduler DATA_TASK_SCHEDULER = new DataIteratingTaskScheduler();
+    public static final DirectoryListingCache DIRECTORY_LISTING_CACHE = new DirectoryListingCache();
     public static final HotkeyManager HOTKEY_MANAGER = new HotkeyManagerImpl();
     public static final InfoOverlay INFO_OVERLAY = new InfoOverlay();
     public static final InfoWidgetManager INFO_WIDGET_MANAGER = new InfoWidgetManager(INFO_OVERLAY);
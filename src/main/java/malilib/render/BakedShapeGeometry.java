@@ -0,0 +1,104 @@
+package malilib.render;
+
+import java.util.function.Consumer;
+import org.lwjgl.opengl.GL11;
+
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+
+/**
+ * Pre-built GL_QUADS, POSITION_COLOR vertex data of some shapes, relative to the origin.
+ * This allows rendering unchanged shapes, such as widget backgrounds and borders,
+ * by just translating and bulk-copying the vertex data into the render buffer.
+ * Baking and rendering must only happen on the render thread.
+ */
+public class BakedShapeGeometry
+{
+    protected static final BufferBuilder BAKE_BUFFER = new BufferBuilder(1024);
+
+    protected final int[] vertexData;
+    protected final int[] translatedVertexData;
+    protected final int vertexSize;
+    protected float translatedX;
+    protected float translatedY;
+    protected float translatedZ;
+    protected boolean hasTranslatedData;
+
+    protected BakedShapeGeometry(int[] vertexData, int vertexSize)
+    {
+        this.vertexData = vertexData;
+        this.translatedVertexData = new int[vertexData.length];
+        this.vertexSize = vertexSize;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.vertexData.length == 0;
+    }
+
+    /**
+     * Renders the baked shapes at the given position
+     */
+    public void renderAt(float x, float y, float z)
+    {
+        if (this.isEmpty())
+        {
+            return;
+        }
+
+        this.translateTo(x, y, z);
+
+        BufferBuilder buffer = RenderUtils.startBuffer(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR, false);
+        buffer.addVertexData(this.translatedVertexData);
+        RenderUtils.drawBuffer();
+    }
+
+    /**
+     * Translates the vertex data to the given position. The translated data is kept,
+     * so rendering the shapes at the same position again doesn't need to translate them again.
+     */
+    protected void translateTo(float x, float y, float z)
+    {
+        if (this.hasTranslatedData && x == this.translatedX && y == this.translatedY && z == this.translatedZ)
+        {
+            return;
+        }
+
+        final int[] src = this.vertexData;
+        final int[] dst = this.translatedVertexData;
+        final int length = src.length;
+
+        System.arraycopy(src, 0, dst, 0, length);
+
+        for (int i = 0; i < length; i += this.vertexSize)
+        {
+            dst[i    ] = Float.floatToRawIntBits(Float.intBitsToFloat(src[i    ]) + x);
+            dst[i + 1] = Float.floatToRawIntBits(Float.intBitsToFloat(src[i + 1]) + y);
+            dst[i + 2] = Float.floatToRawIntBits(Float.intBitsToFloat(src[i + 2]) + z);
+        }
+
+        this.translatedX = x;
+        this.translatedY = y;
+        this.translatedZ = z;
+        this.hasTranslatedData = true;
+    }
+
+    /**
+     * Bakes the shapes added by the given function. The function gets a BufferBuilder
+     * initialized in GL_QUADS, POSITION_COLOR mode, and it should add the shapes relative to the origin.
+     */
+    public static BakedShapeGeometry bake(Consumer<BufferBuilder> shapeBuilder)
+    {
+        BufferBuilder buffer = BAKE_BUFFER;
+
+        buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
+        shapeBuilder.accept(buffer);
+        buffer.finishDrawing();
+
+        int vertexSize = buffer.getVertexFormat().getIntegerSize();
+        int[] data = new int[buffer.getVertexCount() * vertexSize];
+        buffer.getByteBuffer().asIntBuffer().get(data);
+
+        return new BakedShapeGeometry(data, vertexSize);
+    }
+}
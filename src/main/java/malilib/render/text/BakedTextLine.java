@@ -0,0 +1,160 @@
+package malilib.render.text;
+
+import java.util.List;
+
+import malilib.util.data.Identifier;
+
+/**
+ * A pre-built vertex representation of a {@link StyledTextLine}, relative to the origin.
+ * This allows rendering an unchanged line by just translating and bulk-copying the
+ * vertex data into the render buffers, instead of building it glyph by glyph.
+ * The baked data is only valid for the same default color, shadow and unicode settings,
+ * and for the same renderer generation, which changes when the font resources get reloaded.
+ */
+public class BakedTextLine
+{
+    public final int defaultColor;
+    public final boolean shadow;
+    public final boolean unicode;
+    public final int generation;
+    protected final Identifier[] textures;
+    protected final int[][] textVertexData;
+    protected final int[][] translatedTextVertexData;
+    protected final int textVertexSize;
+    protected final int[] styleVertexData;
+    protected final int[] translatedStyleVertexData;
+    protected final int styleVertexSize;
+    protected float translatedX;
+    protected float translatedY;
+    protected float translatedZ;
+    protected boolean hasTranslatedData;
+
+    /**
+     * @param generation the generation of the renderer that baked the line
+     * @param textures the font texture of each text vertex data chunk
+     * @param textVertexData the text vertex data chunks, in the POSITION_TEX_COLOR format
+     * @param textVertexSize the number of ints per text vertex
+     * @param styleVertexData the style (underline and strike-through) vertex data, in the POSITION_COLOR format
+     * @param styleVertexSize the number of ints per style vertex
+     */
+    public BakedTextLine(int defaultColor, boolean shadow, boolean unicode, int generation,
+                         List<Identifier> textures, List<int[]> textVertexData, int textVertexSize,
+                         int[] styleVertexData, int styleVertexSize)
+    {
+        this.defaultColor = defaultColor;
+        this.shadow = shadow;
+        this.unicode = unicode;
+        this.generation = generation;
+        this.textures = textures.toArray(new Identifier[0]);
+        this.textVertexData = textVertexData.toArray(new int[0][]);
+        this.textVertexSize = textVertexSize;
+        this.styleVertexData = styleVertexData;
+        this.styleVertexSize = styleVertexSize;
+
+        this.translatedTextVertexData = new int[this.textVertexData.length][];
+
+        for (int i = 0; i < this.textVertexData.length; ++i)
+        {
+            this.translatedTextVertexData[i] = new int[this.textVertexData[i].length];
+        }
+
+        this.translatedStyleVertexData = new int[styleVertexData.length];
+    }
+
+    public boolean matches(int defaultColor, boolean shadow, boolean unicode, int generation)
+    {
+        return this.defaultColor == defaultColor && this.shadow == shadow &&
+               this.unicode == unicode && this.generation == generation;
+    }
+
+    /**
+     * @return a rough estimate of the memory use of this baked line in bytes,
+     *         including the original and the translated copies of the vertex data
+     */
+    public int getEstimatedMemorySize()
+    {
+        int size = 96 + this.textures.length * 8 + this.styleVertexData.length * 4 * 2;
+
+        for (int[] data : this.textVertexData)
+        {
+            size += 32 + data.length * 4 * 2;
+        }
+
+        return size;
+    }
+
+    public int getTextChunkCount()
+    {
+        return this.textures.length;
+    }
+
+    public Identifier getTexture(int chunkIndex)
+    {
+        return this.textures[chunkIndex];
+    }
+
+    public boolean hasStyleVertexData()
+    {
+        return this.styleVertexData.length > 0;
+    }
+
+    /**
+     * Translates the vertex data to the given position. The translated data is kept,
+     * so rendering the line at the same position again doesn't need to translate it again.
+     */
+    public void translateTo(float x, float y, float z)
+    {
+        if (this.hasTranslatedData && x == this.translatedX && y == this.translatedY && z == this.translatedZ)
+        {
+            return;
+        }
+
+        for (int i = 0; i < this.textVertexData.length; ++i)
+        {
+            translate(this.textVertexData[i], this.translatedTextVertexData[i], this.textVertexSize, x, y, z);
+        }
+
+        translate(this.styleVertexData, this.translatedStyleVertexData, this.styleVertexSize, x, y, z);
+
+        this.translatedX = x;
+        this.translatedY = y;
+        this.translatedZ = z;
+        this.hasTranslatedData = true;
+    }
+
+    /**
+     * @return the text vertex data of the given chunk, translated to the position
+     *         given in the last {@link #translateTo(float, float, float)} call
+     */
+    public int[] getTranslatedTextVertexData(int chunkIndex)
+    {
+        return this.translatedTextVertexData[chunkIndex];
+    }
+
+    /**
+     * @return the style vertex data, translated to the position
+     *         given in the last {@link #translateTo(float, float, float)} call
+     */
+    public int[] getTranslatedStyleVertexData()
+    {
+        return this.translatedStyleVertexData;
+    }
+
+    /**
+     * Copies the vertex data, offsetting the position, which is assumed
+     * to be the first three float values of each vertex.
+     */
+    protected static void translate(int[] src, int[] dst, int vertexSize, float x, float y, float z)
+    {
+        final int length = src.length;
+
+        System.arraycopy(src, 0, dst, 0, length);
+
+        for (int i = 0; i < length; i += vertexSize)
+        {
+            dst[i    ] = Float.floatToRawIntBits(Float.intBitsToFloat(src[i    ]) + x);
+            dst[i + 1] = Float.floatToRawIntBits(Float.intBitsToFloat(src[i + 1]) + y);
+            dst[i + 2] = Float.floatToRawIntBits(Float.intBitsToFloat(src[i + 2]) + z);
+        }
+    }
+}
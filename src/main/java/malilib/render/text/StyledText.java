@@ -3,19 +3,21 @@ package malilib.render.text;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 
-import malilib.MaLiLib;
+import malilib.action.ActionContext;
+import malilib.input.ActionResult;
+import malilib.overlay.message.MessageDispatcher;
 import malilib.util.StringUtils;
+import malilib.util.datadump.DataDump;
 
 public class StyledText
 {
-    protected static final Cache<StyledTextCacheKey, StyledText> TEXT_CACHE = CacheBuilder.newBuilder().concurrencyLevel(1).initialCapacity(4000).maximumSize(4000).expireAfterAccess(10 * 60, TimeUnit.SECONDS).build();
+    public static final long DEFAULT_CACHE_MAX_SIZE = 16L * 1024L * 1024L;
+    protected static final TextLayoutCache<StyledTextCacheKey, StyledText> TEXT_CACHE = new TextLayoutCache<>("StyledText", DEFAULT_CACHE_MAX_SIZE, (k, v) -> k.getEstimatedMemorySize() + v.getEstimatedMemorySize());
+
+    protected static int cacheGeneration;
 
     public final ImmutableList<StyledTextLine> lines;
     private int renderWidth = -1;
@@ -47,6 +49,21 @@ public class StyledText
         return this.renderWidth;
     }
 
+    /**
+     * @return a rough estimate of the memory use of this text in bytes, see {@link StyledTextLine#getEstimatedMemorySize()}
+     */
+    public int getEstimatedMemorySize()
+    {
+        int size = 32 + this.lines.size() * 8;
+
+        for (StyledTextLine line : this.lines)
+        {
+            size += line.getEstimatedMemorySize();
+        }
+
+        return size;
+    }
+
     public StyledText append(List<StyledTextLine> lines)
     {
         ImmutableList.Builder<StyledTextLine> builder = ImmutableList.builder();
@@ -96,6 +113,66 @@ public class StyledText
     {
         StyledTextLine.TEXT_CACHE.invalidateAll();
         TEXT_CACHE.invalidateAll();
+        ++cacheGeneration;
+    }
+
+    /**
+     * Sets the maximum estimated memory use of each of the text caches
+     * @param maxSizeMb the maximum size in MiB
+     */
+    public static void setCacheMaxSize(int maxSizeMb)
+    {
+        long maxSize = (long) maxSizeMb * 1024L * 1024L;
+        StyledTextLine.TEXT_CACHE.setMaxWeight(maxSize);
+        TEXT_CACHE.setMaxWeight(maxSize);
+    }
+
+    /**
+     * @return the usage and hit rate statistics of the text caches, as data dump lines
+     */
+    public static List<String> getCacheStats(DataDump.Format format)
+    {
+        DataDump dump = new DataDump(8, format);
+
+        dump.addTitle("Cache", "Entries", "Size (KiB)", "Max (KiB)", "Hits", "Misses", "Hit rate", "Evictions");
+
+        for (int i = 1; i < 8; ++i)
+        {
+            dump.setColumnProperties(i, DataDump.Alignment.RIGHT, true);
+        }
+
+        addCacheStats(dump, StyledTextLine.TEXT_CACHE);
+        addCacheStats(dump, TEXT_CACHE);
+
+        return dump.getLines();
+    }
+
+    protected static void addCacheStats(DataDump dump, TextLayoutCache<?, ?> cache)
+    {
+        dump.addData(cache.getName(),
+                     String.valueOf(cache.getEntryCount()),
+                     String.valueOf(cache.getWeight() / 1024L),
+                     String.valueOf(cache.getMaxWeight() / 1024L),
+                     String.valueOf(cache.getHitCount()),
+                     String.valueOf(cache.getMissCount()),
+                     String.format("%.2f %%", cache.getHitRate() * 100.0),
+                     String.valueOf(cache.getEvictionCount()));
+    }
+
+    public static ActionResult printCacheStatsAction(ActionContext ctx)
+    {
+        DataDump.printDataToLogger(getCacheStats(DataDump.Format.ASCII));
+        MessageDispatcher.success("malilib.message.info.text_cache_stats_printed_to_log");
+        return ActionResult.SUCCESS;
+    }
+
+    /**
+     * @return a counter that gets incremented every time the text caches are cleared,
+     *         which allows any other caches of styled text to be invalidated at the same time
+     */
+    public static int getCacheGeneration()
+    {
+        return cacheGeneration;
     }
 
     public static StyledText ofLines(ImmutableList<StyledTextLine> lines)
@@ -125,17 +202,14 @@ public class StyledText
 
     protected static StyledText parse(String str, Optional<TextStyle> startingStyle)
     {
-        try
-        {
-            TextStyle style = startingStyle.isPresent() ? startingStyle.get() : null;
-            StyledTextCacheKey key = new StyledTextCacheKey(str, style);
-            return TEXT_CACHE.get(key, () -> new StyledText(StyledTextLine.parseLines(str, startingStyle)));
-        }
-        catch (ExecutionException e)
-        {
-            MaLiLib.LOGGER.warn("Exception while retrieving StyledText from cache", e);
-            return new StyledText(StyledTextLine.parseLines(str, startingStyle));
-        }
+        TextStyle style = startingStyle.isPresent() ? startingStyle.get() : null;
+        StyledTextCacheKey key = new StyledTextCacheKey(str, style);
+        return TEXT_CACHE.get(key, k -> {
+            StyledText text = new StyledText(StyledTextLine.parseLines(str, startingStyle));
+            Runnable updater = () -> TEXT_CACHE.updateWeight(k, text);
+            text.lines.forEach(line -> line.setCacheWeightUpdater(TEXT_CACHE, updater));
+            return text;
+        });
     }
 
     public static StyledTextBuilder builder()
@@ -159,6 +233,11 @@ public class StyledText
             this.startingStyle = startingStyle;
         }
 
+        public int getEstimatedMemorySize()
+        {
+            return 64 + this.text.length() * 2;
+        }
+
         @Override
         public boolean equals(Object o)
         {
@@ -2,7 +2,9 @@ package malilib.render.text;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import javax.annotation.Nullable;
 import com.google.common.collect.ImmutableList;
 
 public class StyledTextBuilder
@@ -10,8 +12,8 @@ public class StyledTextBuilder
     protected final List<StyledTextLine> lines = new ArrayList<>();
     protected final List<StyledTextSegment> segmentsForCurrentLine = new ArrayList<>();
     protected final TextStyle.Builder styleBuilder = TextStyle.builder();
-    protected StringBuilder displayStringForCurrentSegment = new StringBuilder();
-    protected StringBuilder originalTextStringForCurrentSegment = new StringBuilder();
+    protected final StringBuilder displayStringForCurrentSegment = new StringBuilder();
+    protected final StringBuilder originalTextStringForCurrentSegment = new StringBuilder();
 
     public StyledTextBuilder()
     {
@@ -27,13 +29,36 @@ public class StyledTextBuilder
         this.displayStringForCurrentSegment.append(str);
     }
 
+    /**
+     * Appends the characters from <b>start</b> (inclusive) to <b>end</b> (exclusive) of the given string
+     */
+    public void appendDisplayString(String str, int start, int end)
+    {
+        this.displayStringForCurrentSegment.append(str, start, end);
+    }
+
     public void appendOriginalTextString(String str)
     {
         this.originalTextStringForCurrentSegment.append(str);
     }
 
+    /**
+     * Appends the characters from <b>start</b> (inclusive) to <b>end</b> (exclusive) of the given string
+     */
+    public void appendOriginalTextString(String str, int start, int end)
+    {
+        this.originalTextStringForCurrentSegment.append(str, start, end);
+    }
+
     public void applyStyleChange(Consumer<TextStyle.Builder> styleModifier)
     {
+        // If there is no pending text, then there is nothing to commit using the old style
+        if (this.displayStringForCurrentSegment.length() == 0)
+        {
+            styleModifier.accept(this.styleBuilder);
+            return;
+        }
+
         TextStyle styleBefore = this.styleBuilder.build();
         styleModifier.accept(this.styleBuilder);
 
@@ -43,6 +68,27 @@ public class StyledTextBuilder
         }
     }
 
+    /**
+     * Applies a style change using the given value. This avoids having to
+     * create a capturing lambda for each style change.
+     */
+    public <T> void applyStyleChange(BiConsumer<TextStyle.Builder, T> styleModifier, @Nullable T value)
+    {
+        if (this.displayStringForCurrentSegment.length() == 0)
+        {
+            styleModifier.accept(this.styleBuilder, value);
+            return;
+        }
+
+        TextStyle styleBefore = this.styleBuilder.build();
+        styleModifier.accept(this.styleBuilder, value);
+
+        if (this.styleBuilder.equalsStyle(styleBefore) == false)
+        {
+            this.commitCurrentSegmentUsingStyle(styleBefore, false);
+        }
+    }
+
     public void addLineBeak()
     {
         this.commitCurrentLine(false);
@@ -65,8 +111,8 @@ public class StyledTextBuilder
                                                               this.segmentsForCurrentLine::add,
                                                               TextRenderer.INSTANCE::getGlyphFor);
 
-            this.displayStringForCurrentSegment = new StringBuilder();
-            this.originalTextStringForCurrentSegment = new StringBuilder();
+            this.displayStringForCurrentSegment.setLength(0);
+            this.originalTextStringForCurrentSegment.setLength(0);
         }
     }
 
@@ -1,14 +1,12 @@
 package malilib.render.text;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import javax.annotation.Nullable;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 
 import malilib.MaLiLib;
@@ -19,13 +17,20 @@ public class StyledTextLine
 {
     public static final StyledTextLine EMPTY = new StyledTextLine(ImmutableList.of());
 
-    protected static final Cache<StyledTextCacheKey, ImmutableList<StyledTextLine>> TEXT_CACHE = CacheBuilder.newBuilder().concurrencyLevel(1).initialCapacity(4000).maximumSize(4000).expireAfterAccess(10 * 60, TimeUnit.SECONDS).build();
+    /** The maximum number of baked variants (different colors or shadow settings) kept per line */
+    protected static final int MAX_BAKED_LINES = 4;
+    protected static final TextLayoutCache<StyledTextCacheKey, ImmutableList<StyledTextLine>> TEXT_CACHE = new TextLayoutCache<>("StyledTextLine", StyledText.DEFAULT_CACHE_MAX_SIZE, StyledTextLine::getEstimatedMemorySize);
 
     public final ImmutableList<StyledTextSegment> segments;
     public final String displayText;
     public final String originalString;
     public final int glyphCount;
     public final int renderWidth;
+    protected final boolean hasRandomizedGlyphs;
+    @Nullable protected BakedTextLine[] bakedLines;
+    protected boolean renderedWithoutBaking;
+    /** The weight updaters of the text cache entries that contain this line, keyed by the cache */
+    @Nullable protected IdentityHashMap<TextLayoutCache<?, ?>, Runnable> cacheWeightUpdaters;
 
     public StyledTextLine(ImmutableList<StyledTextSegment> segments)
     {
@@ -35,6 +40,7 @@ public class StyledTextLine
         StringBuilder sbOriginal = new StringBuilder();
         int width = 0;
         int glyphCount = 0;
+        boolean random = false;
 
         for (StyledTextSegment segment : segments)
         {
@@ -42,12 +48,192 @@ public class StyledTextLine
             sbOriginal.append(segment.originalString);
             width += segment.renderWidth;
             glyphCount += segment.glyphCount;
+            random |= segment.style.random;
         }
 
         this.displayText = sbDisplay.toString();
         this.originalString = sbOriginal.toString();
         this.glyphCount = glyphCount;
         this.renderWidth = width;
+        this.hasRandomizedGlyphs = random;
+    }
+
+    /**
+     * @return a rough estimate of the memory use of this line in bytes,
+     *         including the baked vertex data of all the currently held baked variants
+     */
+    public int getEstimatedMemorySize()
+    {
+        int size = 96 + (this.displayText.length() + this.originalString.length()) * 2;
+
+        for (StyledTextSegment segment : this.segments)
+        {
+            size += 96 + segment.glyphCount * 8 + (segment.displayText.length() + segment.originalString.length()) * 2;
+        }
+
+        BakedTextLine[] bakedLines = this.bakedLines;
+
+        if (bakedLines != null)
+        {
+            size += 16 + bakedLines.length * 4;
+
+            for (BakedTextLine baked : bakedLines)
+            {
+                if (baked != null)
+                {
+                    size += baked.getEstimatedMemorySize();
+                }
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Sets the function that re-calculates the weight of the entry of the given cache
+     * that contains this line, when the memory use of this line changes.
+     * Any previous updater for the same cache is replaced, as it would be for an already evicted entry.
+     */
+    protected synchronized void setCacheWeightUpdater(TextLayoutCache<?, ?> cache, Runnable updater)
+    {
+        if (this.cacheWeightUpdaters == null)
+        {
+            this.cacheWeightUpdaters = new IdentityHashMap<>(2);
+        }
+
+        this.cacheWeightUpdaters.put(cache, updater);
+    }
+
+    protected void updateCacheWeights()
+    {
+        Runnable[] updaters;
+
+        synchronized (this)
+        {
+            if (this.cacheWeightUpdaters == null)
+            {
+                return;
+            }
+
+            updaters = this.cacheWeightUpdaters.values().toArray(new Runnable[0]);
+        }
+
+        for (Runnable updater : updaters)
+        {
+            updater.run();
+        }
+    }
+
+    protected static int getEstimatedMemorySize(StyledTextCacheKey key, ImmutableList<StyledTextLine> lines)
+    {
+        int size = key.getEstimatedMemorySize() + 32 + lines.size() * 8;
+
+        for (StyledTextLine line : lines)
+        {
+            size += line.getEstimatedMemorySize();
+        }
+
+        return size;
+    }
+
+    /**
+     * @return true if this line can be rendered via a cached {@link BakedTextLine}.
+     *         Lines with randomized glyphs change on every frame, so they can't be baked.
+     */
+    public boolean canBake()
+    {
+        return this.hasRandomizedGlyphs == false;
+    }
+
+    /**
+     * Lines only get baked once they get rendered again, so that one-off lines
+     * and lines that get re-created on every update don't pay the baking cost.
+     * @return false on the first call, and true on all later calls
+     */
+    public boolean shouldBake()
+    {
+        if (this.renderedWithoutBaking)
+        {
+            return true;
+        }
+
+        this.renderedWithoutBaking = true;
+        return false;
+    }
+
+    /**
+     * @return the cached baked vertex data of this line, if it was baked with the given settings.
+     *         A few variants are kept, so that a line that gets rendered for example
+     *         with both a normal and a hover color doesn't need to be re-baked on every frame.
+     */
+    @Nullable
+    public BakedTextLine getBakedLine(int defaultColor, boolean shadow, boolean unicode, int generation)
+    {
+        BakedTextLine[] bakedLines = this.bakedLines;
+
+        if (bakedLines == null)
+        {
+            return null;
+        }
+
+        for (int i = 0; i < bakedLines.length; ++i)
+        {
+            BakedTextLine baked = bakedLines[i];
+
+            if (baked == null)
+            {
+                break;
+            }
+
+            if (baked.matches(defaultColor, shadow, unicode, generation))
+            {
+                // Move the hit to the front, so that the least recently used variant gets dropped first
+                if (i > 0)
+                {
+                    System.arraycopy(bakedLines, 0, bakedLines, 1, i);
+                    bakedLines[0] = baked;
+                }
+
+                return baked;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds a baked variant of this line. If the maximum number of variants is already
+     * cached, then the least recently used variant is dropped.
+     * Any variants baked by an older renderer generation are dropped as well.
+     */
+    public void addBakedLine(BakedTextLine bakedLine)
+    {
+        BakedTextLine[] bakedLines = this.bakedLines;
+
+        if (bakedLines == null)
+        {
+            bakedLines = new BakedTextLine[MAX_BAKED_LINES];
+            this.bakedLines = bakedLines;
+        }
+
+        BakedTextLine[] oldLines = bakedLines.clone();
+        int count = 1;
+
+        Arrays.fill(bakedLines, null);
+        bakedLines[0] = bakedLine;
+
+        for (int i = 0; i < oldLines.length && count < bakedLines.length; ++i)
+        {
+            BakedTextLine baked = oldLines[i];
+
+            if (baked != null && baked.generation == bakedLine.generation)
+            {
+                bakedLines[count++] = baked;
+            }
+        }
+
+        // The baked data counts towards the size of the text caches
+        this.updateCacheWeights();
     }
 
     /**
@@ -271,17 +457,14 @@ public class StyledTextLine
 
     protected static ImmutableList<StyledTextLine> parseLines(String str, Optional<TextStyle> startingStyle)
     {
-        try
-        {
-            TextStyle style = startingStyle.isPresent() ? startingStyle.get() : null;
-            StyledTextCacheKey key = new StyledTextCacheKey(str, style);
-            return TEXT_CACHE.get(key, () -> StyledTextParser.parseString(str, startingStyle));
-        }
-        catch (ExecutionException e)
-        {
-            MaLiLib.LOGGER.warn("Exception while retrieving StyledText from cache", e);
-            return StyledTextParser.parseString(str, startingStyle);
-        }
+        TextStyle style = startingStyle.isPresent() ? startingStyle.get() : null;
+        StyledTextCacheKey key = new StyledTextCacheKey(str, style);
+        return TEXT_CACHE.get(key, k -> {
+            ImmutableList<StyledTextLine> lines = StyledTextParser.parseString(str, startingStyle);
+            Runnable updater = () -> TEXT_CACHE.updateWeight(k, lines);
+            lines.forEach(line -> line.setCacheWeightUpdater(TEXT_CACHE, updater));
+            return lines;
+        });
     }
 
     /**
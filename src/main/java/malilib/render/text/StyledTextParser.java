@@ -1,11 +1,9 @@
 package malilib.render.text;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.function.BiConsumer;
-import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 import com.google.common.collect.ImmutableList;
 
@@ -15,10 +13,6 @@ import malilib.util.data.Color4f;
 public class StyledTextParser
 {
     public static final String VANILLA_FORMAT_CODES = "0123456789abcdefklmnorABCDEFKLMNOR";
-    protected static final Pattern PATTERN_COLOR_3 = Pattern.compile("[0-9a-fA-F]{3}>");
-    protected static final Pattern PATTERN_COLOR_4 = Pattern.compile("[0-9a-fA-F]{4}>");
-    protected static final Pattern PATTERN_COLOR_6 = Pattern.compile("[0-9a-fA-F]{6}>");
-    protected static final Pattern PATTERN_COLOR_8 = Pattern.compile("[0-9a-fA-F]{8}>");
 
     public static ImmutableList<StyledTextLine> parseString(String str, Optional<TextStyle> startingStyle)
     {
@@ -34,12 +28,354 @@ public class StyledTextParser
 
     public static ImmutableList<StyledTextLine> parseString(String str, StyledTextBuilder builder)
     {
-        StringReader reader = new StringReader(str);
-        List<Token> tokens = new ArrayList<>();
+        parseInto(str, builder);
+        return builder.build();
+    }
+
+    /**
+     * Parses the given string in a single pass, writing the text and the style changes directly
+     * into the given builder. This produces the same result as {@link #readTokens(StringReader, List)}
+     * followed by {@link #parseTokensToStyledText(List, StyledTextBuilder)}, but without
+     * creating the intermediate Token objects or sub strings.
+     */
+    public static void parseInto(String str, StyledTextBuilder builder)
+    {
+        final int length = str.length();
+        int stringStart = 0;
+        int pos = 0;
+
+        while (pos < length)
+        {
+            char previous = pos > 0 ? str.charAt(pos - 1) : 0;
+            char current = str.charAt(pos);
+
+            // Not a possible token start character, just continue the current plain string
+            if ((current != '<' && current != '§' && current != '\\' && current != '\n') ||
+                (previous == '\\' && current != '\n'))
+            {
+                ++pos;
+                continue;
+            }
+
+            // Flush the plain string before a possible token. Appending the plain string in
+            // parts doesn't matter, as the segments only get committed on style changes.
+            if (pos > stringStart)
+            {
+                builder.appendDisplayString(str, stringStart, pos);
+                builder.appendOriginalTextString(str, stringStart, pos);
+            }
+
+            stringStart = pos;
+            char next = pos < length - 1 ? str.charAt(pos + 1) : 0;
+            int tokenLength = 0;
+
+            if (current == '<')
+            {
+                tokenLength = tryApplyStyleTagAt(str, pos, builder);
+            }
+            else if (current == '§' && VANILLA_FORMAT_CODES.indexOf(next) != -1)
+            {
+                applyVanillaFormatCode(Character.toLowerCase(next), builder);
+                tokenLength = 2;
+            }
+            else if (current == '\\' && next == 'n')
+            {
+                tokenLength = 2;
+            }
+            else if (current == '\n')
+            {
+                tokenLength = 1;
+            }
+
+            if (tokenLength > 0)
+            {
+                builder.appendOriginalTextString(str, pos, pos + tokenLength);
+
+                if (current == '\\' || current == '\n')
+                {
+                    builder.addLineBeak();
+                }
 
-        readTokens(reader, tokens);
+                pos += tokenLength;
+                stringStart = pos;
+            }
+            else
+            {
+                ++pos;
+            }
+        }
 
-        return parseTokensToStyledText(tokens, builder);
+        if (length > stringStart)
+        {
+            builder.appendDisplayString(str, stringStart, length);
+            builder.appendOriginalTextString(str, stringStart, length);
+        }
+    }
+
+    /**
+     * Tries to read a style tag starting at the given position (which must be the '<' character),
+     * and applies the style change to the builder, if the tag is valid.
+     * The original string of the tag is not appended to the builder.
+     * @return the length of the style tag, or 0 if there was no valid style tag at the position
+     */
+    protected static int tryApplyStyleTagAt(String str, int tagStart, StyledTextBuilder builder)
+    {
+        int pos = tagStart + 1;
+        char c = pos < str.length() ? str.charAt(pos) : 0;
+        boolean state = true;
+
+        if (c == '/' || c == '!' || c == '^')
+        {
+            state = false;
+            ++pos;
+        }
+
+        // <, >, and possibly the negation character
+        int baseLength = state ? 2 : 3;
+        Boolean stateValue = state ? Boolean.TRUE : Boolean.FALSE;
+
+        if (str.startsWith("b>", pos))
+        {
+            builder.applyStyleChange(TextStyle.Builder::withBold, stateValue);
+            return baseLength + 1;
+        }
+        else if (str.startsWith("i>", pos))
+        {
+            builder.applyStyleChange(TextStyle.Builder::withItalic, stateValue);
+            return baseLength + 1;
+        }
+        else if (str.startsWith("u>", pos))
+        {
+            builder.applyStyleChange(TextStyle.Builder::withUnderline, stateValue);
+            return baseLength + 1;
+        }
+        else if (str.startsWith("st>", pos))
+        {
+            builder.applyStyleChange(TextStyle.Builder::withStrikeThrough, stateValue);
+            return baseLength + 2;
+        }
+        else if (str.startsWith("sh>", pos))
+        {
+            builder.applyStyleChange(TextStyle.Builder::withShadow, stateValue);
+            return baseLength + 2;
+        }
+        else if (str.startsWith("rnd>", pos))
+        {
+            builder.applyStyleChange(TextStyle.Builder::withRandom, stateValue);
+            return baseLength + 3;
+        }
+        else if (str.startsWith("rst>", pos) && state) // negated reset state is not valid
+        {
+            builder.applyStyleChange(TextStyle.Builder::resetAll);
+            return baseLength + 3;
+        }
+        // color reset
+        else if (state == false && str.startsWith("c>", pos))
+        {
+            builder.applyStyleChange(TextStyle.Builder::withColor, (Color4f) null);
+            return baseLength + 1;
+        }
+        else if (state == false && str.startsWith("csh>", pos))
+        {
+            builder.applyStyleChange(TextStyle.Builder::withShadowColor, (Color4f) null);
+            return baseLength + 3;
+        }
+        // color start
+        else if (state && (str.startsWith("c=", pos) || str.startsWith("csh=", pos)))
+        {
+            boolean shadow = str.startsWith("csh=", pos);
+            int tokenValueLen = shadow ? 4 : 2;
+            int digits = getColorDigitCount(str, pos + tokenValueLen);
+
+            if (digits > 0)
+            {
+                Color4f color = getColorFromHexDigits(str, pos + tokenValueLen, digits);
+
+                if (shadow)
+                {
+                    builder.applyStyleChange(TextStyle.Builder::withShadowColor, color);
+                }
+                else
+                {
+                    builder.applyStyleChange(TextStyle.Builder::withColor, color);
+                }
+
+                return baseLength + tokenValueLen + digits;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * @return the length of the valid style tag starting at the given position (which must be the '<' character),
+     *         or 0 if there is no valid style tag at the position. This accepts the same tags as
+     *         {@link #tryApplyStyleTagAt(String, int, StyledTextBuilder)}, but doesn't apply them.
+     */
+    public static int getStyleTagLength(String str, int tagStart)
+    {
+        int pos = tagStart + 1;
+        char c = pos < str.length() ? str.charAt(pos) : 0;
+        boolean state = c != '/' && c != '!' && c != '^';
+
+        if (state == false)
+        {
+            ++pos;
+        }
+
+        // <, >, and possibly the negation character
+        int baseLength = state ? 2 : 3;
+
+        if (str.startsWith("b>", pos) || str.startsWith("i>", pos) || str.startsWith("u>", pos))
+        {
+            return baseLength + 1;
+        }
+        else if (str.startsWith("st>", pos) || str.startsWith("sh>", pos))
+        {
+            return baseLength + 2;
+        }
+        else if (str.startsWith("rnd>", pos) || (state && str.startsWith("rst>", pos)))
+        {
+            return baseLength + 3;
+        }
+        else if (state == false && str.startsWith("c>", pos))
+        {
+            return baseLength + 1;
+        }
+        else if (state == false && str.startsWith("csh>", pos))
+        {
+            return baseLength + 3;
+        }
+        else if (state && (str.startsWith("c=", pos) || str.startsWith("csh=", pos)))
+        {
+            int tokenValueLen = str.startsWith("csh=", pos) ? 4 : 2;
+            int digits = getColorDigitCount(str, pos + tokenValueLen);
+
+            if (digits > 0)
+            {
+                return baseLength + tokenValueLen + digits;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * @return the bold style state after the valid style tag at the given position.
+     *         Only the bold tags and the reset tag change the state.
+     */
+    public static boolean getBoldStateAfterStyleTag(String str, int tagStart, boolean bold)
+    {
+        if (str.startsWith("b>", tagStart + 1))
+        {
+            return true;
+        }
+        else if (str.startsWith("b>", tagStart + 2) || str.startsWith("rst>", tagStart + 1))
+        {
+            return false;
+        }
+
+        return bold;
+    }
+
+    protected static void applyVanillaFormatCode(char code, StyledTextBuilder builder)
+    {
+        switch (code)
+        {
+            case 'k': builder.applyStyleChange(TextStyle.Builder::withRandom, Boolean.TRUE); break;
+            case 'l': builder.applyStyleChange(TextStyle.Builder::withBold, Boolean.TRUE); break;
+            case 'm': builder.applyStyleChange(TextStyle.Builder::withStrikeThrough, Boolean.TRUE); break;
+            case 'n': builder.applyStyleChange(TextStyle.Builder::withUnderline, Boolean.TRUE); break;
+            case 'o': builder.applyStyleChange(TextStyle.Builder::withItalic, Boolean.TRUE); break;
+            case 'r': builder.applyStyleChange(TextStyle.Builder::resetVanillaStyles); break;
+            default:
+                builder.applyStyleChange(TextStyle.Builder::resetVanillaStyles);
+                builder.applyStyleChange(TextStyle.Builder::withColor, Color4f.fromColor(TextRenderer.INSTANCE.getColorCode(code), 1f));
+        }
+    }
+
+    /**
+     * @return the number of hex digits of a color value starting at the given position,
+     *         if the digits are followed by the '>' character, and the digit count is valid
+     *         for a color value (3, 4, 6 or 8). Otherwise returns 0.
+     */
+    public static int getColorDigitCount(CharSequence str, int start)
+    {
+        final int length = str.length();
+        int digits = 0;
+
+        while (digits <= 8 && start + digits < length && isHexDigit(str.charAt(start + digits)))
+        {
+            ++digits;
+        }
+
+        if (start + digits < length && str.charAt(start + digits) == '>' &&
+            (digits == 3 || digits == 4 || digits == 6 || digits == 8))
+        {
+            return digits;
+        }
+
+        return 0;
+    }
+
+    /**
+     * @return true if the given character is an ASCII hex digit, ie. 0-9, a-f or A-F.
+     *         Note: Unlike Character.digit(), this does not accept non-ASCII digits or letters.
+     */
+    public static boolean isHexDigit(char c)
+    {
+        return (c >= '0' && c <= '9') || ((c | 0x20) >= 'a' && (c | 0x20) <= 'f');
+    }
+
+    /**
+     * @return the value of the given ASCII hex digit, or -1 if the character is not an ASCII hex digit
+     */
+    public static int getHexDigitValue(char c)
+    {
+        if (c >= '0' && c <= '9')
+        {
+            return c - '0';
+        }
+
+        int lower = c | 0x20;
+
+        if (lower >= 'a' && lower <= 'f')
+        {
+            return lower - 'a' + 10;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Parses a color value from the given hex digits. The supported formats are
+     * RGB, ARGB, RRGGBB and AARRGGBB. The alpha is fully opaque if it's not given.
+     */
+    public static Color4f getColorFromHexDigits(CharSequence str, int start, int digitCount)
+    {
+        int value = 0;
+
+        for (int i = 0; i < digitCount; ++i)
+        {
+            int digit = getHexDigitValue(str.charAt(start + i));
+
+            // Short formats have each digit doubled, ie. 0xF -> 0xFF
+            if (digitCount <= 4)
+            {
+                value = (value << 8) | (digit * 17);
+            }
+            else
+            {
+                value = (value << 4) | digit;
+            }
+        }
+
+        if (digitCount == 3 || digitCount == 6)
+        {
+            return Color4f.fromColor(value, 1f);
+        }
+
+        return Color4f.fromColor(value);
     }
 
     public static ImmutableList<StyledTextLine> parseTokensToStyledText(List<Token> tokens, StyledTextBuilder builder)
@@ -195,36 +531,12 @@ public class StyledTextParser
 
             reader.skip(tokenValueLen);
             String str = reader.subString();
-            int len = str.length();
+            int digits = getColorDigitCount(str, 0);
 
-            if (len >= 9 && PATTERN_COLOR_8.matcher(str.substring(0, 9)).matches())
-            {
-                int colorInt = (int) Long.parseLong(str.substring(0, 8), 16);
-                color = Color4f.fromColor(colorInt);
-                tokenValueLen += 8;
-            }
-            else if (len >= 7 && PATTERN_COLOR_6.matcher(str.substring(0, 7)).matches())
-            {
-                int colorInt = Integer.parseInt(str.substring(0, 6), 16);
-                color = Color4f.fromColor(colorInt, 1f);
-                tokenValueLen += 6;
-            }
-            else if (len >= 5 && PATTERN_COLOR_4.matcher(str.substring(0, 5)).matches())
-            {
-                int a = Integer.parseInt(str.substring(0, 1), 16) * 17;
-                int r = Integer.parseInt(str.substring(1, 2), 16) * 17;
-                int g = Integer.parseInt(str.substring(2, 3), 16) * 17;
-                int b = Integer.parseInt(str.substring(3, 4), 16) * 17;
-                color = Color4f.fromColor(a << 24 | r << 16 | g << 8 | b);
-                tokenValueLen += 4;
-            }
-            else if (len >= 4 && PATTERN_COLOR_3.matcher(str.substring(0, 4)).matches())
+            if (digits > 0)
             {
-                int r = Integer.parseInt(str.substring(0, 1), 16) * 17;
-                int g = Integer.parseInt(str.substring(1, 2), 16) * 17;
-                int b = Integer.parseInt(str.substring(2, 3), 16) * 17;
-                color = Color4f.fromColor(r << 16 | g << 8 | b, 1f);
-                tokenValueLen += 3;
+                color = getColorFromHexDigits(str, 0, digits);
+                tokenValueLen += digits;
             }
 
             if (color != null)
@@ -0,0 +1,331 @@
+package malilib.render.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntListIterator;
+
+/**
+ * A pre-parsed styled text with placeholder slots, meant for text that has
+ * frequently changing values, such as coordinates in an info overlay line.
+ * The template string is parsed only once, and then setting new values only re-generates
+ * the glyph segments of the changed values, and the lines that contain them.
+ * This also avoids filling the {@link StyledText} string caches with every different value.
+ * <br><br>
+ * The placeholders are written as <b>{index}</b>, for example <b>"XYZ: {0} / {1} / {2}"</b>.
+ * The same index can be used multiple times. The values use the style that is active
+ * at the placeholder position, and they are not parsed for any style codes.
+ */
+public class StyledTextTemplate
+{
+    /**
+     * The placeholders are swapped to this private use area character for parsing the template.
+     * The slot indices are kept separately, in the order of the placeholders in the template.
+     * Any existing occurrences of the character in the template are also recorded there,
+     * so that they are kept as normal text.
+     */
+    protected static final char SLOT_CHAR = '\uE000';
+    protected static final int MAX_SLOTS = 0x1000;
+    /** The recorded "slot index" for literal slot characters in the template */
+    protected static final int LITERAL_SLOT_CHAR = -1;
+
+    protected final TemplateLine[] lines;
+    protected final String[] values;
+    @Nullable protected StyledText text;
+    protected int cacheGeneration = -1;
+
+    protected StyledTextTemplate(List<TemplateLine> lines, int slotCount)
+    {
+        this.lines = lines.toArray(new TemplateLine[0]);
+        this.values = new String[slotCount];
+        this.fill("");
+    }
+
+    public int getSlotCount()
+    {
+        return this.values.length;
+    }
+
+    public StyledTextTemplate setValue(int slot, String value)
+    {
+        if (this.values[slot].equals(value) == false)
+        {
+            this.values[slot] = value;
+            this.text = null;
+        }
+
+        return this;
+    }
+
+    public StyledTextTemplate setValue(int slot, int value)
+    {
+        return this.setValue(slot, String.valueOf(value));
+    }
+
+    public StyledTextTemplate setValue(int slot, long value)
+    {
+        return this.setValue(slot, String.valueOf(value));
+    }
+
+    /**
+     * Sets all the slots to the given value
+     */
+    public StyledTextTemplate fill(String value)
+    {
+        for (int i = 0; i < this.values.length; ++i)
+        {
+            this.values[i] = value;
+        }
+
+        this.text = null;
+
+        return this;
+    }
+
+    /**
+     * @return the text with the current values. The text is only re-built if some value
+     *         has changed since the last call, and then only the lines with changed values are re-built.
+     *         Everything is re-built after the text caches have been cleared on a resource reload,
+     *         as the glyphs may have changed.
+     */
+    public StyledText getText()
+    {
+        StyledText text = this.text;
+        int cacheGeneration = StyledText.getCacheGeneration();
+        boolean regenerate = cacheGeneration != this.cacheGeneration;
+
+        if (text == null || regenerate)
+        {
+            ImmutableList.Builder<StyledTextLine> builder = ImmutableList.builder();
+
+            for (TemplateLine line : this.lines)
+            {
+                line.update(this.values, regenerate);
+                builder.add(line.line);
+            }
+
+            text = new StyledText(builder.build());
+            this.text = text;
+            this.cacheGeneration = cacheGeneration;
+        }
+
+        return text;
+    }
+
+    /**
+     * @return the given line of the text with the current values
+     */
+    public StyledTextLine getLine(int lineIndex)
+    {
+        return this.getText().lines.get(lineIndex);
+    }
+
+    public static StyledTextTemplate parse(String template)
+    {
+        return parse(template, StyledText.builder());
+    }
+
+    public static StyledTextTemplate parse(String template, TextStyle startingStyle)
+    {
+        return parse(template, StyledText.builder(startingStyle));
+    }
+
+    protected static StyledTextTemplate parse(String template, StyledTextBuilder builder)
+    {
+        StringBuilder sb = new StringBuilder(template.length());
+        IntArrayList slots = new IntArrayList();
+        int slotCount = readPlaceholders(template, sb, slots);
+        IntListIterator slotIterator = slots.iterator();
+        List<TemplateLine> lines = new ArrayList<>();
+
+        for (StyledTextLine line : StyledTextParser.parseString(sb.toString(), builder))
+        {
+            lines.add(createTemplateLine(line, slotIterator, slotCount));
+        }
+
+        return new StyledTextTemplate(lines, slotCount);
+    }
+
+    /**
+     * Swaps all the placeholders in the template to the slot character.
+     * @param slots the slot index of each slot character in the output is added to this list,
+     *              or {@link #LITERAL_SLOT_CHAR} for the slot characters that already were in the template
+     * @return the number of slots, ie. the highest placeholder index + 1
+     */
+    protected static int readPlaceholders(String template, StringBuilder sb, IntArrayList slots)
+    {
+        final int length = template.length();
+        int slotCount = 0;
+        int pos = 0;
+
+        while (pos < length)
+        {
+            char c = template.charAt(pos);
+
+            if (c == '{')
+            {
+                int end = pos + 1;
+                int index = 0;
+
+                while (end < length && end - pos <= 4 && template.charAt(end) >= '0' && template.charAt(end) <= '9')
+                {
+                    index = index * 10 + (template.charAt(end) - '0');
+                    ++end;
+                }
+
+                if (end > pos + 1 && end < length && template.charAt(end) == '}' && index < MAX_SLOTS)
+                {
+                    sb.append(SLOT_CHAR);
+                    slots.add(index);
+                    slotCount = Math.max(slotCount, index + 1);
+                    pos = end + 1;
+                    continue;
+                }
+            }
+            else if (c == SLOT_CHAR)
+            {
+                slots.add(LITERAL_SLOT_CHAR);
+            }
+
+            sb.append(c);
+            ++pos;
+        }
+
+        return slotCount;
+    }
+
+    /**
+     * @param slotIterator the slot indices of the slot characters, in the order they appear in the parsed text
+     */
+    protected static TemplateLine createTemplateLine(StyledTextLine line, IntListIterator slotIterator, int slotCount)
+    {
+        List<TemplatePart> parts = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+
+        for (StyledTextSegment segment : line.segments)
+        {
+            String str = segment.displayText;
+            final int length = str.length();
+
+            for (int i = 0; i < length; ++i)
+            {
+                char c = str.charAt(i);
+
+                int slot = c == SLOT_CHAR && slotIterator.hasNext() ? slotIterator.nextInt() : LITERAL_SLOT_CHAR;
+
+                if (slot >= 0 && slot < slotCount)
+                {
+                    addStaticPart(sb, segment.style, parts);
+                    parts.add(new TemplatePart(slot, segment.style, ""));
+                }
+                else
+                {
+                    sb.append(c);
+                }
+            }
+
+            addStaticPart(sb, segment.style, parts);
+        }
+
+        return new TemplateLine(parts);
+    }
+
+    protected static void addStaticPart(StringBuilder sb, TextStyle style, List<TemplatePart> parts)
+    {
+        if (sb.length() > 0)
+        {
+            parts.add(new TemplatePart(-1, style, sb.toString()));
+            sb.setLength(0);
+        }
+    }
+
+    protected static ImmutableList<StyledTextSegment> createSegments(String str, TextStyle style)
+    {
+        if (str.isEmpty())
+        {
+            return ImmutableList.of();
+        }
+
+        ImmutableList.Builder<StyledTextSegment> builder = ImmutableList.builder();
+        StyledTextUtils.generatePerFontTextureSegmentsFor(str, str, style, builder::add, TextRenderer.INSTANCE::getGlyphFor);
+        return builder.build();
+    }
+
+    protected static class TemplateLine
+    {
+        protected final TemplatePart[] parts;
+        @Nullable protected StyledTextLine line;
+
+        protected TemplateLine(List<TemplatePart> parts)
+        {
+            this.parts = parts.toArray(new TemplatePart[0]);
+        }
+
+        /**
+         * Updates the changed values, and re-builds the line if any of its values changed
+         * @return true if the line was re-built
+         */
+        protected boolean update(String[] values, boolean regenerate)
+        {
+            boolean changed = this.line == null || regenerate;
+
+            for (TemplatePart part : this.parts)
+            {
+                changed |= part.update(values, regenerate);
+            }
+
+            if (changed)
+            {
+                ImmutableList.Builder<StyledTextSegment> builder = ImmutableList.builder();
+
+                for (TemplatePart part : this.parts)
+                {
+                    builder.addAll(part.segments);
+                }
+
+                this.line = new StyledTextLine(builder.build());
+            }
+
+            return changed;
+        }
+    }
+
+    protected static class TemplatePart
+    {
+        /** The value slot index, or -1 for static text */
+        protected final int slot;
+        protected final TextStyle style;
+        protected final String staticText;
+        protected ImmutableList<StyledTextSegment> segments = ImmutableList.of();
+        /** The string that the current segments were generated from */
+        @Nullable protected String value;
+
+        protected TemplatePart(int slot, TextStyle style, String staticText)
+        {
+            this.slot = slot;
+            this.style = style;
+            this.staticText = staticText;
+        }
+
+        /**
+         * @return true if the segments of this part were re-generated
+         */
+        protected boolean update(String[] values, boolean regenerate)
+        {
+            String value = this.slot >= 0 && this.slot < values.length ? values[this.slot] : this.staticText;
+
+            if (regenerate == false && Objects.equals(value, this.value))
+            {
+                return false;
+            }
+
+            this.value = value;
+            this.segments = createSegments(value, this.style);
+
+            return true;
+        }
+    }
+}
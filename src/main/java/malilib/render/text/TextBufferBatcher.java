@@ -0,0 +1,119 @@
+package malilib.render.text;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Groups the text vertex data into one buffer per font texture, so that all the text
+ * rendered between two flushes only needs one draw call per texture.
+ * <br><br>
+ * Note that this means that the text is no longer drawn in the order it was emitted in.
+ * All the text on one font sheet is drawn before the text on the next sheet,
+ * in the order in which the sheets were first used since the previous flush.
+ * So overlapping glyphs from different font sheets may end up layered differently
+ * than in the emission order.
+ * <br><br>
+ * This class doesn't do any rendering itself, the actual buffers and the code to start and
+ * to draw them are given by the user, which also allows using it without a game client.
+ *
+ * @param <K> the texture key type
+ * @param <B> the buffer type
+ */
+public class TextBufferBatcher<K, B>
+{
+    protected final HashMap<K, B> buffersByTexture = new HashMap<>();
+    protected final ArrayList<K> activeTextures = new ArrayList<>();
+    protected final Function<K, B> bufferFactory;
+    protected final Consumer<B> bufferStarter;
+    @Nullable protected K lastTexture;
+    @Nullable protected B lastBuffer;
+    protected int flushCount;
+
+    /**
+     * @param bufferFactory creates a new buffer for a texture that doesn't have a buffer yet
+     * @param bufferStarter starts (begins) a buffer when it's first used after a flush
+     */
+    public TextBufferBatcher(Function<K, B> bufferFactory, Consumer<B> bufferStarter)
+    {
+        this.bufferFactory = bufferFactory;
+        this.bufferStarter = bufferStarter;
+    }
+
+    /**
+     * Sets an existing buffer to be used for the given texture
+     */
+    public void setBuffer(K texture, B buffer)
+    {
+        this.buffersByTexture.put(texture, buffer);
+    }
+
+    /**
+     * @return the buffer for the given texture. The buffer is started if it's not yet
+     *         in use since the previous flush.
+     */
+    public B getBufferFor(K texture)
+    {
+        // Reference equality is fine here, as the sheets are fixed/pre-determined
+        if (texture == this.lastTexture)
+        {
+            return this.lastBuffer;
+        }
+
+        B buffer = this.buffersByTexture.get(texture);
+
+        if (buffer == null)
+        {
+            buffer = this.bufferFactory.apply(texture);
+            this.buffersByTexture.put(texture, buffer);
+        }
+
+        // There are usually just one or a few textures in use at once, so a list lookup is cheap
+        if (this.activeTextures.contains(texture) == false)
+        {
+            this.bufferStarter.accept(buffer);
+            this.activeTextures.add(texture);
+        }
+
+        this.lastTexture = texture;
+        this.lastBuffer = buffer;
+
+        return buffer;
+    }
+
+    /**
+     * Passes each buffer that has been used since the previous flush to the given consumer,
+     * once per texture, in the order in which the textures were first used.
+     */
+    public void flush(BiConsumer<K, B> consumer)
+    {
+        for (K texture : this.activeTextures)
+        {
+            consumer.accept(texture, this.buffersByTexture.get(texture));
+            ++this.flushCount;
+        }
+
+        this.activeTextures.clear();
+        this.lastTexture = null;
+        this.lastBuffer = null;
+    }
+
+    /**
+     * @return true if any buffers have been used since the previous flush
+     */
+    public boolean hasActiveBuffers()
+    {
+        return this.activeTextures.isEmpty() == false;
+    }
+
+    /**
+     * @return the number of per-texture buffer flushes done so far
+     */
+    public int getFlushCount()
+    {
+        return this.flushCount;
+    }
+}
@@ -0,0 +1,286 @@
+package malilib.render.text;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A memory bounded cache for parsed/laid out text.
+ * The size of the cache is limited by the estimated memory use of the entries,
+ * as given by the weigher function, instead of the entry count.
+ * <br><br>
+ * The eviction policy is a segmented LRU approximated with CLOCK style "referenced" bits.
+ * New entries go into a probation segment, and only entries that get hit while in probation
+ * are promoted to the protected segment. This makes the cache scan resistant, so that
+ * for example scrolling through a long list of configs with thousands of one-off strings
+ * doesn't evict the frequently used text.
+ * <br><br>
+ * Lookups are lock-free, they only set the referenced bit of the entry. Insertions, weight updates
+ * and evictions are synchronized, but they only happen on cache misses, or when the memory use
+ * of a cached value changes (see {@link #updateWeight(Object, Object)}).
+ */
+public class TextLayoutCache<K, V>
+{
+    /** The maximum share of the total weight that the protected segment can take, in percent */
+    protected static final int PROTECTED_PERCENTAGE = 80;
+
+    protected final String name;
+    protected final ToIntBiFunction<K, V> weigher;
+    protected final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>(512);
+    protected final ArrayDeque<Node<K, V>> probationQueue = new ArrayDeque<>();
+    protected final ArrayDeque<Node<K, V>> protectedQueue = new ArrayDeque<>();
+    protected final LongAdder hits = new LongAdder();
+    protected final LongAdder misses = new LongAdder();
+    protected final LongAdder evictions = new LongAdder();
+    protected volatile long maxWeight;
+    protected volatile long weight;
+    protected long protectedWeight;
+
+    /**
+     * @param name the name of the cache, used for the stats output
+     * @param maxWeight the maximum total weight (estimated bytes) of the entries
+     * @param weigher the function to calculate the weight (estimated bytes) of one entry
+     */
+    public TextLayoutCache(String name, long maxWeight, ToIntBiFunction<K, V> weigher)
+    {
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * @return the cached value for the given key, or if there is no cached value,
+     *         then the value is created using the given loader function and added to the cache
+     */
+    public V get(K key, Function<K, V> loader)
+    {
+        Node<K, V> node = this.map.get(key);
+
+        if (node != null)
+        {
+            node.referenced = true;
+            this.hits.increment();
+            return node.value;
+        }
+
+        this.misses.increment();
+
+        V value = loader.apply(key);
+        this.put(key, value);
+
+        return value;
+    }
+
+    protected synchronized void put(K key, V value)
+    {
+        Node<K, V> node = new Node<>(key, value, Math.max(this.weigher.applyAsInt(key, value), 1));
+
+        // Another thread may have added the same key in the meantime, in which case just keep that one
+        if (this.map.putIfAbsent(key, node) != null)
+        {
+            return;
+        }
+
+        this.probationQueue.addLast(node);
+        this.weight += node.weight;
+        this.evictIfNeeded();
+    }
+
+    /**
+     * Re-calculates the weight of the given entry, if it's still cached with the given value.
+     * This should be called when the memory use of a cached value changes after it was added,
+     * for example when some data gets lazily created for it.
+     */
+    public synchronized void updateWeight(K key, V value)
+    {
+        Node<K, V> node = this.map.get(key);
+
+        if (node == null || node.value != value)
+        {
+            return;
+        }
+
+        int newWeight = Math.max(this.weigher.applyAsInt(key, value), 1);
+        int diff = newWeight - node.weight;
+
+        node.weight = newWeight;
+        this.weight += diff;
+
+        if (node.isProtected)
+        {
+            this.protectedWeight += diff;
+            this.demoteProtectedIfNeeded();
+        }
+
+        this.evictIfNeeded();
+    }
+
+    /**
+     * Evicts entries until the total weight fits the limit.
+     * Referenced probation entries get promoted to the protected segment instead of being evicted,
+     * and the least recently promoted protected entries get demoted back to probation
+     * when the protected segment is over its share of the total weight.
+     */
+    protected void evictIfNeeded()
+    {
+        while (this.weight > this.maxWeight)
+        {
+            Node<K, V> node = this.probationQueue.pollFirst();
+
+            if (node == null)
+            {
+                node = this.protectedQueue.pollFirst();
+
+                if (node == null)
+                {
+                    break;
+                }
+
+                this.protectedWeight -= node.weight;
+                node.referenced = false;
+                node.isProtected = false;
+                this.probationQueue.addLast(node);
+                continue;
+            }
+
+            if (node.referenced)
+            {
+                node.referenced = false;
+                node.isProtected = true;
+                this.protectedQueue.addLast(node);
+                this.protectedWeight += node.weight;
+                this.demoteProtectedIfNeeded();
+                continue;
+            }
+
+            this.map.remove(node.key, node);
+            this.weight -= node.weight;
+            this.evictions.increment();
+        }
+    }
+
+    protected void demoteProtectedIfNeeded()
+    {
+        long maxProtectedWeight = this.maxWeight * PROTECTED_PERCENTAGE / 100;
+
+        while (this.protectedWeight > maxProtectedWeight)
+        {
+            Node<K, V> node = this.protectedQueue.pollFirst();
+
+            if (node == null)
+            {
+                break;
+            }
+
+            // Give recently hit protected entries a second chance
+            if (node.referenced)
+            {
+                node.referenced = false;
+                this.protectedQueue.addLast(node);
+                continue;
+            }
+
+            this.protectedWeight -= node.weight;
+            node.isProtected = false;
+            this.probationQueue.addLast(node);
+        }
+    }
+
+    /**
+     * Sets the maximum total weight (estimated bytes) of the cache,
+     * evicting entries immediately if the current entries don't fit the new limit.
+     */
+    public synchronized void setMaxWeight(long maxWeight)
+    {
+        this.maxWeight = Math.max(maxWeight, 1L);
+        this.evictIfNeeded();
+    }
+
+    public synchronized void invalidateAll()
+    {
+        this.map.clear();
+        this.probationQueue.clear();
+        this.protectedQueue.clear();
+        this.weight = 0;
+        this.protectedWeight = 0;
+    }
+
+    public void resetStats()
+    {
+        this.hits.reset();
+        this.misses.reset();
+        this.evictions.reset();
+    }
+
+    public int getEntryCount()
+    {
+        return this.map.size();
+    }
+
+    public long getWeight()
+    {
+        return this.weight;
+    }
+
+    public long getMaxWeight()
+    {
+        return this.maxWeight;
+    }
+
+    public long getHitCount()
+    {
+        return this.hits.sum();
+    }
+
+    public long getMissCount()
+    {
+        return this.misses.sum();
+    }
+
+    public long getEvictionCount()
+    {
+        return this.evictions.sum();
+    }
+
+    /**
+     * @return the ratio of hits to all requests, or 1.0 if there have been no requests yet
+     */
+    public double getHitRate()
+    {
+        long hits = this.getHitCount();
+        long total = hits + this.getMissCount();
+        return total > 0 ? (double) hits / (double) total : 1.0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("TextLayoutCache{name=%s, entries=%d, weight=%d/%d, hits=%d, misses=%d, hitRate=%.3f, evictions=%d}",
+                             this.name, this.getEntryCount(), this.getWeight(), this.getMaxWeight(),
+                             this.getHitCount(), this.getMissCount(), this.getHitRate(), this.getEvictionCount());
+    }
+
+    protected static class Node<K, V>
+    {
+        protected final K key;
+        protected final V value;
+        /** Only accessed while holding the lock of the cache */
+        protected int weight;
+        protected boolean isProtected;
+        protected volatile boolean referenced;
+
+        protected Node(K key, V value, int weight)
+        {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
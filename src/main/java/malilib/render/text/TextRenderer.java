@@ -38,6 +38,8 @@ public class TextRenderer implements IResourceManagerReloadListener
 
     protected static final Glyph EMPTY_GLYPH = new Glyph(ASCII_TEXTURE, 0, 0, 0, 0, 4, 8, 4, true, ' ');
     protected static final Identifier[] UNICODE_PAGE_LOCATIONS = new Identifier[256];
+    /** Global, so that lines rendered by several renderers can't mix up their baked data */
+    protected static int bakeGenerationCounter;
 
     // This needs to be below the other static fields, because the resource manager reload will access the  other fields!
     public static final TextRenderer INSTANCE = new TextRenderer(GameUtils.getClient().getTextureManager(),
@@ -47,6 +49,10 @@ public class TextRenderer implements IResourceManagerReloadListener
     protected final WorldVertexBufferUploader vboUploader = new WorldVertexBufferUploader();
     protected final BufferBuilder textBuffer = new BufferBuilder(1048576);
     protected final BufferBuilder styleBuffer = new BufferBuilder(8192);
+    protected final BufferBuilder bakeTextBuffer = new BufferBuilder(16384);
+    protected final BufferBuilder bakeStyleBuffer = new BufferBuilder(1024);
+    protected final TextBufferBatcher<Identifier, BufferBuilder> textBatcher = new TextBufferBatcher<>(
+            t -> new BufferBuilder(16384), b -> b.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX_COLOR));
     protected final TextureManager textureManager;
     protected final Identifier asciiTexture;
 
@@ -54,9 +60,10 @@ public class TextRenderer implements IResourceManagerReloadListener
     protected final HashMap<Pair<Identifier, Integer>, List<Glyph>> glyphsBySize = new HashMap<>();
     protected final byte[] glyphWidth = new byte[65536];
     protected final byte[] asciiCharacterWidths = new byte[65536];
+    protected final byte[] charRenderWidths = new byte[65536];
+    protected final byte[] boldCharRenderWidths = new byte[65536];
     protected final int[] charWidth = new int[256];
     protected final int[] colorCode = new int[32];
-    @Nullable protected Identifier currentFontTexture;
     protected boolean anaglyph;
     protected boolean unicode;
     protected boolean buildingStyleBuffer;
@@ -65,6 +72,8 @@ public class TextRenderer implements IResourceManagerReloadListener
     protected int lineHeight = 10;
     protected int asciiGlyphWidth = 8;
     protected int asciiGlyphHeight = 8;
+    protected int textBufferDrawCount;
+    protected int bakeGeneration = ++bakeGenerationCounter;
 
     public TextRenderer(TextureManager textureManager, Identifier asciiTexture, boolean unicode, boolean anaglyph)
     {
@@ -74,6 +83,7 @@ public class TextRenderer implements IResourceManagerReloadListener
         this.anaglyph = anaglyph;
 
         this.setColorCodes(anaglyph);
+        this.textBatcher.setBuffer(asciiTexture, this.textBuffer);
 
         ((IReloadableResourceManager) GameUtils.getClient().getResourceManager()).registerReloadListener(this);
     }
@@ -128,6 +138,8 @@ public class TextRenderer implements IResourceManagerReloadListener
     public void onResourceManagerReload(@Nonnull IResourceManager resourceManager)
     {
         this.unicode = GameUtils.getClient().isUnicode();
+        // Invalidates all the previously baked lines, as the glyph widths and textures may have changed
+        this.bakeGeneration = ++bakeGenerationCounter;
 
         if (GameUtils.getOptions().anaglyph != this.anaglyph)
         {
@@ -144,6 +156,40 @@ public class TextRenderer implements IResourceManagerReloadListener
 
         this.readGlyphSizes();
         this.readFontTexture();
+        this.buildCharRenderWidthTables();
+    }
+
+    /**
+     * Builds the flat per-character render width tables used for the fast text width measurements.
+     * The widths must match the Glyphs that {@link #getGlyphFor(char)} would create.
+     */
+    protected void buildCharRenderWidthTables()
+    {
+        for (int i = 0; i < 65536; ++i)
+        {
+            char c = (char) i;
+            int width = EMPTY_GLYPH.renderWidth;
+            boolean whiteSpace = true;
+
+            if (c == ' ')
+            {
+                // The space always uses the empty glyph
+            }
+            else if (c > 0 && this.unicode == false && this.asciiCharacterWidths[c] != 0)
+            {
+                width = this.asciiCharacterWidths[c];
+                whiteSpace = c == '\t' || c == '\n';
+            }
+            else if (this.glyphWidth[c] != 0)
+            {
+                int data = this.glyphWidth[c] & 0xFF;
+                width = ((data & 0xF) - (data >>> 4) + 1) / 2 + 1;
+                whiteSpace = c == '\t' || c == '\n';
+            }
+
+            this.charRenderWidths[c] = (byte) width;
+            this.boldCharRenderWidths[c] = (byte) (whiteSpace ? width : width + 1);
+        }
     }
 
     public int getFontHeight()
@@ -162,9 +208,122 @@ public class TextRenderer implements IResourceManagerReloadListener
         return index >= 0 && index < 16 ? this.colorCode[index] : 0;
     }
 
+    /**
+     * @return the render width of the given string, after parsing any style codes and tags.
+     *         For multi-line strings this is the width of the longest line.
+     *         This gives the same result as <b>StyledText.parse(str).getRenderWidth()</b>,
+     *         but without creating or caching any styled text objects.
+     */
     public int getRenderWidth(String str)
     {
-        return StyledText.parse(str).getRenderWidth();
+        return this.getRenderWidth(str, false);
+    }
+
+    /**
+     * Measures the render width of the given string, handling the style codes and tags inline.
+     * Only the bold style affects the width of the characters.
+     * @param startBold whether the text starts with the bold style, ie. if the starting style is bold
+     * @return the render width of the longest line in the given string
+     */
+    public int getRenderWidth(String str, boolean startBold)
+    {
+        final int length = str.length();
+        boolean bold = startBold;
+        int maxWidth = 0;
+        int width = 0;
+        int pos = 0;
+
+        while (pos < length)
+        {
+            char current = str.charAt(pos);
+
+            // This follows the token handling in StyledTextParser.parseInto()
+            if ((current == '<' || current == '§' || current == '\\' || current == '\n') &&
+                (current == '\n' || pos == 0 || str.charAt(pos - 1) != '\\'))
+            {
+                char next = pos < length - 1 ? str.charAt(pos + 1) : 0;
+
+                if (current == '<')
+                {
+                    int tagLength = StyledTextParser.getStyleTagLength(str, pos);
+
+                    if (tagLength > 0)
+                    {
+                        bold = StyledTextParser.getBoldStateAfterStyleTag(str, pos, bold);
+                        pos += tagLength;
+                        continue;
+                    }
+                }
+                else if (current == '§' && StyledTextParser.VANILLA_FORMAT_CODES.indexOf(next) != -1)
+                {
+                    char code = Character.toLowerCase(next);
+                    // The color codes and the reset code reset all the vanilla styles
+                    bold = code == 'l' || (bold && (code == 'k' || code == 'm' || code == 'n' || code == 'o'));
+                    pos += 2;
+                    continue;
+                }
+                else if (current == '\n' || next == 'n')
+                {
+                    maxWidth = Math.max(maxWidth, width);
+                    width = 0;
+                    pos += current == '\n' ? 1 : 2;
+                    continue;
+                }
+            }
+
+            width += bold ? this.boldCharRenderWidths[current] : this.charRenderWidths[current];
+            ++pos;
+        }
+
+        return Math.max(maxWidth, width);
+    }
+
+    /**
+     * @return the render width of the given string as raw text, without parsing any style codes,
+     *         ie. the same width as <b>StyledTextLine.unParsed(str).renderWidth</b>
+     */
+    public int getRawTextRenderWidth(String str)
+    {
+        return this.getRawTextRenderWidth(str, 0, str.length());
+    }
+
+    /**
+     * @return the render width of the given range of the given string as raw text,
+     *         without parsing any style codes
+     */
+    public int getRawTextRenderWidth(CharSequence str, int start, int end)
+    {
+        int width = 0;
+
+        for (int i = start; i < end; ++i)
+        {
+            width += this.charRenderWidths[str.charAt(i)];
+        }
+
+        return width;
+    }
+
+    /**
+     * Measures the raw text render widths of all the prefixes of the given string at once,
+     * for example for finding character positions for a text field cursor.
+     * @param widthsOut the array to write the widths to, must have a length of at least str.length() + 1.
+     *                  The value at index i will be the render width of the first i characters.
+     * @return the given array
+     */
+    public int[] getRawTextPrefixRenderWidths(CharSequence str, int[] widthsOut)
+    {
+        final int length = str.length();
+        int width = 0;
+
+        widthsOut[0] = 0;
+
+        for (int i = 0; i < length; ++i)
+        {
+            width += this.charRenderWidths[str.charAt(i)];
+            widthsOut[i + 1] = width;
+        }
+
+        return widthsOut;
     }
 
     public Glyph getGlyphFor(char c)
@@ -289,11 +448,8 @@ public class TextRenderer implements IResourceManagerReloadListener
             this.onResourceManagerReload(mc.getResourceManager());
         }
 
-        if (this.buildingTextBuffer == false)
-        {
-            this.textBuffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX_COLOR);
-            this.buildingTextBuffer = true;
-        }
+        // The per-texture text buffers are started lazily in getTextBufferFor()
+        this.buildingTextBuffer = true;
 
         if (this.buildingStyleBuffer == false)
         {
@@ -316,25 +472,61 @@ public class TextRenderer implements IResourceManagerReloadListener
         }
     }
 
+    /**
+     * Draws all the text buffers that have been built since the buffers were started,
+     * with one draw call per font texture. Note that this means that the text is drawn
+     * grouped by the font sheet, and not in the order it was emitted in, see {@link TextBufferBatcher}.
+     */
     protected void renderTextBuffer()
     {
         if (this.buildingTextBuffer)
         {
-            this.textBuffer.finishDrawing();
-
-            if (this.currentFontTexture != null)
+            if (this.textBatcher.hasActiveBuffers())
             {
                 GlStateManager.enableTexture2D();
-                this.textureManager.bindTexture(this.currentFontTexture);
-                this.vboUploader.draw(this.textBuffer);
+                this.textBatcher.flush(this::drawTextBuffer);
                 GlStateManager.disableTexture2D();
             }
 
-            this.currentFontTexture = null;
             this.buildingTextBuffer = false;
         }
     }
 
+    protected void drawTextBuffer(Identifier texture, BufferBuilder buffer)
+    {
+        buffer.finishDrawing();
+        this.textureManager.bindTexture(texture);
+        this.vboUploader.draw(buffer);
+        ++this.textBufferDrawCount;
+    }
+
+    /**
+     * @return the text buffer for the given font texture. The buffer is started if it's not yet
+     *         in use, and all the text buffers are drawn at once by {@link #renderBuffers()}.
+     */
+    protected BufferBuilder getTextBufferFor(Identifier texture)
+    {
+        this.buildingTextBuffer = true;
+        return this.textBatcher.getBufferFor(texture);
+    }
+
+    /**
+     * @return the number of text buffer draw calls submitted to GL so far
+     */
+    public int getTextBufferDrawCount()
+    {
+        return this.textBufferDrawCount;
+    }
+
+    /**
+     * @return the number of per-texture text buffer flushes done by the batching so far.
+     * Each font texture used between {@link #startBuffers()} and {@link #renderBuffers()} causes one flush.
+     */
+    public int getTextBufferFlushCount()
+    {
+        return this.textBatcher.getFlushCount();
+    }
+
     public void renderText(int x, int y, float z, int defaultColor, boolean shadow, StyledText text)
     {
         this.renderText(x, y, z, defaultColor, shadow, text, this.lineHeight);
@@ -385,11 +577,23 @@ public class TextRenderer implements IResourceManagerReloadListener
     {
         if (this.textBuffer != null)
         {
-            int segmentX = x;
-            Color4f defaultColor4f = Color4f.fromColor(defaultColor);
             RenderUtils.color(1f, 1f, 1f, 1f);
             RenderUtils.setupBlend();
 
+            if (alphaModifier == null && line.canBake())
+            {
+                BakedTextLine baked = this.getOrBakeLine(line, defaultColor, shadow);
+
+                if (baked != null)
+                {
+                    this.renderBakedLineToBuffer(x, y, z, baked);
+                    return;
+                }
+            }
+
+            int segmentX = x;
+            Color4f defaultColor4f = Color4f.fromColor(defaultColor);
+
             for (StyledTextSegment segment : line.segments)
             {
                 segmentX += this.renderTextSegment(segmentX, y, z, defaultColor4f, shadow, segment, alphaModifier);
@@ -397,9 +601,118 @@ public class TextRenderer implements IResourceManagerReloadListener
         }
     }
 
+    /**
+     * @return the cached baked vertex data of the line, or newly baked data if the line
+     *         was not baked yet, or if it was baked with different settings.
+     *         Returns null if the line is being rendered for the first time,
+     *         see {@link StyledTextLine#shouldBake()}.
+     */
+    @Nullable
+    protected BakedTextLine getOrBakeLine(StyledTextLine line, int defaultColor, boolean shadow)
+    {
+        BakedTextLine baked = line.getBakedLine(defaultColor, shadow, this.unicode, this.bakeGeneration);
+
+        if (baked == null)
+        {
+            if (line.shouldBake() == false)
+            {
+                return null;
+            }
+
+            baked = this.bakeLine(line, defaultColor, shadow);
+            line.addBakedLine(baked);
+        }
+
+        return baked;
+    }
+
+    /**
+     * Builds the vertex data of the given line at the origin, using the regular segment rendering code.
+     */
+    protected BakedTextLine bakeLine(StyledTextLine line, int defaultColor, boolean shadow)
+    {
+        List<Identifier> textures = new ArrayList<>();
+        List<int[]> textVertexData = new ArrayList<>();
+        Color4f defaultColor4f = Color4f.fromColor(defaultColor);
+        @Nullable Identifier currentTexture = null;
+        int segmentX = 0;
+
+        this.bakeStyleBuffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
+
+        for (StyledTextSegment segment : line.segments)
+        {
+            // Reference equality is fine here, as the sheets are fixed/pre-determined
+            if (segment.texture != currentTexture)
+            {
+                if (currentTexture != null)
+                {
+                    textures.add(currentTexture);
+                    textVertexData.add(getVertexData(this.bakeTextBuffer));
+                }
+
+                this.bakeTextBuffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX_COLOR);
+                currentTexture = segment.texture;
+            }
+
+            segmentX += this.renderTextSegment(segmentX, 0, 0f, defaultColor4f, shadow, segment, null,
+                                               this.bakeTextBuffer, this.bakeStyleBuffer);
+        }
+
+        if (currentTexture != null)
+        {
+            textures.add(currentTexture);
+            textVertexData.add(getVertexData(this.bakeTextBuffer));
+        }
+
+        int[] styleVertexData = getVertexData(this.bakeStyleBuffer);
+
+        return new BakedTextLine(defaultColor, shadow, this.unicode, this.bakeGeneration,
+                                 textures, textVertexData, DefaultVertexFormats.POSITION_TEX_COLOR.getIntegerSize(),
+                                 styleVertexData, DefaultVertexFormats.POSITION_COLOR.getIntegerSize());
+    }
+
+    protected void renderBakedLineToBuffer(int x, int y, float z, BakedTextLine baked)
+    {
+        final int chunkCount = baked.getTextChunkCount();
+
+        baked.translateTo(x, y, z);
+
+        for (int i = 0; i < chunkCount; ++i)
+        {
+            this.getTextBufferFor(baked.getTexture(i)).addVertexData(baked.getTranslatedTextVertexData(i));
+        }
+
+        if (baked.hasStyleVertexData())
+        {
+            this.styleBuffer.addVertexData(baked.getTranslatedStyleVertexData());
+        }
+    }
+
+    /**
+     * Finishes the given buffer, and copies the raw vertex data out of it
+     */
+    protected static int[] getVertexData(BufferBuilder buffer)
+    {
+        buffer.finishDrawing();
+
+        int[] data = new int[buffer.getVertexCount() * buffer.getVertexFormat().getIntegerSize()];
+        buffer.getByteBuffer().asIntBuffer().get(data);
+
+        return data;
+    }
+
     protected int renderTextSegment(int x, int y, float z, Color4f defaultColor,
                                     boolean shadow, StyledTextSegment segment,
                                     @Nullable FloatUnaryOperator alphaModifier)
+    {
+        return this.renderTextSegment(x, y, z, defaultColor, shadow, segment, alphaModifier,
+                                      this.getTextBufferFor(segment.texture), this.styleBuffer);
+    }
+
+    protected int renderTextSegment(int x, int y, float z, Color4f defaultColor,
+                                    boolean shadow, StyledTextSegment segment,
+                                    @Nullable FloatUnaryOperator alphaModifier,
+                                    BufferBuilder textBuffer, BufferBuilder styleBuffer)
     {
         TextStyle style = segment.style;
         Color4f color = style.color != null ? style.color : defaultColor;
@@ -409,18 +722,6 @@ public class TextRenderer implements IResourceManagerReloadListener
             color = color.withAlpha(alphaModifier.apply(color.a));
         }
 
-        // Reference equality is fine here, as the sheets are fixed/pre-determined
-        if (this.currentFontTexture != segment.texture)
-        {
-            if (this.currentFontTexture != null)
-            {
-                this.renderTextBuffer();
-                this.startBuffers();
-            }
-
-            this.currentFontTexture = segment.texture;
-        }
-
         if (style.shadow != null)
         {
             shadow = style.shadow;
@@ -436,14 +737,22 @@ public class TextRenderer implements IResourceManagerReloadListener
             }
 
             float offset = this.unicode ? 0.5F : 1.0F;
-            this.renderTextSegmentAndStylesWithColor(x + offset, y + offset, z, shadowColor, segment);
+            this.renderTextSegmentAndStylesWithColor(x + offset, y + offset, z, shadowColor, segment, textBuffer, styleBuffer);
         }
 
-        return this.renderTextSegmentAndStylesWithColor(x, y, z, color, segment);
+        return this.renderTextSegmentAndStylesWithColor(x, y, z, color, segment, textBuffer, styleBuffer);
     }
 
     protected int renderTextSegmentAndStylesWithColor(float x, float y, float z,
                                                       Color4f color, StyledTextSegment segment)
+    {
+        return this.renderTextSegmentAndStylesWithColor(x, y, z, color, segment,
+                                                        this.getTextBufferFor(segment.texture), this.styleBuffer);
+    }
+
+    protected int renderTextSegmentAndStylesWithColor(float x, float y, float z,
+                                                      Color4f color, StyledTextSegment segment,
+                                                      BufferBuilder textBuffer, BufferBuilder styleBuffer)
     {
         TextStyle style = segment.style;
 
@@ -451,17 +760,17 @@ public class TextRenderer implements IResourceManagerReloadListener
         {
             float lineHeight = this.unicode ? 0.5F : 1.0F;
             ShapeRenderUtils.renderRectangle(x - 1F, y + this.fontHeight, z,
-                                             segment.renderWidth, lineHeight, color, this.styleBuffer);
+                                             segment.renderWidth, lineHeight, color, styleBuffer);
         }
 
         if (style.strikeThrough)
         {
             float lineHeight = this.unicode ? 0.5F : 1.0F;
             ShapeRenderUtils.renderRectangle(x - 1F, y + this.fontHeight / 2.0F - 1F, z,
-                                             segment.renderWidth + 1, lineHeight, color, this.styleBuffer);
+                                             segment.renderWidth + 1, lineHeight, color, styleBuffer);
         }
 
-        return this.renderTextSegmentWithColor(x, y, z, segment, color, this.textBuffer);
+        return this.renderTextSegmentWithColor(x, y, z, segment, color, textBuffer);
     }
 
     protected int renderTextSegmentWithColor(float x, float y, float z, StyledTextSegment segment,
@@ -0,0 +1,230 @@
+package malilib.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import malilib.MaLiLib;
+import malilib.listener.TaskCompletionListener;
+import malilib.listener.TaskProgressListener;
+
+/**
+ * A data processing task, where the processing function runs on worker threads,
+ * and the results are handed back to the client thread in batches.
+ * The processing function must thus be thread safe and not access the game state.
+ * <br><br>
+ * Note: The result batches are delivered in the order they complete,
+ * which is not necessarily the order of the input data.
+ */
+public class AsyncDataProcessingTask<IN, OUT>
+{
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    protected final List<IN> data;
+    protected final Function<IN, OUT> processingFunction;
+    protected final Consumer<List<OUT>> resultConsumer;
+    protected final Queue<List<OUT>> completedBatches = new ConcurrentLinkedQueue<>();
+    protected final AtomicInteger pendingBatchCount = new AtomicInteger();
+    protected final int batchSize;
+    protected final int dataSize;
+    @Nullable protected TaskProgressListener progressListener;
+    @Nullable protected TaskCompletionListener completionListener;
+    protected volatile boolean cancelled;
+    protected volatile boolean failed;
+    protected int deliveredCount;
+    protected boolean started;
+    protected boolean done;
+
+    /**
+     * @param data the input data. This list must not be modified while the task is running.
+     * @param processingFunction the function to process each data entry. This is called on worker threads.
+     * @param resultConsumer the consumer for the result batches. This is called on the client thread.
+     */
+    public AsyncDataProcessingTask(List<IN> data,
+                                   Function<IN, OUT> processingFunction,
+                                   Consumer<List<OUT>> resultConsumer)
+    {
+        this(data, processingFunction, resultConsumer, DEFAULT_BATCH_SIZE);
+    }
+
+    public AsyncDataProcessingTask(List<IN> data,
+                                   Function<IN, OUT> processingFunction,
+                                   Consumer<List<OUT>> resultConsumer,
+                                   int batchSize)
+    {
+        this.data = data;
+        this.processingFunction = processingFunction;
+        this.resultConsumer = resultConsumer;
+        this.batchSize = Math.max(1, batchSize);
+        this.dataSize = data.size();
+    }
+
+    public AsyncDataProcessingTask<IN, OUT> setProgressListener(@Nullable TaskProgressListener progressListener)
+    {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    public AsyncDataProcessingTask<IN, OUT> setCompletionListener(@Nullable TaskCompletionListener completionListener)
+    {
+        this.completionListener = completionListener;
+        return this;
+    }
+
+    public int getProcessedCount()
+    {
+        return this.deliveredCount;
+    }
+
+    public int getTotalCount()
+    {
+        return this.dataSize;
+    }
+
+    /**
+     * @return true if the task has either completed or was cancelled
+     */
+    public boolean isDone()
+    {
+        return this.done;
+    }
+
+    /**
+     * Cancels the task. Batches that are already being processed will finish,
+     * but their results will not be delivered.
+     */
+    public void cancel()
+    {
+        if (this.done == false)
+        {
+            this.cancelled = true;
+            this.done = true;
+            this.completedBatches.clear();
+
+            if (this.completionListener != null)
+            {
+                this.completionListener.onTaskAborted();
+            }
+        }
+    }
+
+    /**
+     * Submits all the data batches to the given executor
+     */
+    protected void start(Executor executor)
+    {
+        if (this.started)
+        {
+            return;
+        }
+
+        this.started = true;
+        final int size = this.dataSize;
+        final int batchSize = this.batchSize;
+
+        this.pendingBatchCount.set((size + batchSize - 1) / batchSize);
+
+        for (int start = 0; start < size; start += batchSize)
+        {
+            final int batchStart = start;
+            final int batchEnd = Math.min(start + batchSize, size);
+            executor.execute(() -> this.processBatch(batchStart, batchEnd));
+        }
+    }
+
+    protected void processBatch(int start, int end)
+    {
+        try
+        {
+            if (this.cancelled)
+            {
+                return;
+            }
+
+            List<OUT> results = new ArrayList<>(end - start);
+
+            for (int i = start; i < end; ++i)
+            {
+                results.add(this.processingFunction.apply(this.data.get(i)));
+            }
+
+            if (this.cancelled == false)
+            {
+                this.completedBatches.add(results);
+            }
+        }
+        catch (Exception e)
+        {
+            MaLiLib.LOGGER.warn("Exception while processing data in an async task", e);
+            this.failed = true;
+        }
+        finally
+        {
+            this.pendingBatchCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Delivers the completed result batches to the result consumer, until the
+     * queue is empty or the given deadline passes. This must be called on the client thread.
+     */
+    protected void drainResults(long deadline)
+    {
+        if (this.done)
+        {
+            return;
+        }
+
+        boolean delivered = false;
+        // Read the pending count before polling, so that a batch completing
+        // in between can't be missed when checking for the end of the task
+        boolean allBatchesFinished = this.pendingBatchCount.get() <= 0;
+        List<OUT> batch;
+
+        while ((batch = this.completedBatches.poll()) != null)
+        {
+            this.deliveredCount += batch.size();
+            this.resultConsumer.accept(batch);
+            delivered = true;
+
+            // The result consumer may have cancelled the task
+            if (this.done)
+            {
+                return;
+            }
+
+            if (System.nanoTime() >= deadline)
+            {
+                break;
+            }
+        }
+
+        if (delivered && this.progressListener != null)
+        {
+            this.progressListener.onTaskProgress(this.deliveredCount, this.dataSize);
+        }
+
+        if (allBatchesFinished && this.completedBatches.isEmpty())
+        {
+            this.done = true;
+
+            if (this.completionListener != null)
+            {
+                if (this.failed)
+                {
+                    this.completionListener.onTaskAborted();
+                }
+                else
+                {
+                    this.completionListener.onTaskCompleted();
+                }
+            }
+        }
+    }
+}
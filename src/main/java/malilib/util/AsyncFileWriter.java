@@ -0,0 +1,94 @@
+package malilib.util;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import malilib.MaLiLib;
+
+/**
+ * Runs file writing tasks on a single background thread.
+ * If a new task is submitted for a file while the previous task for
+ * that same file is still waiting to run, then the old task is replaced,
+ * so that rapid successive saves only write the file once.
+ * <br><br>
+ * The tasks must not access any game state or other non-thread-safe data,
+ * so any data to be written must be captured on the calling thread.
+ */
+public class AsyncFileWriter
+{
+    public static final AsyncFileWriter INSTANCE = new AsyncFileWriter("malilib-file-writer");
+
+    protected final Map<Path, Runnable> pendingTasks = new HashMap<>();
+    protected final ExecutorService executor;
+
+    public AsyncFileWriter(String threadName)
+    {
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedules the given write task for the given file.
+     * Replaces any previous task for the same file that has not started running yet.
+     */
+    public void submit(Path file, Runnable writeTask)
+    {
+        synchronized (this.pendingTasks)
+        {
+            if (this.pendingTasks.put(file, writeTask) == null)
+            {
+                this.executor.execute(() -> this.runPendingTask(file));
+            }
+        }
+    }
+
+    protected void runPendingTask(Path file)
+    {
+        Runnable task;
+
+        synchronized (this.pendingTasks)
+        {
+            task = this.pendingTasks.remove(file);
+        }
+
+        if (task != null)
+        {
+            try
+            {
+                task.run();
+            }
+            catch (Exception e)
+            {
+                MaLiLib.LOGGER.warn("Exception while writing file '{}'", file.toAbsolutePath(), e);
+            }
+        }
+    }
+
+    /**
+     * Blocks until all the currently scheduled write tasks have finished.
+     * This should be called before reading any files that may have pending writes,
+     * and before the game shuts down.
+     */
+    public void waitForPendingWrites()
+    {
+        try
+        {
+            // The executor runs the tasks in order on a single thread,
+            // so once this empty task runs, all the earlier tasks are done
+            Future<?> future = this.executor.submit(() -> {});
+            future.get(30, TimeUnit.SECONDS);
+        }
+        catch (Exception e)
+        {
+            MaLiLib.LOGGER.warn("Exception while waiting for pending file writes", e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package malilib.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nullable;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import malilib.util.data.json.JsonUtils;
+
+/**
+ * A persistent index of the SHA-1 content hashes of the backup files in one backup directory.
+ * The cached hash of a file is used as long as the file's size and modification time
+ * still match, so that the anti-duplicate checks don't need to re-read all the backup files
+ * on every save. The index is stored in the backup directory in the file {@link #INDEX_FILE_NAME}.
+ */
+public class BackupHashIndex
+{
+    public static final String INDEX_FILE_NAME = ".backup_hashes.json";
+    protected static final int INDEX_VERSION = 1;
+    protected static final HashMap<Path, BackupHashIndex> INDEXES = new HashMap<>();
+
+    protected final Path directory;
+    protected final Path indexFile;
+    protected final HashMap<String, Entry> entries = new HashMap<>();
+    protected final MessageDigest digest = DigestUtils.getSha1Digest();
+    protected boolean dirty;
+
+    protected BackupHashIndex(Path directory)
+    {
+        this.directory = directory;
+        this.indexFile = directory.resolve(INDEX_FILE_NAME);
+    }
+
+    /**
+     * @return the (cached) hash index for the given backup directory
+     */
+    public static BackupHashIndex getIndex(Path backupDirectory)
+    {
+        Path dir = backupDirectory.toAbsolutePath().normalize();
+
+        synchronized (INDEXES)
+        {
+            return INDEXES.computeIfAbsent(dir, d -> {
+                BackupHashIndex index = new BackupHashIndex(d);
+                index.load();
+                return index;
+            });
+        }
+    }
+
+    /**
+     * @return the hash of the given file in the backup directory, either from the index
+     *         if the file has not changed, or by hashing the file and updating the index.
+     *         Returns an empty string if the file could not be read.
+     */
+    public synchronized String getHash(Path file)
+    {
+        String name = file.getFileName().toString();
+        long size = FileUtils.size(file);
+        long lastModified = FileUtils.getMTime(file);
+        Entry entry = this.entries.get(name);
+
+        if (entry != null && entry.size == size && entry.lastModified == lastModified && lastModified != 0)
+        {
+            return entry.hash;
+        }
+
+        String hash = HashUtils.getHashAsHexString(file, this.digest);
+
+        if (hash.isEmpty() == false && lastModified != 0)
+        {
+            this.entries.put(name, new Entry(size, lastModified, hash));
+            this.dirty = true;
+        }
+        else if (entry != null)
+        {
+            this.entries.remove(name);
+            this.dirty = true;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Moves the index entry of a renamed file to the new name.
+     * The entry of any file that was replaced by the move is discarded.
+     */
+    public synchronized void onFileMoved(String oldName, String newName)
+    {
+        Entry entry = this.entries.remove(oldName);
+
+        if (entry != null)
+        {
+            this.entries.put(newName, entry);
+            this.dirty = true;
+        }
+        else if (this.entries.remove(newName) != null)
+        {
+            this.dirty = true;
+        }
+    }
+
+    public synchronized void onFileRemoved(String name)
+    {
+        if (this.entries.remove(name) != null)
+        {
+            this.dirty = true;
+        }
+    }
+
+    /**
+     * Writes the index to file, if it has been modified.
+     * Entries of files that no longer exist are removed first.
+     */
+    public synchronized void saveIfDirty()
+    {
+        if (this.dirty == false)
+        {
+            return;
+        }
+
+        Iterator<Map.Entry<String, Entry>> iter = this.entries.entrySet().iterator();
+
+        while (iter.hasNext())
+        {
+            if (Files.isRegularFile(this.directory.resolve(iter.next().getKey())) == false)
+            {
+                iter.remove();
+            }
+        }
+
+        JsonObject root = new JsonObject();
+        JsonObject filesObj = new JsonObject();
+
+        root.addProperty("version", INDEX_VERSION);
+
+        for (Map.Entry<String, Entry> mapEntry : this.entries.entrySet())
+        {
+            Entry entry = mapEntry.getValue();
+            JsonObject obj = new JsonObject();
+
+            obj.addProperty("size", entry.size);
+            obj.addProperty("mtime", entry.lastModified);
+            obj.addProperty("hash", entry.hash);
+            filesObj.add(mapEntry.getKey(), obj);
+        }
+
+        root.add("files", filesObj);
+
+        if (JsonUtils.writeJsonToFile(root, this.indexFile))
+        {
+            this.dirty = false;
+        }
+    }
+
+    protected void load()
+    {
+        if (Files.isRegularFile(this.indexFile) == false)
+        {
+            return;
+        }
+
+        @Nullable JsonElement element = JsonUtils.parseJsonFile(this.indexFile);
+
+        if (element == null || element.isJsonObject() == false ||
+            JsonUtils.getIntegerOrDefault(element.getAsJsonObject(), "version", 0) != INDEX_VERSION)
+        {
+            return;
+        }
+
+        JsonObject filesObj = JsonUtils.getNestedObject(element.getAsJsonObject(), "files", false);
+
+        if (filesObj == null)
+        {
+            return;
+        }
+
+        for (Map.Entry<String, JsonElement> mapEntry : filesObj.entrySet())
+        {
+            if (mapEntry.getValue().isJsonObject())
+            {
+                JsonObject obj = mapEntry.getValue().getAsJsonObject();
+                long size = JsonUtils.getLongOrDefault(obj, "size", -1L);
+                long lastModified = JsonUtils.getLongOrDefault(obj, "mtime", 0L);
+                String hash = JsonUtils.getStringOrDefault(obj, "hash", "");
+
+                if (size >= 0 && lastModified != 0 && hash.isEmpty() == false)
+                {
+                    this.entries.put(mapEntry.getKey(), new Entry(size, lastModified, hash));
+                }
+            }
+        }
+    }
+
+    protected static class Entry
+    {
+        public final long size;
+        public final long lastModified;
+        public final String hash;
+
+        public Entry(long size, long lastModified, String hash)
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
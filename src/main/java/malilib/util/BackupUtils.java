@@ -2,7 +2,6 @@ package malilib.util;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -90,6 +89,7 @@ public class BackupUtils
         final String name = fileIn.getFileName().toString();
         final String nameAndSuffix = name + suffix;
         final Path backupFile = backupDirectory.resolve(String.format(formatString, nameAndSuffix, 1));
+        final BackupHashIndex hashIndex = BackupHashIndex.getIndex(backupDirectory);
         @Nullable Path existingIdenticalBackup = null;
         boolean foundExistingBackup = false;
 
@@ -117,6 +117,7 @@ public class BackupUtils
                 if (Files.exists(existingIdenticalBackup) == false &&
                     FileUtils.move(tmpFile, existingIdenticalBackup))
                 {
+                    hashIndex.onFileMoved(tmpFile.getFileName().toString(), tmpName);
                     foundExistingBackup = true;
                 }
             }
@@ -126,6 +127,7 @@ public class BackupUtils
         if (Files.exists(backupFile) &&
             rotateNumberedFiles(backupDirectory, nameAndSuffix, formatString, maxBackups) == false)
         {
+            hashIndex.saveIfDirty();
             return false;
         }
 
@@ -133,6 +135,8 @@ public class BackupUtils
         {
             if (FileUtils.move(existingIdenticalBackup, backupFile))
             {
+                hashIndex.onFileMoved(existingIdenticalBackup.getFileName().toString(), backupFile.getFileName().toString());
+                hashIndex.saveIfDirty();
                 return true;
             }
 
@@ -140,6 +144,10 @@ public class BackupUtils
                                  existingIdenticalBackup.toAbsolutePath(), backupFile.toAbsolutePath());
         }
 
+        // The copy keeps the modification time, so any old entry for the name would be hard to tell apart
+        hashIndex.onFileRemoved(backupFile.getFileName().toString());
+        hashIndex.saveIfDirty();
+
         return FileUtils.copy(fileIn, backupFile, false, MaLiLib.LOGGER::error);
     }
 
@@ -175,6 +183,7 @@ public class BackupUtils
             }
         }
 
+        BackupHashIndex hashIndex = BackupHashIndex.getIndex(dir);
         Path tmp1 = dir.resolve(String.format(nameFormatString, baseFileName, firstEmptySlot));
 
         for (int i = firstEmptySlot; i > 1; --i)
@@ -182,9 +191,14 @@ public class BackupUtils
             Path tmp2 = tmp1;
             tmp1 = dir.resolve(String.format(nameFormatString, baseFileName, i - 1));
 
-            if (Files.isRegularFile(tmp1) && FileUtils.move(tmp1, tmp2) == false)
+            if (Files.isRegularFile(tmp1))
             {
-                return false;
+                if (FileUtils.move(tmp1, tmp2) == false)
+                {
+                    return false;
+                }
+
+                hashIndex.onFileMoved(tmp1.getFileName().toString(), tmp2.getFileName().toString());
             }
         }
 
@@ -219,6 +233,10 @@ public class BackupUtils
         return FileUtils.copy(file, backupDirectory.resolve(backupFileName), false, MaLiLib.LOGGER::error);
     }
 
+    /**
+     * Finds the existing backups of the given file, which are identical to it by file size and SHA-1 hash.
+     * The hashes of the backup files are cached in the {@link BackupHashIndex} of the backup directory.
+     */
     public static List<Path> findIdenticalBackupFiles(Path backupDirectory, Path file, int maxBackups, String suffix)
     {
         final List<Path> files = new ArrayList<>();
@@ -226,7 +244,7 @@ public class BackupUtils
         final int numberLength = (int) Math.ceil(Math.log10(maxBackups));
         final String formatString = "%s%0" + numberLength + "d";
         final String nameAndSuffix = file.getFileName().toString() + suffix;
-        final MessageDigest digest = DigestUtils.getSha1Digest();
+        final BackupHashIndex hashIndex = BackupHashIndex.getIndex(backupDirectory);
         @Nullable String currentHash = null;
 
         for (int i = 1; i <= maxBackups; ++i)
@@ -238,16 +256,18 @@ public class BackupUtils
                 // lazy initialization, only calculate the current file's hash if it's needed
                 if (currentHash == null)
                 {
-                    currentHash = HashUtils.getHashAsHexString(file, digest);
+                    currentHash = HashUtils.getHashAsHexString(file, DigestUtils.getSha1Digest());
                 }
 
-                if (HashUtils.getHashAsHexString(tmp, digest).equals(currentHash))
+                if (currentHash.isEmpty() == false && hashIndex.getHash(tmp).equals(currentHash))
                 {
                     files.add(tmp);
                 }
             }
         }
 
+        hashIndex.saveIfDirty();
+
         return files;
     }
 }
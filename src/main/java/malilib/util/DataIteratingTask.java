@@ -14,6 +14,7 @@ public class DataIteratingTask<TYPE>
     protected final BiConsumer<TYPE, DataIteratingTask<TYPE>> dataProcessingTask;
     protected final int dataSize;
     protected int index;
+    protected boolean finished;
     @Nullable protected final EventListener endTask;
 
     public DataIteratingTask(List<TYPE> data,
@@ -29,7 +30,7 @@ public class DataIteratingTask<TYPE>
 
     public void advance()
     {
-        if (this.iterator.hasNext())
+        if (this.hasNext())
         {
             ++this.index;
             this.dataProcessingTask.accept(this.iterator.next(), this);
@@ -42,12 +43,43 @@ public class DataIteratingTask<TYPE>
 
     public void cancel()
     {
-        if (this.endTask != null)
+        if (this.finished == false)
         {
-            this.endTask.onEvent();
+            this.finished = true;
+
+            if (this.endTask != null)
+            {
+                this.endTask.onEvent();
+            }
         }
     }
 
+    /**
+     * @return true if there is still data left to process
+     */
+    public boolean hasNext()
+    {
+        return this.finished == false && this.iterator.hasNext();
+    }
+
+    /**
+     * @return true if this task has either processed all the data or was cancelled
+     */
+    public boolean isFinished()
+    {
+        return this.finished;
+    }
+
+    public int getProcessedCount()
+    {
+        return this.index;
+    }
+
+    public int getTotalCount()
+    {
+        return this.dataSize;
+    }
+
     public String getProgressString()
     {
         return StringUtils.translate("malilib.label.misc.data_iterating_task.progress", this.index, this.dataSize);
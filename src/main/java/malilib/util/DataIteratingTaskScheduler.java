@@ -0,0 +1,364 @@
+package malilib.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import malilib.event.ClientTickHandler;
+import malilib.listener.TaskCompletionListener;
+import malilib.listener.TaskProgressListener;
+
+/**
+ * Runs scheduled {@link DataIteratingTask}s from the client tick, processing as many
+ * data entries per tick as fit within the per-tick time budget.
+ * The tasks are processed in the order of their priority, lower values first.
+ * <br><br>
+ * Note: The data processing function of a scheduled task must process the entry
+ * synchronously, and must not call {@link DataIteratingTask#advance()} itself.
+ * <br><br>
+ * Pure computation tasks can instead be scheduled via {@link #scheduleAsync(AsyncDataProcessingTask)},
+ * in which case the processing runs on a bounded pool of worker threads, and only the
+ * handling of the result batches happens on the client thread within the tick budget.
+ * <br><br>
+ * Note: Since this runs from the client tick, the tasks only progress while in a world.
+ */
+public class DataIteratingTaskScheduler implements ClientTickHandler
+{
+    public static final long DEFAULT_TICK_BUDGET_NANOS = 5000000L; // 5 ms
+
+    protected final List<ScheduledTask<?>> tasks = new ArrayList<>();
+    protected final List<ScheduledTask<?>> pendingTasks = new ArrayList<>();
+    protected final List<AsyncDataProcessingTask<?, ?>> asyncTasks = new ArrayList<>();
+    protected final List<AsyncDataProcessingTask<?, ?>> pendingAsyncTasks = new ArrayList<>();
+    protected long tickBudgetNanos = DEFAULT_TICK_BUDGET_NANOS;
+    @Nullable protected ExecutorService workerPool;
+    protected boolean ticking;
+
+    /**
+     * Sets the maximum time in nanoseconds that can be spent processing tasks per client tick.
+     * At least one data entry is processed per tick from the highest priority running task,
+     * even if processing it takes longer than the budget.
+     */
+    public void setTickBudgetNanos(long tickBudgetNanos)
+    {
+        this.tickBudgetNanos = Math.max(0L, tickBudgetNanos);
+    }
+
+    public long getTickBudgetNanos()
+    {
+        return this.tickBudgetNanos;
+    }
+
+    /**
+     * Schedules the given task to be run from the client tick, with the default priority of 100
+     * @return the handle for the scheduled task, which can be used to pause, resume or cancel it
+     */
+    public <TYPE> ScheduledTask<TYPE> schedule(DataIteratingTask<TYPE> task)
+    {
+        return this.schedule(task, 100);
+    }
+
+    /**
+     * Schedules the given task to be run from the client tick
+     * @param priority the priority of the task, lower values are processed first
+     * @return the handle for the scheduled task, which can be used to pause, resume or cancel it
+     */
+    public <TYPE> ScheduledTask<TYPE> schedule(DataIteratingTask<TYPE> task, int priority)
+    {
+        ScheduledTask<TYPE> scheduledTask = new ScheduledTask<>(task, priority);
+        this.pendingTasks.add(scheduledTask);
+        return scheduledTask;
+    }
+
+    /**
+     * Schedules the given data processing function to be run on the worker thread pool.
+     * The result batches are delivered to the result consumer on the client thread.
+     * @return the scheduled task, which can be used to cancel it
+     */
+    public <IN, OUT> AsyncDataProcessingTask<IN, OUT> scheduleAsync(List<IN> data,
+                                                                    Function<IN, OUT> processingFunction,
+                                                                    Consumer<List<OUT>> resultConsumer)
+    {
+        return this.scheduleAsync(new AsyncDataProcessingTask<>(data, processingFunction, resultConsumer));
+    }
+
+    /**
+     * Starts the given task on the worker thread pool.
+     * The result batches are delivered to the result consumer of the task on the client thread.
+     * @return the task that was passed in
+     */
+    public <IN, OUT> AsyncDataProcessingTask<IN, OUT> scheduleAsync(AsyncDataProcessingTask<IN, OUT> task)
+    {
+        task.start(this.getWorkerPool());
+        // Added via the pending list, as this may get called from a result consumer during the tick
+        this.pendingAsyncTasks.add(task);
+        return task;
+    }
+
+    /**
+     * Runs the given task on the worker thread pool. The task must be thread safe and
+     * not access the game state, and it must hand any results back to the client thread by itself.
+     */
+    public void executeAsync(Runnable task)
+    {
+        this.getWorkerPool().execute(task);
+    }
+
+    public boolean hasTasks()
+    {
+        return this.tasks.isEmpty() == false ||
+               this.pendingTasks.isEmpty() == false ||
+               this.asyncTasks.isEmpty() == false ||
+               this.pendingAsyncTasks.isEmpty() == false;
+    }
+
+    /**
+     * Cancels all the tasks. If this is called from a task or a result consumer during the tick,
+     * then the cancelled tasks are removed at the end of the tick.
+     */
+    public void cancelAll()
+    {
+        this.pendingTasks.forEach(ScheduledTask::cancel);
+        this.tasks.forEach(ScheduledTask::cancel);
+        this.pendingAsyncTasks.forEach(AsyncDataProcessingTask::cancel);
+        this.asyncTasks.forEach(AsyncDataProcessingTask::cancel);
+
+        this.pendingTasks.clear();
+        this.pendingAsyncTasks.clear();
+
+        // The lists can't be modified while they are being iterated in onClientTick()
+        if (this.ticking == false)
+        {
+            this.tasks.clear();
+            this.asyncTasks.clear();
+        }
+    }
+
+    protected ExecutorService getWorkerPool()
+    {
+        if (this.workerPool == null)
+        {
+            int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+            this.workerPool = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                                                     new LinkedBlockingQueue<>(), new WorkerThreadFactory());
+            ((ThreadPoolExecutor) this.workerPool).allowCoreThreadTimeOut(true);
+        }
+
+        return this.workerPool;
+    }
+
+    @Override
+    public int getPriority()
+    {
+        return 200;
+    }
+
+    @Override
+    public void onClientTick()
+    {
+        if (this.pendingTasks.isEmpty() == false)
+        {
+            this.tasks.addAll(this.pendingTasks);
+            this.pendingTasks.clear();
+            this.tasks.sort(Comparator.comparingInt(ScheduledTask::getPriority));
+        }
+
+        if (this.pendingAsyncTasks.isEmpty() == false)
+        {
+            this.asyncTasks.addAll(this.pendingAsyncTasks);
+            this.pendingAsyncTasks.clear();
+        }
+
+        if (this.tasks.isEmpty() && this.asyncTasks.isEmpty())
+        {
+            return;
+        }
+
+        this.ticking = true;
+
+        try
+        {
+            this.processTasks();
+        }
+        finally
+        {
+            this.ticking = false;
+        }
+    }
+
+    protected void processTasks()
+    {
+        final long deadline = System.nanoTime() + this.tickBudgetNanos;
+        boolean processedAny = false;
+
+        if (this.asyncTasks.isEmpty() == false)
+        {
+            for (AsyncDataProcessingTask<?, ?> task : this.asyncTasks)
+            {
+                task.drainResults(deadline);
+            }
+
+            this.asyncTasks.removeIf(AsyncDataProcessingTask::isDone);
+        }
+
+        for (ScheduledTask<?> task : this.tasks)
+        {
+            if (task.isPaused() || task.isDone())
+            {
+                continue;
+            }
+
+            // Always process at least one entry per tick, so that a
+            // small budget can't stall the tasks completely
+            if (processedAny && System.nanoTime() >= deadline)
+            {
+                break;
+            }
+
+            task.processUntil(deadline);
+            processedAny = true;
+        }
+
+        this.tasks.removeIf(ScheduledTask::isDone);
+    }
+
+    protected static class WorkerThreadFactory implements ThreadFactory
+    {
+        protected final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "malilib-worker-" + this.threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+
+    public static class ScheduledTask<TYPE>
+    {
+        protected final DataIteratingTask<TYPE> task;
+        protected final int priority;
+        @Nullable protected TaskProgressListener progressListener;
+        @Nullable protected TaskCompletionListener completionListener;
+        protected boolean paused;
+        protected boolean done;
+
+        protected ScheduledTask(DataIteratingTask<TYPE> task, int priority)
+        {
+            this.task = task;
+            this.priority = priority;
+        }
+
+        public DataIteratingTask<TYPE> getTask()
+        {
+            return this.task;
+        }
+
+        public int getPriority()
+        {
+            return this.priority;
+        }
+
+        public boolean isPaused()
+        {
+            return this.paused;
+        }
+
+        /**
+         * @return true if the task has either completed or was cancelled
+         */
+        public boolean isDone()
+        {
+            return this.done;
+        }
+
+        public ScheduledTask<TYPE> setProgressListener(@Nullable TaskProgressListener progressListener)
+        {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        public ScheduledTask<TYPE> setCompletionListener(@Nullable TaskCompletionListener completionListener)
+        {
+            this.completionListener = completionListener;
+            return this;
+        }
+
+        public void pause()
+        {
+            this.paused = true;
+        }
+
+        public void resume()
+        {
+            this.paused = false;
+        }
+
+        /**
+         * Cancels the task. This will call the end task of the DataIteratingTask,
+         * and {@link TaskCompletionListener#onTaskAborted()} of the completion listener.
+         */
+        public void cancel()
+        {
+            if (this.done == false)
+            {
+                this.done = true;
+                this.task.cancel();
+
+                if (this.completionListener != null)
+                {
+                    this.completionListener.onTaskAborted();
+                }
+            }
+        }
+
+        protected void processUntil(long deadline)
+        {
+            final DataIteratingTask<TYPE> task = this.task;
+
+            do
+            {
+                task.advance();
+            }
+            // The task may get cancelled (for example via cancelAll()) from within the processing function
+            while (task.hasNext() && this.paused == false && this.done == false && System.nanoTime() < deadline);
+
+            if (this.progressListener != null)
+            {
+                this.progressListener.onTaskProgress(task.getProcessedCount(), task.getTotalCount());
+            }
+
+            if (task.hasNext() == false && this.done == false)
+            {
+                this.done = true;
+
+                // Calls the end task of the DataIteratingTask, if it didn't finish already
+                task.cancel();
+
+                if (this.completionListener != null)
+                {
+                    // The processing function may have cancelled the task before the end of the data
+                    if (task.getProcessedCount() >= task.getTotalCount())
+                    {
+                        this.completionListener.onTaskCompleted();
+                    }
+                    else
+                    {
+                        this.completionListener.onTaskAborted();
+                    }
+                }
+            }
+        }
+    }
+}
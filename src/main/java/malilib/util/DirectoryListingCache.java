@@ -0,0 +1,692 @@
+package malilib.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import malilib.MaLiLib;
+import malilib.MaLiLibReference;
+import malilib.config.util.ConfigUtils;
+
+/**
+ * A cache of directory listings, ie. the names, types, sizes and modification times
+ * of the entries in a directory. A cached listing is validated against the modification time
+ * of the directory, and directories are also registered to a {@link WatchService},
+ * so that the listings of watched directories don't need any filesystem calls on the lookup at all.
+ * The watch events update the changed entries of a listing incrementally.
+ * Directories are only watched while there are watch users, such as open file browsers,
+ * see {@link #addWatchUser(Object)}. When the last user is removed, all the watches are cancelled,
+ * and the listings fall back to the modification time validation.
+ * <br><br>
+ * The listings are also stored in an index file, so that re-opening large directories
+ * after a restart only needs to check the directory modification time.
+ * Note that modifying a file in-place doesn't change the modification time of the directory,
+ * so the size and modification time of files that were modified while the game
+ * was not running can be outdated, until the directory changes.
+ * <br><br>
+ * The cache is thread safe, and the directory reads happen outside the lock,
+ * so that a background scan doesn't block the client thread from listing other directories.
+ */
+public class DirectoryListingCache
+{
+    public static final int MAX_CACHED_DIRECTORIES = 4096;
+    public static final int MAX_WATCHED_DIRECTORIES = 512;
+    protected static final int INDEX_FILE_VERSION = 1;
+
+    protected final LinkedHashMap<Path, DirectoryListing> listings = new LinkedHashMap<>(256, 0.75f, true);
+    protected final HashMap<Path, WatchKey> watchKeys = new HashMap<>();
+    protected final Set<Object> watchUsers = Collections.newSetFromMap(new IdentityHashMap<>());
+    @Nullable protected WatchService watchService;
+    protected boolean watchServiceFailed;
+    /** Incremented whenever watch events are received, used to detect events during a directory read */
+    protected long watchEventCount;
+    protected boolean indexLoaded;
+    protected boolean dirty;
+
+    /**
+     * @return the listing of the given directory, either from the cache if it is still valid,
+     *         or by reading the directory. If the directory can't be read, then an empty listing is returned.
+     */
+    public DirectoryListing getListing(Path directory)
+    {
+        Path dir = directory.toAbsolutePath().normalize();
+        boolean watched;
+        long eventCount;
+        long lastModified;
+
+        synchronized (this)
+        {
+            this.loadIndexIfNeeded();
+            this.processWatchEvents();
+
+            DirectoryListing listing = this.listings.get(dir);
+
+            // Trusted listings are watched, and any changes are applied to them from the watch events
+            if (listing != null && listing.trusted)
+            {
+                return listing;
+            }
+
+            // Register the watch and read the modification time before reading the
+            // directory, so that any changes during the read will invalidate the listing
+            watched = this.registerWatch(dir);
+            eventCount = this.watchEventCount;
+            lastModified = FileUtils.getMTime(dir);
+
+            if (listing != null && listing.lastModified == lastModified && lastModified != 0)
+            {
+                // Any changes after this point will be applied from the watch events
+                listing.trusted = watched;
+                return listing;
+            }
+        }
+
+        List<FileEntry> entries = readDirectory(dir);
+
+        synchronized (this)
+        {
+            this.processWatchEvents();
+
+            // If any events arrived during the read, then they may or may not have been for this
+            // directory, so in that case the listing falls back to the modification time validation.
+            // The watch may also have been cancelled during the read, if the last watch user was removed.
+            boolean trusted = watched && eventCount == this.watchEventCount && lastModified != 0 &&
+                              this.watchKeys.containsKey(dir);
+            DirectoryListing listing = new DirectoryListing(dir, lastModified, entries, trusted);
+
+            this.listings.put(dir, listing);
+            this.evictIfNeeded();
+            this.dirty = true;
+
+            return listing;
+        }
+    }
+
+    /**
+     * Removes the cached listings of the given directory and all of its sub-directories
+     */
+    public synchronized void invalidate(Path directory)
+    {
+        this.removeTree(directory.toAbsolutePath().normalize());
+    }
+
+    public synchronized void invalidateAll()
+    {
+        this.listings.clear();
+        this.dirty = true;
+    }
+
+    public synchronized int getCachedDirectoryCount()
+    {
+        return this.listings.size();
+    }
+
+    /**
+     * Adds a user of the directory watches, for example an open file browser.
+     * Adding the same user multiple times has no effect.
+     * The directories that get listed are only watched while there are any watch users.
+     */
+    public synchronized void addWatchUser(Object user)
+    {
+        this.watchUsers.add(user);
+    }
+
+    /**
+     * Removes a user of the directory watches. When the last user is removed,
+     * all the watches are cancelled, and the listings will be validated by the
+     * directory modification time again the next time they are used.
+     */
+    public synchronized void removeWatchUser(Object user)
+    {
+        if (this.watchUsers.remove(user) && this.watchUsers.isEmpty())
+        {
+            this.cancelAllWatches();
+        }
+    }
+
+    protected void cancelAllWatches()
+    {
+        // Apply any changes that have already been received
+        this.processWatchEvents();
+
+        for (WatchKey key : this.watchKeys.values())
+        {
+            key.cancel();
+        }
+
+        this.watchKeys.clear();
+
+        // Without the watches, any further changes would not be noticed
+        for (DirectoryListing listing : this.listings.values())
+        {
+            listing.trusted = false;
+        }
+
+        if (this.watchService != null)
+        {
+            try
+            {
+                this.watchService.close();
+            }
+            catch (Exception ignore) {}
+
+            this.watchService = null;
+        }
+    }
+
+    protected void evictIfNeeded()
+    {
+        if (this.listings.size() <= MAX_CACHED_DIRECTORIES)
+        {
+            return;
+        }
+
+        Iterator<Map.Entry<Path, DirectoryListing>> iter = this.listings.entrySet().iterator();
+
+        while (this.listings.size() > MAX_CACHED_DIRECTORIES && iter.hasNext())
+        {
+            Path dir = iter.next().getKey();
+            iter.remove();
+
+            WatchKey key = this.watchKeys.remove(dir);
+
+            if (key != null)
+            {
+                key.cancel();
+            }
+        }
+    }
+
+    /**
+     * @return true if the directory is being watched
+     */
+    protected boolean registerWatch(Path dir)
+    {
+        WatchKey key = this.watchKeys.get(dir);
+
+        if (key != null && key.isValid())
+        {
+            return true;
+        }
+
+        if (this.watchUsers.isEmpty())
+        {
+            return false;
+        }
+
+        WatchService service = this.getWatchService();
+
+        if (service == null || this.watchKeys.size() >= MAX_WATCHED_DIRECTORIES)
+        {
+            return false;
+        }
+
+        try
+        {
+            key = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                               StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            this.watchKeys.put(dir, key);
+            return true;
+        }
+        catch (Exception e)
+        {
+            this.watchKeys.remove(dir);
+            return false;
+        }
+    }
+
+    /**
+     * Applies the changes from the received watch events to the listings of the watched directories.
+     * Only the changed entries are read again, the rest of the listing is kept as-is.
+     */
+    protected void processWatchEvents()
+    {
+        if (this.watchService == null)
+        {
+            return;
+        }
+
+        Set<String> changedNames = new HashSet<>();
+        WatchKey key;
+
+        while ((key = this.watchService.poll()) != null)
+        {
+            Path dir = (Path) key.watchable();
+            boolean overflow = false;
+
+            ++this.watchEventCount;
+            changedNames.clear();
+
+            for (WatchEvent<?> event : key.pollEvents())
+            {
+                if (event.context() instanceof Path)
+                {
+                    Path name = (Path) event.context();
+                    changedNames.add(name.toString());
+
+                    // The created or deleted entry may have been a directory that was moved or replaced,
+                    // so drop the listings and watches of it and anything under it
+                    if (event.kind() != StandardWatchEventKinds.ENTRY_MODIFY)
+                    {
+                        this.removeTree(dir.resolve(name));
+                    }
+                }
+                else if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                {
+                    overflow = true;
+                }
+            }
+
+            // The key becomes invalid if the directory was deleted
+            if (key.reset() == false)
+            {
+                this.watchKeys.remove(dir, key);
+                this.listings.remove(dir);
+            }
+            // For overflows the events were lost, so drop everything under the watched directory
+            else if (overflow)
+            {
+                this.removeTree(dir);
+            }
+            else if (changedNames.isEmpty() == false)
+            {
+                DirectoryListing listing = this.listings.get(dir);
+
+                if (listing != null)
+                {
+                    this.listings.put(dir, listing.createUpdatedListing(changedNames));
+                }
+            }
+
+            this.dirty = true;
+        }
+    }
+
+    /**
+     * Removes the listings and cancels the watches of the given directory and all of its sub-directories
+     */
+    protected void removeTree(Path root)
+    {
+        if (this.listings.keySet().removeIf(p -> p.startsWith(root)))
+        {
+            this.dirty = true;
+        }
+
+        Iterator<Map.Entry<Path, WatchKey>> iter = this.watchKeys.entrySet().iterator();
+
+        while (iter.hasNext())
+        {
+            Map.Entry<Path, WatchKey> entry = iter.next();
+
+            if (entry.getKey().startsWith(root))
+            {
+                entry.getValue().cancel();
+                iter.remove();
+            }
+        }
+    }
+
+    @Nullable
+    protected WatchService getWatchService()
+    {
+        if (this.watchService == null && this.watchServiceFailed == false)
+        {
+            try
+            {
+                this.watchService = FileSystems.getDefault().newWatchService();
+            }
+            catch (Exception e)
+            {
+                // Some file systems don't support watching, the listings will then only be validated by the mtime
+                MaLiLib.LOGGER.warn("Failed to create a directory WatchService: {}", e.getMessage());
+                this.watchServiceFailed = true;
+            }
+        }
+
+        return this.watchService;
+    }
+
+    /**
+     * Reads the entries of the given directory. This walks the directory with a max depth of 1,
+     * which gets the entry attributes from the directory read itself on file systems that support it.
+     */
+    protected static List<FileEntry> readDirectory(Path dir)
+    {
+        final List<FileEntry> entries = new ArrayList<>();
+
+        try
+        {
+            Files.walkFileTree(dir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), 1, new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                {
+                    entries.add(FileEntry.of(file.getFileName().toString(), attrs));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc)
+                {
+                    // The directory itself failed to be read if this is called for it
+                    if (file.equals(dir) == false && file.getFileName() != null)
+                    {
+                        entries.add(new FileEntry(file.getFileName().toString(), false, false, 0L, 0L));
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (Exception e)
+        {
+            MaLiLib.LOGGER.warn("Failed to read the directory '{}': {}", dir, e.getMessage());
+        }
+
+        return entries;
+    }
+
+    /**
+     * @return the entry for the given file, or null if the file doesn't exist
+     */
+    @Nullable
+    protected static FileEntry readEntry(Path dir, String name)
+    {
+        Path file = dir.resolve(name);
+
+        try
+        {
+            return FileEntry.of(name, Files.readAttributes(file, BasicFileAttributes.class));
+        }
+        catch (Exception e)
+        {
+            // Broken symbolic links etc.
+            return Files.exists(file, LinkOption.NOFOLLOW_LINKS) ? new FileEntry(name, false, false, 0L, 0L) : null;
+        }
+    }
+
+    /**
+     * Writes the listings to the index file on the file writer thread, if they have changed since the last save
+     */
+    public void saveToFileIfDirty()
+    {
+        final List<DirectoryListing> listings;
+
+        synchronized (this)
+        {
+            if (this.dirty == false || this.indexLoaded == false)
+            {
+                return;
+            }
+
+            // The listings are immutable apart from the trusted flag, which isn't saved
+            listings = new ArrayList<>(this.listings.values());
+            this.dirty = false;
+        }
+
+        final Path file = this.getIndexFile();
+        AsyncFileWriter.INSTANCE.submit(file, () -> writeIndexFile(file, listings));
+    }
+
+    protected void loadIndexIfNeeded()
+    {
+        if (this.indexLoaded == false)
+        {
+            this.indexLoaded = true;
+
+            for (DirectoryListing listing : readIndexFile(this.getIndexFile()))
+            {
+                this.listings.put(listing.directory, listing);
+            }
+        }
+    }
+
+    protected Path getIndexFile()
+    {
+        return ConfigUtils.getConfigDirectory().resolve(MaLiLibReference.MOD_ID).resolve("directory_index.bin");
+    }
+
+    protected static void writeIndexFile(Path file, List<DirectoryListing> listings)
+    {
+        Path tmpFile = file.resolveSibling(file.getFileName().toString() + ".tmp");
+
+        if (FileUtils.createDirectoriesIfMissing(file.getParent()) == false)
+        {
+            return;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile), 65536)))
+        {
+            out.writeInt(INDEX_FILE_VERSION);
+            out.writeInt(listings.size());
+
+            for (DirectoryListing listing : listings)
+            {
+                out.writeUTF(listing.directory.toString());
+                out.writeLong(listing.lastModified);
+                out.writeInt(listing.entries.size());
+
+                for (FileEntry entry : listing.entries)
+                {
+                    out.writeUTF(entry.name);
+                    out.writeByte((entry.isDirectory ? 1 : 0) | (entry.isRegularFile ? 2 : 0));
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.lastModified);
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            MaLiLib.LOGGER.warn("Failed to write the directory index file '{}': {}", file.toAbsolutePath(), e.getMessage());
+            return;
+        }
+
+        try
+        {
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (Exception e)
+        {
+            MaLiLib.LOGGER.warn("Failed to replace the directory index file '{}': {}", file.toAbsolutePath(), e.getMessage());
+        }
+    }
+
+    protected static List<DirectoryListing> readIndexFile(Path file)
+    {
+        List<DirectoryListing> listings = new ArrayList<>();
+
+        if (Files.isRegularFile(file) == false)
+        {
+            return listings;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 65536)))
+        {
+            if (in.readInt() != INDEX_FILE_VERSION)
+            {
+                return listings;
+            }
+
+            int listingCount = in.readInt();
+
+            for (int i = 0; i < listingCount && i < MAX_CACHED_DIRECTORIES; ++i)
+            {
+                Path dir = Paths.get(in.readUTF());
+                long lastModified = in.readLong();
+                int entryCount = in.readInt();
+                List<FileEntry> entries = new ArrayList<>(entryCount);
+
+                for (int j = 0; j < entryCount; ++j)
+                {
+                    String name = in.readUTF();
+                    int type = in.readByte();
+                    long size = in.readLong();
+                    long mTime = in.readLong();
+                    entries.add(new FileEntry(name, (type & 1) != 0, (type & 2) != 0, size, mTime));
+                }
+
+                // The loaded listings are validated against the directory modification time when first used
+                listings.add(new DirectoryListing(dir, lastModified, entries, false));
+            }
+        }
+        catch (Exception e)
+        {
+            MaLiLib.LOGGER.warn("Failed to read the directory index file '{}': {}", file.toAbsolutePath(), e.getMessage());
+            listings.clear();
+        }
+
+        return listings;
+    }
+
+    public static class DirectoryListing
+    {
+        protected final Path directory;
+        protected final long lastModified;
+        protected final List<FileEntry> entries;
+        /** Only accessed while holding the lock of the cache */
+        protected boolean trusted;
+        protected final IdentityHashMap<Predicate<Path>, List<FileEntry>> filteredEntries = new IdentityHashMap<>();
+
+        protected DirectoryListing(Path directory, long lastModified, List<FileEntry> entries, boolean trusted)
+        {
+            this.directory = directory;
+            this.lastModified = lastModified;
+            this.entries = Collections.unmodifiableList(entries);
+            this.trusted = trusted;
+        }
+
+        public Path getDirectory()
+        {
+            return this.directory;
+        }
+
+        public long getLastModified()
+        {
+            return this.lastModified;
+        }
+
+        public List<FileEntry> getEntries()
+        {
+            return this.entries;
+        }
+
+        /**
+         * @return a copy of this listing, where the given entries have been read again from the file system
+         */
+        protected DirectoryListing createUpdatedListing(Set<String> changedNames)
+        {
+            List<FileEntry> entries = new ArrayList<>(this.entries.size() + changedNames.size());
+
+            for (FileEntry entry : this.entries)
+            {
+                if (changedNames.contains(entry.name) == false)
+                {
+                    entries.add(entry);
+                }
+            }
+
+            for (String name : changedNames)
+            {
+                FileEntry entry = readEntry(this.directory, name);
+
+                if (entry != null)
+                {
+                    entries.add(entry);
+                }
+            }
+
+            return new DirectoryListing(this.directory, FileUtils.getMTime(this.directory), entries, this.trusted);
+        }
+
+        /**
+         * @return the entries that match the given filter. The results are cached by the identity
+         *         of the filter, so the filter must not change its results while this listing is valid.
+         *         The {@link FileUtils#DIRECTORY_FILTER} is checked using the cached entry types,
+         *         without any filesystem calls.
+         */
+        public List<FileEntry> getMatchingEntries(Predicate<Path> filter)
+        {
+            synchronized (this.filteredEntries)
+            {
+                List<FileEntry> list = this.filteredEntries.get(filter);
+
+                if (list == null)
+                {
+                    list = new ArrayList<>();
+
+                    for (FileEntry entry : this.entries)
+                    {
+                        if (filter == FileUtils.DIRECTORY_FILTER ? entry.isDirectory :
+                                    filter.test(this.directory.resolve(entry.name)))
+                        {
+                            list.add(entry);
+                        }
+                    }
+
+                    list = Collections.unmodifiableList(list);
+                    this.filteredEntries.put(filter, list);
+                }
+
+                return list;
+            }
+        }
+    }
+
+    public static class FileEntry
+    {
+        public final String name;
+        public final boolean isDirectory;
+        public final boolean isRegularFile;
+        public final long size;
+        public final long lastModified;
+
+        public FileEntry(String name, boolean isDirectory, boolean isRegularFile, long size, long lastModified)
+        {
+            this.name = name;
+            this.isDirectory = isDirectory;
+            this.isRegularFile = isRegularFile;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public static FileEntry of(String name, BasicFileAttributes attrs)
+        {
+            return new FileEntry(name, attrs.isDirectory(), attrs.isRegularFile(),
+                                 attrs.size(), attrs.lastModifiedTime().toMillis());
+        }
+
+        public boolean isHidden()
+        {
+            return this.name.startsWith(".");
+        }
+    }
+}
@@ -1,39 +1,80 @@
 package malilib.util;
 
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.security.DigestInputStream;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
+import javax.annotation.Nullable;
 
 import malilib.MaLiLib;
 
 public class HashUtils
 {
+    protected static final int READ_BUFFER_SIZE = 64 * 1024;
+    protected static final char[] HEX_CHARS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * @return the hash of the given file as an upper case hex string,
+     *         or an empty string if the file could not be read
+     */
     public static String getHashAsHexString(Path file, MessageDigest digest)
     {
-        StringBuilder sb = new StringBuilder(64);
+        byte[] hash = getHash(file, digest);
+        return hash != null ? toHexString(hash) : "";
+    }
+
+    /**
+     * Calculates the hash of the given file. The file is read through a large buffer.
+     * Memory mapping is intentionally not used, as on Windows a mapped file stays locked
+     * until the mapping gets garbage collected, which would prevent moving the backup files.
+     * @return the raw hash bytes, or null if the file could not be read
+     */
+    @Nullable
+    public static byte[] getHash(Path file, MessageDigest digest)
+    {
         digest.reset();
 
-         try (DigestInputStream din = new DigestInputStream(Files.newInputStream(file),digest))
-         {
-             byte[] buf = new byte[4096];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            ByteBuffer buf = ByteBuffer.allocate((int) Math.min(READ_BUFFER_SIZE, Math.max(size, 1L)));
+            int read;
+
+            while ((read = channel.read(buf)) != -1)
+            {
+                if (read > 0)
+                {
+                    digest.update(buf.array(), 0, buf.position());
+                }
 
-             while (din.read(buf) != -1)
-             {
-             }
+                buf.clear();
+            }
 
-             byte[] raw = digest.digest();
+            return digest.digest();
+        }
+        catch (Exception e)
+        {
+            MaLiLib.LOGGER.warn("Exception while hashing file '{}': {}", file.toAbsolutePath(), e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the given bytes as an upper case hex string
+     */
+    public static String toHexString(byte[] bytes)
+    {
+        char[] chars = new char[bytes.length * 2];
 
-             for (byte b : raw)
-             {
-                 sb.append(String.format("%02X", b));
-             }
-         }
-         catch (Exception e)
-         {
-             MaLiLib.LOGGER.warn("Exception while hashing file '{}': {}", file.toAbsolutePath(), e.getMessage());
-         }
+        for (int i = 0, j = 0; i < bytes.length; ++i)
+        {
+            int b = bytes[i] & 0xFF;
+            chars[j++] = HEX_CHARS[b >>> 4];
+            chars[j++] = HEX_CHARS[b & 0x0F];
+        }
 
-         return sb.toString();
+        return new String(chars);
     }
 }
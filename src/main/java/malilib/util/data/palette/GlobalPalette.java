@@ -0,0 +1,118 @@
+package malilib.util.data.palette;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import javax.annotation.Nullable;
+
+/**
+ * A palette that directly uses the global IDs of the values, for example
+ * the block state IDs of the game. This palette never needs to be resized,
+ * and it doesn't need to be stored, as long as the global ID mapping doesn't change.
+ */
+public class GlobalPalette<T> implements Palette<T>
+{
+    protected final ToIntFunction<T> idGetter;
+    protected final IntFunction<T> valueGetter;
+    protected final int bits;
+    protected final int maxSize;
+
+    /**
+     * @param bits the number of bits required to represent all the global IDs
+     * @param idGetter the function to get the global ID of a value
+     * @param valueGetter the function to get the value by its global ID
+     */
+    public GlobalPalette(int bits, ToIntFunction<T> idGetter, IntFunction<T> valueGetter)
+    {
+        this.bits = bits;
+        this.maxSize = 1 << bits;
+        this.idGetter = idGetter;
+        this.valueGetter = valueGetter;
+    }
+
+    public int getBits()
+    {
+        return this.bits;
+    }
+
+    @Override
+    public int getSize()
+    {
+        return this.maxSize;
+    }
+
+    @Override
+    public int getMaxSize()
+    {
+        return this.maxSize;
+    }
+
+    @Override
+    public int idFor(T value)
+    {
+        return this.idGetter.applyAsInt(value);
+    }
+
+    @Override
+    @Nullable
+    public T getValue(int id)
+    {
+        return id >= 0 && id < this.maxSize ? this.valueGetter.apply(id) : null;
+    }
+
+    @Override
+    public int idsFor(T[] values, int start, int count, int[] out, int outOffset)
+    {
+        final ToIntFunction<T> idGetter = this.idGetter;
+        T lastValue = null;
+        int lastId = -1;
+
+        for (int i = 0; i < count; ++i)
+        {
+            T value = values[start + i];
+
+            if (value != lastValue || lastId == -1)
+            {
+                lastId = idGetter.applyAsInt(value);
+                lastValue = value;
+            }
+
+            out[outOffset + i] = lastId;
+        }
+
+        return count;
+    }
+
+    @Override
+    public List<T> getMapping()
+    {
+        final int size = this.maxSize;
+        List<T> list = new ArrayList<>(size);
+
+        for (int id = 0; id < size; ++id)
+        {
+            list.add(this.valueGetter.apply(id));
+        }
+
+        return list;
+    }
+
+    @Override
+    public boolean setMapping(List<T> list)
+    {
+        return false;
+    }
+
+    @Override
+    public boolean overrideMapping(int id, T value)
+    {
+        return false;
+    }
+
+    @Override
+    public GlobalPalette<T> copy(PaletteResizeHandler<T> resizeHandler)
+    {
+        return this;
+    }
+}
@@ -58,7 +58,9 @@ public class HashMapPalette<T> implements Palette<T>
             }
             else
             {
-                id = this.valueToIdMap.put(value, this.currentSize);
+                id = this.currentSize;
+                this.valueToIdMap.put(value, id);
+                this.values[id] = value;
                 ++this.currentSize;
             }
         }
@@ -66,6 +68,67 @@ public class HashMapPalette<T> implements Palette<T>
         return id;
     }
 
+    @Override
+    public int idsFor(T[] values, int start, int count, int[] out, int outOffset)
+    {
+        final Object2IntOpenHashMap<T> map = this.valueToIdMap;
+        T lastValue = null;
+        int lastId = -1;
+
+        for (int i = 0; i < count; ++i)
+        {
+            T value = values[start + i];
+
+            if (value != lastValue || lastId == -1)
+            {
+                int id = map.getInt(value);
+
+                if (id == -1)
+                {
+                    if (this.currentSize >= this.maxSize)
+                    {
+                        out[outOffset + i] = this.paletteResizer.onResize(this.bits + 1, value, this);
+                        return i + 1;
+                    }
+
+                    id = this.currentSize;
+                    map.put(value, id);
+                    this.values[id] = value;
+                    ++this.currentSize;
+                }
+
+                lastValue = value;
+                lastId = id;
+            }
+
+            out[outOffset + i] = lastId;
+        }
+
+        return count;
+    }
+
+    @Override
+    public void valuesFor(int[] ids, int start, int count, T[] out, int outOffset)
+    {
+        final T[] paletteValues = this.values;
+        final int maxSize = this.maxSize;
+        int lastId = -1;
+        T lastValue = null;
+
+        for (int i = 0; i < count; ++i)
+        {
+            int id = ids[start + i];
+
+            if (id != lastId)
+            {
+                lastId = id;
+                lastValue = id >= 0 && id < maxSize ? paletteValues[id] : null;
+            }
+
+            out[outOffset + i] = lastValue;
+        }
+    }
+
     @Override
     public List<T> getMapping()
     {
@@ -100,6 +163,8 @@ public class HashMapPalette<T> implements Palette<T>
             this.values[id++] = val;
         }
 
+        this.currentSize = id;
+
         return true;
     }
 
@@ -128,6 +193,8 @@ public class HashMapPalette<T> implements Palette<T>
             copy.valueToIdMap.put(value, id);
         }
 
+        copy.currentSize = this.currentSize;
+
         return copy;
     }
 }
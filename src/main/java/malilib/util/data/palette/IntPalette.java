@@ -0,0 +1,159 @@
+package malilib.util.data.palette;
+
+import java.util.Arrays;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+/**
+ * A palette for primitive int values, for example block state IDs.
+ * This avoids boxing the values and doesn't allocate anything when
+ * looking up the IDs of values that already exist in the palette.
+ */
+public class IntPalette
+{
+    protected final IntPaletteResizeHandler paletteResizer;
+    protected final Int2IntOpenHashMap valueToIdMap;
+    protected final int[] values;
+    protected final int bits;
+    protected final int maxSize;
+    protected int currentSize;
+
+    public IntPalette(int bitsIn, IntPaletteResizeHandler paletteResizer)
+    {
+        this.bits = bitsIn;
+        this.maxSize = 1 << bitsIn;
+        this.valueToIdMap = new Int2IntOpenHashMap();
+        this.valueToIdMap.defaultReturnValue(-1);
+        this.values = new int[this.maxSize];
+        this.paletteResizer = paletteResizer;
+    }
+
+    /**
+     * @return the current number of entries in this palette
+     */
+    public int getSize()
+    {
+        return this.currentSize;
+    }
+
+    /**
+     * @return the maximum size of the palette
+     */
+    public int getMaxSize()
+    {
+        return this.maxSize;
+    }
+
+    /**
+     * @return the palette ID for the given value (and add
+     *         the value to the palette if it doesn't exist there yet)
+     */
+    public int idFor(int value)
+    {
+        int id = this.valueToIdMap.get(value);
+
+        if (id == -1)
+        {
+            if (this.currentSize >= this.maxSize)
+            {
+                id = this.paletteResizer.onResize(this.bits + 1, value, this.getMapping());
+            }
+            else
+            {
+                id = this.currentSize;
+                this.valueToIdMap.put(value, id);
+                this.values[id] = value;
+                ++this.currentSize;
+            }
+        }
+
+        return id;
+    }
+
+    /**
+     * @return true if the given ID exists in the palette
+     */
+    public boolean hasId(int id)
+    {
+        return id >= 0 && id < this.currentSize;
+    }
+
+    /**
+     * All int values are valid palette values, so there is no "missing" return value.
+     * Use {@link #hasId(int)} to check the ID first, if it might not exist in the palette.
+     * @return the value corresponding to the given palette ID
+     * @throws IndexOutOfBoundsException if the ID doesn't exist in the palette
+     */
+    public int getValue(int id)
+    {
+        if (id < 0 || id >= this.currentSize)
+        {
+            throw new IndexOutOfBoundsException("Invalid palette ID " + id + " for a palette of size " + this.currentSize);
+        }
+
+        return this.values[id];
+    }
+
+    /**
+     * @return a copy of the current full mappings of IDs to values.
+     *         The ID is the position in the returned array.
+     */
+    public int[] getMapping()
+    {
+        return Arrays.copyOf(this.values, this.currentSize);
+    }
+
+    /**
+     * Sets the current ID to value mapping of the palette.
+     * This is meant for reading the palette from file.
+     * @return true if the mapping was set successfully, false if it failed
+     */
+    public boolean setMapping(int[] mapping)
+    {
+        final int size = mapping.length;
+
+        if (size > this.maxSize)
+        {
+            return false;
+        }
+
+        this.valueToIdMap.clear();
+        Arrays.fill(this.values, 0);
+
+        for (int id = 0; id < size; ++id)
+        {
+            this.valueToIdMap.put(mapping[id], id);
+            this.values[id] = mapping[id];
+        }
+
+        this.currentSize = size;
+
+        return true;
+    }
+
+    /**
+     * Overrides the mapping for the given ID.
+     * @return true if the ID was found in the palette and thus was possible to override
+     */
+    public boolean overrideMapping(int id, int value)
+    {
+        if (id >= 0 && id < this.currentSize)
+        {
+            this.valueToIdMap.remove(this.values[id]);
+            this.values[id] = value;
+            this.valueToIdMap.put(value, id);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Creates a copy of this palette, using the provided resize handler
+     */
+    public IntPalette copy(IntPaletteResizeHandler resizeHandler)
+    {
+        IntPalette copy = new IntPalette(this.bits, resizeHandler);
+        copy.setMapping(this.getMapping());
+        return copy;
+    }
+}
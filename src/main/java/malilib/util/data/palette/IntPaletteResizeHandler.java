@@ -0,0 +1,12 @@
+package malilib.util.data.palette;
+
+public interface IntPaletteResizeHandler
+{
+    /**
+     * Called when a primitive int palette runs out of IDs in the current entry width,
+     * and the underlying container needs to be resized for the new entry bit width.
+     * @param oldMapping the ID to value mapping of the old palette. The ID is the position in the array.
+     * @return the ID for the new value being added when the resize happens
+     */
+    int onResize(int newSizeBits, int valueBeingAdded, int[] oldMapping);
+}
@@ -67,6 +67,76 @@ public class LinearPalette<T> implements Palette<T>
         }
     }
 
+    @Override
+    public int idsFor(T[] values, int start, int count, int[] out, int outOffset)
+    {
+        final T[] paletteValues = this.values;
+        T lastValue = null;
+        int lastId = -1;
+
+        for (int i = 0; i < count; ++i)
+        {
+            T value = values[start + i];
+
+            if (value != lastValue || lastId == -1)
+            {
+                final int currentSize = this.currentSize;
+                int id = -1;
+
+                for (int j = 0; j < currentSize; ++j)
+                {
+                    if (paletteValues[j] == value)
+                    {
+                        id = j;
+                        break;
+                    }
+                }
+
+                if (id == -1)
+                {
+                    if (currentSize >= this.maxSize)
+                    {
+                        out[outOffset + i] = this.paletteResizer.onResize(this.bits + 1, value, this);
+                        return i + 1;
+                    }
+
+                    paletteValues[currentSize] = value;
+                    ++this.currentSize;
+                    id = currentSize;
+                }
+
+                lastValue = value;
+                lastId = id;
+            }
+
+            out[outOffset + i] = lastId;
+        }
+
+        return count;
+    }
+
+    @Override
+    public void valuesFor(int[] ids, int start, int count, T[] out, int outOffset)
+    {
+        final T[] paletteValues = this.values;
+        final int currentSize = this.currentSize;
+        int lastId = -1;
+        T lastValue = null;
+
+        for (int i = 0; i < count; ++i)
+        {
+            int id = ids[start + i];
+
+            if (id != lastId)
+            {
+                lastId = id;
+                lastValue = id >= 0 && id < currentSize ? paletteValues[id] : null;
+            }
+
+            out[outOffset + i] = lastValue;
+        }
+    }
+
     @Override
     public List<T> getMapping()
     {
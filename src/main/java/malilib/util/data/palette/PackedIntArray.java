@@ -0,0 +1,217 @@
+package malilib.util.data.palette;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A fixed size array of unsigned integer values, each using <b>bitsPerEntry</b> bits.
+ * The values are tightly packed into a long array, and a value may span two longs.
+ */
+public class PackedIntArray
+{
+    protected final long[] longArray;
+    protected final int bitsPerEntry;
+    protected final long maxEntryValue;
+    protected final int size;
+
+    public PackedIntArray(int bitsPerEntry, int size)
+    {
+        this(bitsPerEntry, size, null);
+    }
+
+    public PackedIntArray(int bitsPerEntry, int size, @Nullable long[] longArray)
+    {
+        Validate.inclusiveBetween(1L, 32L, bitsPerEntry);
+
+        this.size = size;
+        this.bitsPerEntry = bitsPerEntry;
+        this.maxEntryValue = (1L << bitsPerEntry) - 1L;
+        int requiredLength = getRequiredArrayLength(bitsPerEntry, size);
+
+        if (longArray != null)
+        {
+            if (longArray.length != requiredLength)
+            {
+                throw new IllegalArgumentException("Invalid length given for storage, got: " + longArray.length +
+                                                   " but expected: " + requiredLength);
+            }
+
+            this.longArray = longArray;
+        }
+        else
+        {
+            this.longArray = new long[requiredLength];
+        }
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public int getBitsPerEntry()
+    {
+        return this.bitsPerEntry;
+    }
+
+    /**
+     * @return the backing long array. Note: This is not a copy!
+     */
+    public long[] getBackingLongArray()
+    {
+        return this.longArray;
+    }
+
+    public int get(int index)
+    {
+        long startOffset = (long) index * (long) this.bitsPerEntry;
+        int startArrIndex = (int) (startOffset >> 6);
+        int endArrIndex = (int) (((long) (index + 1) * (long) this.bitsPerEntry - 1L) >> 6);
+        int startBitOffset = (int) (startOffset & 0x3F);
+
+        if (startArrIndex == endArrIndex)
+        {
+            return (int) (this.longArray[startArrIndex] >>> startBitOffset & this.maxEntryValue);
+        }
+        else
+        {
+            int endOffset = 64 - startBitOffset;
+            return (int) ((this.longArray[startArrIndex] >>> startBitOffset |
+                           this.longArray[endArrIndex] << endOffset) & this.maxEntryValue);
+        }
+    }
+
+    public void set(int index, int value)
+    {
+        long startOffset = (long) index * (long) this.bitsPerEntry;
+        int startArrIndex = (int) (startOffset >> 6);
+        int endArrIndex = (int) (((long) (index + 1) * (long) this.bitsPerEntry - 1L) >> 6);
+        int startBitOffset = (int) (startOffset & 0x3F);
+        long[] arr = this.longArray;
+        long val = (long) value & this.maxEntryValue;
+
+        arr[startArrIndex] = arr[startArrIndex] & ~(this.maxEntryValue << startBitOffset) | val << startBitOffset;
+
+        if (startArrIndex != endArrIndex)
+        {
+            int endOffset = 64 - startBitOffset;
+            int j1 = this.bitsPerEntry - endOffset;
+            arr[endArrIndex] = arr[endArrIndex] >>> j1 << j1 | val >> endOffset;
+        }
+    }
+
+    /**
+     * Sets all the entries in the array to the given value
+     */
+    public void fill(int value)
+    {
+        final int size = this.size;
+
+        if (value == 0)
+        {
+            Arrays.fill(this.longArray, 0L);
+            return;
+        }
+
+        for (int i = 0; i < size; ++i)
+        {
+            this.set(i, value);
+        }
+    }
+
+    /**
+     * Unpacks all the values from this array into the provided array.
+     * This walks the backing long array sequentially, which is much faster
+     * than calling {@link #get(int)} for each index separately.
+     * @param out the array to write the values into. Must be at least {@link #size()} long.
+     */
+    public void getAll(int[] out)
+    {
+        this.getRange(0, this.size, out, 0);
+    }
+
+    /**
+     * Unpacks <b>count</b> values starting from the index <b>startIndex</b> into
+     * the array <b>out</b>, starting from the position <b>outOffset</b>.
+     */
+    public void getRange(int startIndex, int count, int[] out, int outOffset)
+    {
+        if (startIndex < 0 || count < 0 || startIndex + count > this.size)
+        {
+            throw new IndexOutOfBoundsException("Invalid range " + startIndex + " + " + count +
+                                                " for an array of size " + this.size);
+        }
+
+        final long[] arr = this.longArray;
+        final int bits = this.bitsPerEntry;
+        final long mask = this.maxEntryValue;
+        long bitOffset = (long) startIndex * (long) bits;
+        int arrIndex = (int) (bitOffset >> 6);
+        int bitIndex = (int) (bitOffset & 0x3F);
+        final int end = outOffset + count;
+
+        for (int i = outOffset; i < end; ++i)
+        {
+            long value = arr[arrIndex] >>> bitIndex;
+            bitIndex += bits;
+
+            if (bitIndex >= 64)
+            {
+                bitIndex -= 64;
+                ++arrIndex;
+
+                if (bitIndex > 0)
+                {
+                    value |= arr[arrIndex] << (bits - bitIndex);
+                }
+            }
+
+            out[i] = (int) (value & mask);
+        }
+    }
+
+    /**
+     * Packs all the values from the provided array into this array.
+     * @param values the values to set. Must be at least {@link #size()} long.
+     */
+    public void setAll(int[] values)
+    {
+        final long[] arr = this.longArray;
+        final int bits = this.bitsPerEntry;
+        final long mask = this.maxEntryValue;
+        final int size = this.size;
+        int arrIndex = 0;
+        int bitIndex = 0;
+        long current = 0L;
+
+        for (int i = 0; i < size; ++i)
+        {
+            long value = (long) values[i] & mask;
+            current |= value << bitIndex;
+            bitIndex += bits;
+
+            if (bitIndex >= 64)
+            {
+                arr[arrIndex++] = current;
+                bitIndex -= 64;
+                current = bitIndex > 0 ? value >>> (bits - bitIndex) : 0L;
+            }
+        }
+
+        if (arrIndex < arr.length)
+        {
+            arr[arrIndex] = current;
+        }
+    }
+
+    public PackedIntArray copy()
+    {
+        return new PackedIntArray(this.bitsPerEntry, this.size, this.longArray.clone());
+    }
+
+    public static int getRequiredArrayLength(int bitsPerEntry, int size)
+    {
+        return (int) Math.ceil(((long) size * (long) bitsPerEntry) / 64.0);
+    }
+}
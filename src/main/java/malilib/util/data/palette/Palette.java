@@ -27,6 +27,92 @@ public interface Palette<T>
     @Nullable
     T getValue(int id);
 
+    /**
+     * Gets or adds the palette IDs for all the values in the given array.
+     * @return the number of values that were processed. This is less than the length
+     *         of the values array if this palette got resized while adding new values,
+     *         in which case the caller must continue with the new palette.
+     */
+    default int idsFor(T[] values, int[] out)
+    {
+        return this.idsFor(values, 0, values.length, out, 0);
+    }
+
+    /**
+     * Gets or adds the palette IDs for <b>count</b> values starting from the index
+     * <b>start</b> in the values array, and writes the IDs to the <b>out</b> array
+     * starting from the index <b>outOffset</b>.
+     * Consecutive identical values reuse the previous ID without a new lookup.
+     * @return the number of values that were processed. This is less than <b>count</b>
+     *         if this palette got resized while adding new values, in which case the
+     *         caller must continue with the new palette. The ID written for the
+     *         last processed value is then an ID in the new palette.
+     */
+    default int idsFor(T[] values, int start, int count, int[] out, int outOffset)
+    {
+        final int maxSize = this.getMaxSize();
+        T lastValue = null;
+        int lastId = -1;
+
+        for (int i = 0; i < count; ++i)
+        {
+            T value = values[start + i];
+
+            if (value != lastValue || lastId == -1)
+            {
+                boolean full = this.getSize() >= maxSize;
+                lastId = this.idFor(value);
+                lastValue = value;
+
+                // If the value was not in this full palette, then the palette got resized,
+                // and the returned ID is an ID in the new palette
+                if (full && this.getValue(lastId) != value)
+                {
+                    out[outOffset + i] = lastId;
+                    return i + 1;
+                }
+            }
+
+            out[outOffset + i] = lastId;
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the values for all the palette IDs in the given array.
+     * IDs that don't exist in the palette result in a null value.
+     */
+    default void valuesFor(int[] ids, T[] out)
+    {
+        this.valuesFor(ids, 0, ids.length, out, 0);
+    }
+
+    /**
+     * Gets the values for <b>count</b> palette IDs starting from the index <b>start</b>
+     * in the ids array, and writes them to the <b>out</b> array starting from the
+     * index <b>outOffset</b>. IDs that don't exist in the palette result in a null value.
+     * Consecutive identical IDs reuse the previous value without a new lookup.
+     */
+    default void valuesFor(int[] ids, int start, int count, T[] out, int outOffset)
+    {
+        int lastId = -1;
+        T lastValue = null;
+
+        for (int i = 0; i < count; ++i)
+        {
+            int id = ids[start + i];
+
+            if (id != lastId)
+            {
+                lastId = id;
+                lastValue = this.getValue(id);
+            }
+
+            out[outOffset + i] = lastValue;
+        }
+    }
+
     /**
      * @return the current full mappings of IDs to values.
      *         The ID is the position in the returned list.
@@ -0,0 +1,325 @@
+package malilib.util.data.palette;
+
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A fixed size container of values, which stores the values as bit-packed palette IDs.
+ * The palette starts out as a {@link LinearPalette}, and it gets swapped to a
+ * {@link HashMapPalette} and then optionally to a {@link GlobalPalette}
+ * as the number of different values in the container grows.
+ */
+public class PalettedContainer<T> implements PaletteResizeHandler<T>
+{
+    public static final int MIN_BITS = 2;
+    public static final int MAX_LINEAR_PALETTE_BITS = 4;
+    public static final int MAX_HASH_MAP_PALETTE_BITS = 8;
+    protected static final int BULK_BUFFER_SIZE = 4096;
+
+    protected final T defaultValue;
+    protected final int size;
+    @Nullable protected final GlobalPalette<T> globalPalette;
+    protected PackedIntArray storage;
+    protected Palette<T> palette;
+    protected int bits;
+
+    public PalettedContainer(int size, T defaultValue)
+    {
+        this(size, defaultValue, null);
+    }
+
+    /**
+     * @param size the number of values in this container
+     * @param defaultValue the value that all the entries are initially set to
+     * @param globalPalette the global palette to switch to, once the number of different values
+     *                      grows beyond what a {@link HashMapPalette} is preferred for.
+     *                      If null, then the HashMapPalette will just keep growing.
+     */
+    public PalettedContainer(int size, T defaultValue, @Nullable GlobalPalette<T> globalPalette)
+    {
+        this.size = size;
+        this.defaultValue = defaultValue;
+        this.globalPalette = globalPalette;
+
+        this.setBits(MIN_BITS);
+        this.palette.idFor(defaultValue);
+    }
+
+    public int getSize()
+    {
+        return this.size;
+    }
+
+    public int getBits()
+    {
+        return this.bits;
+    }
+
+    public T getDefaultValue()
+    {
+        return this.defaultValue;
+    }
+
+    public Palette<T> getPalette()
+    {
+        return this.palette;
+    }
+
+    /**
+     * @return the packed palette ID storage. Note: This is not a copy!
+     */
+    public PackedIntArray getStorage()
+    {
+        return this.storage;
+    }
+
+    public T get(int index)
+    {
+        T value = this.palette.getValue(this.storage.get(index));
+        return value != null ? value : this.defaultValue;
+    }
+
+    public void set(int index, T value)
+    {
+        int id = this.palette.idFor(value);
+        this.storage.set(index, id);
+    }
+
+    /**
+     * Sets all the entries in this container to the given value.
+     * This also resets the palette back to the smallest size.
+     */
+    public void fill(T value)
+    {
+        this.setBits(MIN_BITS);
+        this.palette.idFor(value);
+    }
+
+    /**
+     * Unpacks all the palette IDs of this container into the given array.
+     * @param out the array to write the IDs into. Must be at least {@link #getSize()} long.
+     */
+    public void getIds(int[] out)
+    {
+        this.storage.getAll(out);
+    }
+
+    /**
+     * Gets all the values of this container into the given array.
+     * This unpacks the palette IDs in bulk and then resolves them via a
+     * lookup array, instead of fetching each value separately.
+     * @param out the array to write the values into. Must be at least {@link #getSize()} long.
+     */
+    @SuppressWarnings("unchecked")
+    public void getAll(T[] out)
+    {
+        final int size = this.size;
+        final Palette<T> palette = this.palette;
+        final int[] buf = new int[Math.min(size, BULK_BUFFER_SIZE)];
+        Object[] lookup = null;
+
+        if (palette != this.globalPalette)
+        {
+            List<T> mapping = palette.getMapping();
+            lookup = new Object[palette.getMaxSize()];
+
+            for (int id = 0; id < mapping.size(); ++id)
+            {
+                T value = mapping.get(id);
+                lookup[id] = value != null ? value : this.defaultValue;
+            }
+        }
+
+        for (int start = 0; start < size; start += buf.length)
+        {
+            final int count = Math.min(buf.length, size - start);
+            this.storage.getRange(start, count, buf, 0);
+
+            if (lookup != null)
+            {
+                for (int i = 0; i < count; ++i)
+                {
+                    out[start + i] = (T) lookup[buf[i]];
+                }
+            }
+            else
+            {
+                int lastId = -1;
+                T lastValue = null;
+
+                for (int i = 0; i < count; ++i)
+                {
+                    int id = buf[i];
+
+                    if (id != lastId)
+                    {
+                        lastId = id;
+                        lastValue = palette.getValue(id);
+
+                        if (lastValue == null)
+                        {
+                            lastValue = this.defaultValue;
+                        }
+                    }
+
+                    out[start + i] = lastValue;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets all the values of this container from the given array.
+     * The palette IDs are looked up in bulk via {@link Palette#idsFor(Object[], int, int, int[], int)}.
+     * @param values the values to set. Must be at least {@link #getSize()} long.
+     */
+    public void setAll(T[] values)
+    {
+        final int size = this.size;
+        final int[] buf = new int[Math.min(size, BULK_BUFFER_SIZE)];
+        int start = 0;
+
+        while (start < size)
+        {
+            final int count = Math.min(buf.length, size - start);
+            final Palette<T> palette = this.palette;
+            int processed = palette.idsFor(values, start, count, buf, 0);
+
+            // The palette got resized, which invalidates the IDs already fetched for this batch,
+            // even if the resize happened on the last value of the batch.
+            // The values themselves are in the new palette now, so just redo the batch.
+            if (this.palette != palette)
+            {
+                continue;
+            }
+
+            final PackedIntArray storage = this.storage;
+
+            for (int i = 0; i < processed; ++i)
+            {
+                storage.set(start + i, buf[i]);
+            }
+
+            start += processed;
+        }
+    }
+
+    /**
+     * Sets the palette and the packed ID data of this container.
+     * This is meant for reading the container from a file.
+     * @param mapping the palette entries, where the ID is the position in the list
+     * @param packedIds the packed palette IDs, using the bit width required by the palette size
+     */
+    public void readFrom(List<T> mapping, long[] packedIds)
+    {
+        int bits = Math.max(MIN_BITS, getRequiredBits(mapping.size()));
+        Palette<T> palette = this.createPalette(bits);
+
+        if (palette == this.globalPalette)
+        {
+            // The stored IDs are local palette IDs, so they need to be remapped to the global IDs
+            PackedIntArray source = new PackedIntArray(bits, this.size, packedIds);
+            this.setBits(bits);
+            this.copyRemapped(source, mapping);
+            return;
+        }
+
+        if (palette.setMapping(mapping) == false)
+        {
+            throw new IllegalArgumentException("Failed to set the palette mapping (size: " + mapping.size() + ")");
+        }
+
+        this.storage = new PackedIntArray(bits, this.size, packedIds);
+        this.palette = palette;
+        this.bits = bits;
+    }
+
+    @Override
+    public int onResize(int newSizeBits, T valueBeingAdded, Palette<T> oldPalette)
+    {
+        PackedIntArray oldStorage = this.storage;
+
+        this.setBits(newSizeBits);
+        this.copyRemapped(oldStorage, oldPalette.getMapping());
+
+        return this.palette.idFor(valueBeingAdded);
+    }
+
+    /**
+     * Copies all the IDs from the source storage to the current storage,
+     * remapping them from the old palette mapping to the current palette.
+     */
+    protected void copyRemapped(PackedIntArray source, List<T> oldMapping)
+    {
+        final int oldSize = oldMapping.size();
+        final int size = this.size;
+        final int[] remap = new int[oldSize];
+        final int[] buf = new int[Math.min(size, BULK_BUFFER_SIZE)];
+        final PackedIntArray storage = this.storage;
+
+        for (int id = 0; id < oldSize; ++id)
+        {
+            T value = oldMapping.get(id);
+            remap[id] = this.palette.idFor(value != null ? value : this.defaultValue);
+        }
+
+        for (int start = 0; start < size; start += buf.length)
+        {
+            final int count = Math.min(buf.length, size - start);
+            source.getRange(start, count, buf, 0);
+
+            for (int i = 0; i < count; ++i)
+            {
+                int id = buf[i];
+                storage.set(start + i, id < oldSize ? remap[id] : 0);
+            }
+        }
+    }
+
+    protected void setBits(int bits)
+    {
+        this.palette = this.createPalette(bits);
+
+        // The global palette has a fixed bit width
+        if (this.palette == this.globalPalette)
+        {
+            bits = this.globalPalette.getBits();
+        }
+
+        this.bits = bits;
+        this.storage = new PackedIntArray(bits, this.size);
+    }
+
+    protected Palette<T> createPalette(int bits)
+    {
+        if (bits <= MAX_LINEAR_PALETTE_BITS)
+        {
+            return new LinearPalette<>(bits, this);
+        }
+        else if (bits <= MAX_HASH_MAP_PALETTE_BITS || this.globalPalette == null)
+        {
+            return new HashMapPalette<>(bits, this);
+        }
+
+        return this.globalPalette;
+    }
+
+    public PalettedContainer<T> copy()
+    {
+        PalettedContainer<T> copy = new PalettedContainer<>(this.size, this.defaultValue, this.globalPalette);
+
+        copy.palette = this.palette.copy(copy);
+        copy.storage = this.storage.copy();
+        copy.bits = this.bits;
+
+        return copy;
+    }
+
+    /**
+     * @return the number of bits required to represent <b>count</b> different values
+     */
+    public static int getRequiredBits(int count)
+    {
+        return count <= 1 ? 1 : 32 - Integer.numberOfLeadingZeros(count - 1);
+    }
+}
@@ -0,0 +1,188 @@
+package malilib.util.data.palette;
+
+import java.util.Arrays;
+
+/**
+ * A palette for primitive unsigned short values (0 - 65535).
+ * The value to ID lookup uses a directly indexed array, which is grown
+ * as needed to cover the largest value added to the palette so far.
+ * Looking up the IDs of existing values doesn't allocate anything.
+ */
+public class ShortPalette
+{
+    public static final int MAX_VALUE = 0xFFFF;
+    /** The return value of {@link #getValue(int)} for IDs that don't exist in the palette. This is outside the valid value range. */
+    public static final int NO_VALUE = -1;
+
+    protected final IntPaletteResizeHandler paletteResizer;
+    protected final short[] values;
+    protected final int bits;
+    protected final int maxSize;
+    /** Stores the palette ID + 1 for each value, so that 0 means "not in the palette" */
+    protected int[] valueToIdPlusOne;
+    protected int currentSize;
+
+    public ShortPalette(int bitsIn, IntPaletteResizeHandler paletteResizer)
+    {
+        this.bits = bitsIn;
+        this.maxSize = 1 << bitsIn;
+        this.values = new short[this.maxSize];
+        this.valueToIdPlusOne = new int[64];
+        this.paletteResizer = paletteResizer;
+    }
+
+    /**
+     * @return the current number of entries in this palette
+     */
+    public int getSize()
+    {
+        return this.currentSize;
+    }
+
+    /**
+     * @return the maximum size of the palette
+     */
+    public int getMaxSize()
+    {
+        return this.maxSize;
+    }
+
+    /**
+     * @return the palette ID for the given value (and add
+     *         the value to the palette if it doesn't exist there yet)
+     */
+    public int idFor(int value)
+    {
+        if (value < 0 || value > MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Value out of range for a ShortPalette: " + value);
+        }
+
+        int[] lookup = this.valueToIdPlusOne;
+
+        if (value < lookup.length && lookup[value] != 0)
+        {
+            return lookup[value] - 1;
+        }
+
+        if (this.currentSize >= this.maxSize)
+        {
+            return this.paletteResizer.onResize(this.bits + 1, value, this.getMapping());
+        }
+
+        int id = this.currentSize;
+        this.putLookup(value, id);
+        this.values[id] = (short) value;
+        ++this.currentSize;
+
+        return id;
+    }
+
+    /**
+     * @return true if the given ID exists in the palette
+     */
+    public boolean hasId(int id)
+    {
+        return id >= 0 && id < this.currentSize;
+    }
+
+    /**
+     * @return the value corresponding to the given palette ID,
+     *         or {@link #NO_VALUE} if the ID doesn't exist in the palette
+     */
+    public int getValue(int id)
+    {
+        return id >= 0 && id < this.currentSize ? this.values[id] & MAX_VALUE : NO_VALUE;
+    }
+
+    /**
+     * @return a copy of the current full mappings of IDs to values.
+     *         The ID is the position in the returned array.
+     */
+    public int[] getMapping()
+    {
+        final int size = this.currentSize;
+        int[] mapping = new int[size];
+
+        for (int id = 0; id < size; ++id)
+        {
+            mapping[id] = this.values[id] & MAX_VALUE;
+        }
+
+        return mapping;
+    }
+
+    /**
+     * Sets the current ID to value mapping of the palette.
+     * This is meant for reading the palette from file.
+     * @return true if the mapping was set successfully, false if it failed
+     */
+    public boolean setMapping(int[] mapping)
+    {
+        final int size = mapping.length;
+
+        if (size > this.maxSize)
+        {
+            return false;
+        }
+
+        for (int value : mapping)
+        {
+            if (value < 0 || value > MAX_VALUE)
+            {
+                return false;
+            }
+        }
+
+        Arrays.fill(this.valueToIdPlusOne, 0);
+        Arrays.fill(this.values, (short) 0);
+
+        for (int id = 0; id < size; ++id)
+        {
+            this.putLookup(mapping[id], id);
+            this.values[id] = (short) mapping[id];
+        }
+
+        this.currentSize = size;
+
+        return true;
+    }
+
+    /**
+     * Overrides the mapping for the given ID.
+     * @return true if the ID was found in the palette and thus was possible to override
+     */
+    public boolean overrideMapping(int id, int value)
+    {
+        if (id >= 0 && id < this.currentSize && value >= 0 && value <= MAX_VALUE)
+        {
+            this.valueToIdPlusOne[this.values[id] & MAX_VALUE] = 0;
+            this.values[id] = (short) value;
+            this.putLookup(value, id);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Creates a copy of this palette, using the provided resize handler
+     */
+    public ShortPalette copy(IntPaletteResizeHandler resizeHandler)
+    {
+        ShortPalette copy = new ShortPalette(this.bits, resizeHandler);
+        copy.setMapping(this.getMapping());
+        return copy;
+    }
+
+    protected void putLookup(int value, int id)
+    {
+        if (value >= this.valueToIdPlusOne.length)
+        {
+            int newLength = Math.min(Integer.highestOneBit(value) << 1, MAX_VALUE + 1);
+            this.valueToIdPlusOne = Arrays.copyOf(this.valueToIdPlusOne, newLength);
+        }
+
+        this.valueToIdPlusOne[value] = id + 1;
+    }
+}
@@ -0,0 +1,87 @@
+package malilib.render.text;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class StyledTextParserTest
+{
+    // The color tag patterns used by the earlier regex based parser
+    protected static final Pattern PATTERN_COLOR_3 = Pattern.compile("[0-9a-fA-F]{3}>");
+    protected static final Pattern PATTERN_COLOR_4 = Pattern.compile("[0-9a-fA-F]{4}>");
+    protected static final Pattern PATTERN_COLOR_6 = Pattern.compile("[0-9a-fA-F]{6}>");
+    protected static final Pattern PATTERN_COLOR_8 = Pattern.compile("[0-9a-fA-F]{8}>");
+
+    // ASCII hex digits, other ASCII characters, and non-ASCII characters that Character.digit() accepts
+    protected static final char[] CHARACTERS = "0123456789abcdefABCDEFgGxX> <\u0663\u0966\uFF10\uFF19\uFF21\uFF26\uFF41\uFF46".toCharArray();
+
+    protected static int getColorDigitCountUsingRegex(String str)
+    {
+        final int len = str.length();
+
+        if (len >= 9 && PATTERN_COLOR_8.matcher(str.substring(0, 9)).matches()) { return 8; }
+        if (len >= 7 && PATTERN_COLOR_6.matcher(str.substring(0, 7)).matches()) { return 6; }
+        if (len >= 5 && PATTERN_COLOR_4.matcher(str.substring(0, 5)).matches()) { return 4; }
+        if (len >= 4 && PATTERN_COLOR_3.matcher(str.substring(0, 4)).matches()) { return 3; }
+
+        return 0;
+    }
+
+    @Test
+    public void testColorDigitCountMatchesRegex()
+    {
+        Random rand = new Random(12345L);
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 200000; ++i)
+        {
+            sb.setLength(0);
+            int length = rand.nextInt(12);
+
+            // Mostly ASCII hex digits, so that valid color tags are common
+            for (int j = 0; j < length; ++j)
+            {
+                if (rand.nextInt(4) != 0)
+                {
+                    sb.append(CHARACTERS[rand.nextInt(22)]);
+                }
+                else
+                {
+                    sb.append(CHARACTERS[rand.nextInt(CHARACTERS.length)]);
+                }
+            }
+
+            if (rand.nextBoolean())
+            {
+                sb.insert(rand.nextInt(sb.length() + 1), '>');
+            }
+
+            String str = sb.toString();
+            assertEquals("Wrong digit count for '" + str + "'",
+                         getColorDigitCountUsingRegex(str), StyledTextParser.getColorDigitCount(str, 0));
+        }
+    }
+
+    @Test
+    public void testColorDigitCountRejectsNonAsciiDigits()
+    {
+        assertEquals(6, StyledTextParser.getColorDigitCount("12ab3F>", 0));
+        assertEquals(0, StyledTextParser.getColorDigitCount("12ab3\u0663>", 0));
+        assertEquals(0, StyledTextParser.getColorDigitCount("\uFF10\uFF10\uFF10>", 0));
+        assertEquals(0, StyledTextParser.getColorDigitCount("\uFF21\uFF21\uFF21\uFF21>", 0));
+        assertEquals(0, StyledTextParser.getColorDigitCount("fff\uFF46>", 0));
+    }
+
+    @Test
+    public void testHexDigitValue()
+    {
+        for (int c = 0; c <= Character.MAX_VALUE; ++c)
+        {
+            int expected = c < 128 ? Character.digit(c, 16) : -1;
+            assertEquals("Wrong value for character " + c, expected, StyledTextParser.getHexDigitValue((char) c));
+            assertEquals("Wrong result for character " + c, expected != -1, StyledTextParser.isHexDigit((char) c));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package malilib.render.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class TextBufferBatcherTest
+{
+    protected static TextBufferBatcher<String, StringBuilder> createBatcher(List<String> created)
+    {
+        return new TextBufferBatcher<>(t -> { created.add(t); return new StringBuilder(); }, b -> b.setLength(0));
+    }
+
+    /**
+     * Emits the segments of one line, each segment being a texture name and the text on that texture
+     */
+    protected static void emitLine(TextBufferBatcher<String, StringBuilder> batcher, String... segments)
+    {
+        for (int i = 0; i < segments.length; i += 2)
+        {
+            batcher.getBufferFor(segments[i]).append(segments[i + 1]);
+        }
+    }
+
+    @Test
+    public void testMixedTextureLinesFlushOncePerTexture()
+    {
+        List<String> created = new ArrayList<>();
+        List<String> flushed = new ArrayList<>();
+        TextBufferBatcher<String, StringBuilder> batcher = createBatcher(created);
+
+        // Frame 1: two lines that switch between the font sheets several times
+        emitLine(batcher, "ascii", "a", "page_01", "b", "ascii", "c", "page_02", "d");
+        emitLine(batcher, "page_02", "e", "ascii", "f", "page_01", "g");
+        batcher.flush((t, b) -> flushed.add(t + ":" + b));
+
+        assertEquals(3, batcher.getFlushCount());
+        assertEquals(3, created.size());
+        // Grouped per texture, in the order of the first use of each texture
+        assertEquals("[ascii:acf, page_01:bg, page_02:de]", flushed.toString());
+
+        // Frame 2: the buffers get re-used and re-started
+        flushed.clear();
+        emitLine(batcher, "page_01", "h", "ascii", "i", "page_01", "j");
+        batcher.flush((t, b) -> flushed.add(t + ":" + b));
+
+        assertEquals(5, batcher.getFlushCount());
+        assertEquals(3, created.size());
+        assertEquals("[page_01:hj, ascii:i]", flushed.toString());
+    }
+
+    @Test
+    public void testFlushWithoutTextDoesNothing()
+    {
+        List<String> created = new ArrayList<>();
+        TextBufferBatcher<String, StringBuilder> batcher = createBatcher(created);
+
+        batcher.flush((t, b) -> { throw new IllegalStateException("Nothing should be flushed"); });
+
+        assertEquals(0, batcher.getFlushCount());
+        assertFalse(batcher.hasActiveBuffers());
+    }
+
+    @Test
+    public void testPresetBufferIsUsed()
+    {
+        List<String> created = new ArrayList<>();
+        TextBufferBatcher<String, StringBuilder> batcher = createBatcher(created);
+        StringBuilder asciiBuffer = new StringBuilder();
+
+        batcher.setBuffer("ascii", asciiBuffer);
+
+        assertSame(asciiBuffer, batcher.getBufferFor("ascii"));
+        assertEquals(0, created.size());
+    }
+}
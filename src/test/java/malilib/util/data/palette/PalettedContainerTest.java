@@ -0,0 +1,215 @@
+package malilib.util.data.palette;
+
+import java.util.List;
+import javax.annotation.Nullable;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class PalettedContainerTest
+{
+    /**
+     * A value type without value equality, as the linear palette compares the values by identity
+     */
+    protected static class Value
+    {
+        protected final int id;
+
+        protected Value(int id)
+        {
+            this.id = id;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Value{" + this.id + "}";
+        }
+    }
+
+    protected static Value[] createDistinctValues(int count)
+    {
+        Value[] values = new Value[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            values[i] = new Value(i);
+        }
+
+        return values;
+    }
+
+    protected static <T> void assertContents(PalettedContainer<T> container, T[] expected)
+    {
+        for (int i = 0; i < expected.length; ++i)
+        {
+            assertSame("Wrong value at index " + i, expected[i], container.get(i));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSetAllResizeToGlobalOnLastValueOfBatch()
+    {
+        final Value[] globalValues = createDistinctValues(1024);
+        // Reverse the global IDs, so that they don't happen to match the IDs in the hash map palette
+        GlobalPalette<Value> globalPalette = new GlobalPalette<>(10, v -> 1023 - v.id, id -> globalValues[1023 - id]);
+        int size = PalettedContainer.BULK_BUFFER_SIZE;
+        PalettedContainer<Value> container = new PalettedContainer<>(size, globalValues[0], globalPalette);
+        Value[] values = new Value[size];
+
+        // Fill the hash map palette up to its max size of 256 values (including the default value),
+        // and then add one more value as the last value of the batch, causing the switch to the global palette
+        for (int i = 0; i < size - 1; ++i)
+        {
+            values[i] = globalValues[1 + (i % 255)];
+        }
+
+        values[size - 1] = globalValues[256];
+
+        container.setAll(values);
+
+        assertSame(globalPalette, container.getPalette());
+        assertContents(container, values);
+    }
+
+    @Test(timeout = 10000)
+    public void testSetAllMultipleBatches()
+    {
+        Value[] distinctValues = createDistinctValues(300);
+        int size = PalettedContainer.BULK_BUFFER_SIZE * 3 + 17;
+        PalettedContainer<Value> container = new PalettedContainer<>(size, distinctValues[0]);
+        Value[] values = new Value[size];
+
+        for (int i = 0; i < size; ++i)
+        {
+            values[i] = distinctValues[(i / 7) % distinctValues.length];
+        }
+
+        container.setAll(values);
+
+        assertContents(container, values);
+    }
+
+    @Test(timeout = 10000)
+    public void testSetAllDefaultIdsForWithFullPalette()
+    {
+        Value[] distinctValues = createDistinctValues(4);
+        int size = PalettedContainer.BULK_BUFFER_SIZE + 100;
+        DefaultBulkOpsContainer<Value> container = new DefaultBulkOpsContainer<>(size, distinctValues[0]);
+        Value[] values = new Value[size];
+
+        for (int i = 0; i < size; ++i)
+        {
+            values[i] = distinctValues[i % distinctValues.length];
+        }
+
+        // All 4 values fit into the initial 2 bit palette, so it's full but doesn't get resized
+        container.setAll(values);
+        assertEquals(PalettedContainer.MIN_BITS, container.getBits());
+        assertContents(container, values);
+
+        // Then set the values again while the palette is already full from the start
+        container.setAll(values);
+        assertEquals(PalettedContainer.MIN_BITS, container.getBits());
+        assertContents(container, values);
+    }
+
+    @Test(timeout = 10000)
+    public void testSetAllDefaultIdsForWithResizes()
+    {
+        Value[] distinctValues = createDistinctValues(40);
+        int size = PalettedContainer.BULK_BUFFER_SIZE;
+        DefaultBulkOpsContainer<Value> container = new DefaultBulkOpsContainer<>(size, distinctValues[0]);
+        Value[] values = new Value[size];
+
+        for (int i = 0; i < size - 1; ++i)
+        {
+            values[i] = distinctValues[i % 16];
+        }
+
+        // The 4 bit palette is full at this point, so this resizes it on the last value of the batch
+        values[size - 1] = distinctValues[16];
+
+        container.setAll(values);
+
+        assertContents(container, values);
+    }
+
+    /**
+     * A container that wraps its palettes, so that the default bulk
+     * operations of the {@link Palette} interface get used.
+     */
+    protected static class DefaultBulkOpsContainer<T> extends PalettedContainer<T>
+    {
+        public DefaultBulkOpsContainer(int size, T defaultValue)
+        {
+            super(size, defaultValue);
+        }
+
+        @Override
+        protected Palette<T> createPalette(int bits)
+        {
+            return new DelegatingPalette<>(super.createPalette(bits));
+        }
+    }
+
+    protected static class DelegatingPalette<T> implements Palette<T>
+    {
+        protected final Palette<T> palette;
+
+        public DelegatingPalette(Palette<T> palette)
+        {
+            this.palette = palette;
+        }
+
+        @Override
+        public int getSize()
+        {
+            return this.palette.getSize();
+        }
+
+        @Override
+        public int getMaxSize()
+        {
+            return this.palette.getMaxSize();
+        }
+
+        @Override
+        public int idFor(T value)
+        {
+            return this.palette.idFor(value);
+        }
+
+        @Nullable
+        @Override
+        public T getValue(int id)
+        {
+            return this.palette.getValue(id);
+        }
+
+        @Override
+        public List<T> getMapping()
+        {
+            return this.palette.getMapping();
+        }
+
+        @Override
+        public boolean setMapping(List<T> list)
+        {
+            return this.palette.setMapping(list);
+        }
+
+        @Override
+        public boolean overrideMapping(int id, T value)
+        {
+            return this.palette.overrideMapping(id, value);
+        }
+
+        @Override
+        public Palette<T> copy(PaletteResizeHandler<T> resizeHandler)
+        {
+            return new DelegatingPalette<>(this.palette.copy(resizeHandler));
+        }
+    }
+}
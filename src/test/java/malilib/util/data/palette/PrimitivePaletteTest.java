@@ -0,0 +1,124 @@
+package malilib.util.data.palette;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrimitivePaletteTest
+{
+    /**
+     * Replaces the palette with a larger one on resize, like a paletted container would do
+     */
+    protected static class IntPaletteHolder implements IntPaletteResizeHandler
+    {
+        protected IntPalette palette;
+        protected int resizeCount;
+
+        protected IntPaletteHolder(int bits)
+        {
+            this.palette = new IntPalette(bits, this);
+        }
+
+        @Override
+        public int onResize(int newSizeBits, int valueBeingAdded, int[] oldMapping)
+        {
+            ++this.resizeCount;
+            this.palette = new IntPalette(newSizeBits, this);
+            assertTrue(this.palette.setMapping(oldMapping));
+            return this.palette.idFor(valueBeingAdded);
+        }
+    }
+
+    protected static class ShortPaletteHolder implements IntPaletteResizeHandler
+    {
+        protected ShortPalette palette;
+        protected int resizeCount;
+
+        protected ShortPaletteHolder(int bits)
+        {
+            this.palette = new ShortPalette(bits, this);
+        }
+
+        @Override
+        public int onResize(int newSizeBits, int valueBeingAdded, int[] oldMapping)
+        {
+            ++this.resizeCount;
+            this.palette = new ShortPalette(newSizeBits, this);
+            assertTrue(this.palette.setMapping(oldMapping));
+            return this.palette.idFor(valueBeingAdded);
+        }
+    }
+
+    @Test
+    public void testIntPaletteResize()
+    {
+        IntPaletteHolder holder = new IntPaletteHolder(1);
+        // Includes -1 and the extremes, which are valid values in an int palette
+        int[] values = { 7, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 0, 123456 };
+
+        for (int i = 0; i < values.length; ++i)
+        {
+            assertEquals(i, holder.palette.idFor(values[i]));
+        }
+
+        // 1 -> 2 -> 3 bits
+        assertEquals(2, holder.resizeCount);
+        assertEquals(8, holder.palette.getMaxSize());
+        assertEquals(values.length, holder.palette.getSize());
+
+        for (int i = 0; i < values.length; ++i)
+        {
+            assertEquals(values[i], holder.palette.getValue(i));
+            // Existing values don't get added again
+            assertEquals(i, holder.palette.idFor(values[i]));
+        }
+
+        assertEquals(2, holder.resizeCount);
+    }
+
+    @Test
+    public void testIntPaletteMissingId()
+    {
+        IntPaletteHolder holder = new IntPaletteHolder(2);
+
+        assertEquals(0, holder.palette.idFor(-1));
+        assertTrue(holder.palette.hasId(0));
+        assertFalse(holder.palette.hasId(1));
+        assertFalse(holder.palette.hasId(-1));
+        assertEquals(-1, holder.palette.getValue(0));
+
+        try
+        {
+            holder.palette.getValue(1);
+            throw new AssertionError("Expected an exception for a missing ID");
+        }
+        catch (IndexOutOfBoundsException ignore) {}
+    }
+
+    @Test
+    public void testShortPaletteResize()
+    {
+        ShortPaletteHolder holder = new ShortPaletteHolder(1);
+        int[] values = { 7, ShortPalette.MAX_VALUE, 0, 4096, 65, 300 };
+
+        for (int i = 0; i < values.length; ++i)
+        {
+            assertEquals(i, holder.palette.idFor(values[i]));
+        }
+
+        assertEquals(2, holder.resizeCount);
+        assertEquals(8, holder.palette.getMaxSize());
+
+        for (int i = 0; i < values.length; ++i)
+        {
+            assertEquals(values[i], holder.palette.getValue(i));
+            assertEquals(i, holder.palette.idFor(values[i]));
+        }
+
+        assertEquals(2, holder.resizeCount);
+        assertFalse(holder.palette.hasId(values.length));
+        assertEquals(ShortPalette.NO_VALUE, holder.palette.getValue(values.length));
+    }
+}